@@ -14,10 +14,14 @@ package io.openliberty.tools.langserver.lemminx;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.stream.Collectors;
 
 import io.openliberty.tools.langserver.lemminx.models.feature.VariableLoc;
@@ -39,6 +43,7 @@ import org.eclipse.lsp4j.jsonrpc.messages.Either;
 
 import io.openliberty.tools.langserver.lemminx.data.LibertyRuntime;
 import io.openliberty.tools.langserver.lemminx.models.feature.Feature;
+import io.openliberty.tools.langserver.lemminx.models.feature.FeaturesAndPlatforms;
 import io.openliberty.tools.langserver.lemminx.services.FeatureService;
 import io.openliberty.tools.langserver.lemminx.services.SettingsService;
 import io.openliberty.tools.langserver.lemminx.util.LibertyConstants;
@@ -46,6 +51,9 @@ import io.openliberty.tools.langserver.lemminx.util.LibertyUtils;
 
 public class LibertyCompletionParticipant extends CompletionParticipantAdapter {
 
+    // Completion items for the features and platforms of each feature set, built once per feature set.
+    // The entries are dropped when the feature set is no longer used.
+    private final Map<FeaturesAndPlatforms, CompletionTemplates> completionTemplates = Collections.synchronizedMap(new WeakHashMap<>());
 
     @Override
     public void onAttributeValue(String valuePrefix, ICompletionRequest request, ICompletionResponse response, CancelChecker cancelChecker) throws Exception {
@@ -160,42 +168,50 @@ public class LibertyCompletionParticipant extends CompletionParticipantAdapter {
         String libertyRuntime =  runtimeInfo == null ? null : runtimeInfo.getRuntimeType();
 
         final int requestDelay = SettingsService.getInstance().getRequestDelay();
-        //get all platforms
-        Set<String> platforms = FeatureService.getInstance().getAllPlatforms(libertyVersion, libertyRuntime, requestDelay,
+        //get the platforms that contain the text entered so far
+        FeaturesAndPlatforms featuresAndPlatforms = FeatureService.getInstance().getFeaturesAndPlatforms(libertyVersion, libertyRuntime, requestDelay,
                 request.getXMLDocument().getDocumentURI());
-        platforms.stream().filter(it->(Objects.isNull(platformName) || it.contains(platformName)))
+        CompletionTemplates templates = getCompletionTemplates(featuresAndPlatforms);
+        Range range = XMLPositionUtility.createRange(parentElement.getStartTagCloseOffset() + 1,
+                parentElement.getEndTagOpenOffset(), request.getXMLDocument());
+        featuresAndPlatforms.findPlatforms(platformName == null ? "" : platformName).stream()
                 .filter(p -> !existingPlatforms.contains(LibertyUtils.stripVersion(p).toLowerCase()))
                 .filter(p -> !existingPlatforms.contains(LibertyConstants.conflictingPlatforms.get(LibertyUtils.stripVersion(p).toLowerCase())))
-                .forEach(platformItem -> {
-                    Range range = XMLPositionUtility.createRange(parentElement.getStartTagCloseOffset() + 1,
-                            parentElement.getEndTagOpenOffset(), request.getXMLDocument());
-                    Either<TextEdit, InsertReplaceEdit> edit = Either.forLeft(new TextEdit(range, platformItem));
-                    CompletionItem completionItem = new CompletionItem();
-                    completionItem.setLabel(platformItem);
-                    completionItem.setTextEdit(edit);
-                    completionItem.setDocumentation(LibertyUtils.getPlatformDescription(platformItem));
-                    response.addCompletionItem(completionItem);
-                });
+                .forEach(platformItem -> response.addCompletionItem(createCompletionItem(templates.getPlatformItem(platformItem), range)));
     }
 
-    private CompletionItem buildFeatureCompletionItem(Feature feature, DOMElement featureElement,
-            DOMDocument document) {
+    private static CompletionItem buildFeatureCompletionItem(Feature feature) {
         String featureName = feature.getWlpInformation().getShortName();
+        CompletionItem item = new CompletionItem();
+        item.setLabel(featureName);
+        item.setDocumentation(Either.forLeft(feature.getShortDescription()));
+        return item;
+    }
 
-        // Build a text edit to replace whatever is inside <feature></feature>
-        // with the completion result
-        Range range = XMLPositionUtility.createRange(featureElement.getStartTagCloseOffset() + 1,
-                featureElement.getEndTagOpenOffset(), document);
-        Either<TextEdit, InsertReplaceEdit> edit = Either.forLeft(new TextEdit(range, featureName));
+    private static CompletionItem buildPlatformCompletionItem(String platformName) {
+        CompletionItem item = new CompletionItem();
+        item.setLabel(platformName);
+        item.setDocumentation(LibertyUtils.getPlatformDescription(platformName));
+        return item;
+    }
 
-        // Build the completion item to return to the client
+    /**
+     * Creates the completion item to return to the client from a template. The text edit replaces
+     * whatever is inside the element with the label of the template.
+     */
+    private static CompletionItem createCompletionItem(CompletionItem template, Range range) {
         CompletionItem item = new CompletionItem();
+        item.setLabel(template.getLabel());
+        item.setDocumentation(template.getDocumentation());
+        Either<TextEdit, InsertReplaceEdit> edit = Either.forLeft(new TextEdit(range, template.getLabel()));
         item.setTextEdit(edit);
-        item.setLabel(featureName);
-        item.setDocumentation(Either.forLeft(feature.getShortDescription()));
         return item;
     }
 
+    private CompletionTemplates getCompletionTemplates(FeaturesAndPlatforms featuresAndPlatforms) {
+        return completionTemplates.computeIfAbsent(featuresAndPlatforms, CompletionTemplates::new);
+    }
+
     private List<CompletionItem> buildCompletionItems(DOMElement featureElement, DOMDocument domDocument,
             List<String> existingFeatures, String featureName, DOMNode featureMgrNode) {
 
@@ -206,6 +222,11 @@ public class LibertyCompletionParticipant extends CompletionParticipantAdapter {
         final int requestDelay = SettingsService.getInstance().getRequestDelay();
 
         boolean checkFeatureName = featureName != null && !featureName.isBlank();
+        FeaturesAndPlatforms featuresAndPlatforms = FeatureService.getInstance().getFeaturesAndPlatforms(libertyVersion, libertyRuntime, requestDelay, domDocument.getDocumentURI());
+        CompletionTemplates templates = getCompletionTemplates(featuresAndPlatforms);
+        // Build a text edit range to replace whatever is inside <feature></feature> with the completion result
+        Range range = XMLPositionUtility.createRange(featureElement.getStartTagCloseOffset() + 1,
+                featureElement.getEndTagOpenOffset(), domDocument);
 
         if (checkFeatureName) {
             String featureNameLowerCase = featureName.toLowerCase();
@@ -214,25 +235,24 @@ public class LibertyCompletionParticipant extends CompletionParticipantAdapter {
             String featureNameToCompare = featureNameLowerCase.contains("-") ? featureNameLowerCase.substring(0, featureNameLowerCase.lastIndexOf("-")+1) : featureNameLowerCase;
 
             List<Feature> completionFeatures = FeatureService.getInstance().getFeatureReplacements(featureNameToCompare, featureMgrNode, libertyVersion, libertyRuntime, requestDelay, domDocument.getDocumentURI());
-            return getFeatureCompletionItems(featureElement, domDocument, completionFeatures);
+            return getFeatureCompletionItems(templates, range, completionFeatures);
         } else {
-            List<Feature> features = FeatureService.getInstance().getFeaturesAndPlatforms(libertyVersion, libertyRuntime, requestDelay, domDocument.getDocumentURI()).getPublicFeatures();
-            return getUniqueFeatureCompletionItems(featureElement, domDocument, features, existingFeatures);
+            return getUniqueFeatureCompletionItems(templates, range, featuresAndPlatforms, existingFeatures);
         }
     }
 
-     private List<CompletionItem> getFeatureCompletionItems(DOMElement featureElement, DOMDocument domDocument, List<Feature> completionFeatures) {
+     private List<CompletionItem> getFeatureCompletionItems(CompletionTemplates templates, Range range, List<Feature> completionFeatures) {
         List<CompletionItem> uniqueFeatureCompletionItems = new ArrayList<CompletionItem>();
 
         for (Feature nextFeature : completionFeatures) {
-            CompletionItem ci = buildFeatureCompletionItem(nextFeature, featureElement, domDocument);
+            CompletionItem ci = createCompletionItem(templates.getFeatureItem(nextFeature), range);
             uniqueFeatureCompletionItems.add(ci);
         }
 
         return uniqueFeatureCompletionItems;
     }
 
-    private List<CompletionItem> getUniqueFeatureCompletionItems(DOMElement featureElement, DOMDocument domDocument, List<Feature> allFeatures, List<String> existingFeatureNames) {
+    private List<CompletionItem> getUniqueFeatureCompletionItems(CompletionTemplates templates, Range range, FeaturesAndPlatforms featuresAndPlatforms, List<String> existingFeatureNames) {
         List<CompletionItem> uniqueFeatureCompletionItems = new ArrayList<CompletionItem>();
         // collect features without version
         // existing features are already in lower case
@@ -240,13 +260,16 @@ public class LibertyCompletionParticipant extends CompletionParticipantAdapter {
                 .map(s->LibertyUtils.stripVersion(s).toLowerCase())
                 .collect(Collectors.toSet());
 
-        for (Feature nextFeature : allFeatures) {
-            String nextFeatureName = nextFeature.getWlpInformation().getShortName().toLowerCase();
+        List<Feature> allFeatures = featuresAndPlatforms.getPublicFeatures();
+        List<String> allFeatureNames = featuresAndPlatforms.getFeatureShortNamesLowerCase();
+        for (int i = 0; i < allFeatures.size(); i++) {
+            Feature nextFeature = allFeatures.get(i);
+            String nextFeatureName = allFeatureNames.get(i);
             String nextFeatureNameWithoutVersion = LibertyUtils.stripVersion(nextFeatureName);
             // exclude other versions of all included features
             if (!existingFeatureNames.contains(nextFeatureName)
                     && !existingFeatureNamesWithoutVersion.contains(nextFeatureNameWithoutVersion)) {
-                CompletionItem ci = buildFeatureCompletionItem(nextFeature, featureElement, domDocument);
+                CompletionItem ci = createCompletionItem(templates.getFeatureItem(nextFeature), range);
                 uniqueFeatureCompletionItems.add(ci);
             }
         }
@@ -254,4 +277,29 @@ public class LibertyCompletionParticipant extends CompletionParticipantAdapter {
         return uniqueFeatureCompletionItems;
     }
 
+    // Completion items without a text edit for the features and platforms of a feature set.
+    private static class CompletionTemplates {
+        private final Map<Feature, CompletionItem> featureItems = new IdentityHashMap<>();
+        private final Map<String, CompletionItem> platformItems = new HashMap<>();
+
+        CompletionTemplates(FeaturesAndPlatforms featuresAndPlatforms) {
+            for (Feature feature : featuresAndPlatforms.getPublicFeatures()) {
+                featureItems.put(feature, buildFeatureCompletionItem(feature));
+            }
+            for (String platform : featuresAndPlatforms.getPlatforms()) {
+                platformItems.put(platform, buildPlatformCompletionItem(platform));
+            }
+        }
+
+        CompletionItem getFeatureItem(Feature feature) {
+            CompletionItem item = featureItems.get(feature);
+            return item != null ? item : buildFeatureCompletionItem(feature);
+        }
+
+        CompletionItem getPlatformItem(String platform) {
+            CompletionItem item = platformItems.get(platform);
+            return item != null ? item : buildPlatformCompletionItem(platform);
+        }
+    }
+
 }
@@ -13,7 +13,8 @@
 package io.openliberty.tools.langserver.lemminx;
 
 import com.google.common.collect.Sets;
-import io.openliberty.tools.langserver.lemminx.models.feature.VariableLoc;
+import io.openliberty.tools.langserver.lemminx.models.feature.FeaturesAndPlatforms;
+import org.eclipse.lemminx.commons.BadLocationException;
 import org.eclipse.lemminx.dom.DOMAttr;
 import org.eclipse.lemminx.dom.DOMDocument;
 import org.eclipse.lemminx.dom.DOMNode;
@@ -22,12 +23,19 @@ import org.eclipse.lemminx.services.extensions.diagnostics.IDiagnosticsParticipa
 import org.eclipse.lemminx.utils.XMLPositionUtility;
 import org.eclipse.lsp4j.Diagnostic;
 import org.eclipse.lsp4j.DiagnosticSeverity;
+import org.eclipse.lsp4j.Position;
 import org.eclipse.lsp4j.Range;
 import org.eclipse.lsp4j.jsonrpc.CancelChecker;
 
+import io.openliberty.tools.langserver.lemminx.data.DocumentDiagnosticsCache;
+import io.openliberty.tools.langserver.lemminx.data.VariableUsages;
+import io.openliberty.tools.langserver.lemminx.data.DocumentDiagnosticsCache.ElementDiagnostics;
+import io.openliberty.tools.langserver.lemminx.data.DocumentDiagnosticsCache.ElementKey;
 import io.openliberty.tools.langserver.lemminx.data.FeatureListGraph;
 import io.openliberty.tools.langserver.lemminx.data.LibertyRuntime;
+import io.openliberty.tools.langserver.lemminx.services.EffectiveConfigBuilder.EffectiveConfig;
 import io.openliberty.tools.langserver.lemminx.services.FeatureService;
+import io.openliberty.tools.langserver.lemminx.services.IncludeGraph.IncludedLocation;
 import io.openliberty.tools.langserver.lemminx.services.LibertyProjectsManager;
 import io.openliberty.tools.langserver.lemminx.services.LibertyWorkspace;
 import io.openliberty.tools.langserver.lemminx.services.SettingsService;
@@ -36,6 +44,8 @@ import io.openliberty.tools.langserver.lemminx.util.*;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -44,6 +54,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -71,6 +82,11 @@ public class LibertyDiagnosticParticipant implements IDiagnosticsParticipant {
 
     public static final String FEATURE_NAME_CHANGED_CODE = "feature_name_changed";
 
+    // diagnostics from the last validation pass of each document, keyed by document URI
+    private final Map<String, DocumentDiagnosticsCache> diagnosticsCaches = new ConcurrentHashMap<String, DocumentDiagnosticsCache>();
+    // variable references found by the last validation pass of each document, keyed by document URI
+    private final Map<String, VariableUsages> variableUsagesCache = new ConcurrentHashMap<String, VariableUsages>();
+
     @Override
     public void doDiagnostics(DOMDocument domDocument, List<Diagnostic> diagnostics,
             XMLValidationSettings validationSettings, CancelChecker cancelChecker) {
@@ -94,25 +110,157 @@ public class LibertyDiagnosticParticipant implements IDiagnosticsParticipant {
             LOGGER.warning("Could not get workspace, using default cached feature list");
         }
         FeatureListGraph featureGraph = (workspace == null) ? FeatureService.getInstance().getDefaultFeatureList() : workspace.getFeatureListGraph();
+
+        // Diagnostics from the previous pass are reused for elements whose text and offset did not change,
+        // as long as the feature list, runtime and locale used to compute them are still the same.
+        Object cacheContext = getDiagnosticsCacheContext(domDocument, featureGraph);
+        DocumentDiagnosticsCache previousCache = diagnosticsCaches.get(domDocument.getDocumentURI());
+        if (previousCache != null && !previousCache.isValidFor(cacheContext)) {
+            previousCache = null;
+        }
+        DocumentDiagnosticsCache currentCache = new DocumentDiagnosticsCache(cacheContext);
+        Set<String> includeLocations = new HashSet<String>();
+
         for (DOMNode node : nodes) {
             String nodeName = node.getNodeName();
 
             if (LibertyConstants.FEATURE_MANAGER_ELEMENT.equals(nodeName)) {
                 featureManagerPresent = true;
-                validateFeaturesAndPlatforms(domDocument, diagnosticsList, node, includedFeatures);
+                // duplicate features are reported across featureManager elements, so the features
+                // included before this element are part of its key
+                ElementKey key = createElementKey(domDocument, node, new HashSet<String>(includedFeatures));
+                ElementDiagnostics cached = previousCache == null ? null : previousCache.getElementDiagnostics(key);
+                if (cached == null) {
+                    List<Diagnostic> elementDiagnostics = new ArrayList<Diagnostic>();
+                    validateFeaturesAndPlatforms(domDocument, elementDiagnostics, node, includedFeatures);
+                    cached = new ElementDiagnostics(elementDiagnostics, includedFeatures);
+                }
+                diagnosticsList.addAll(cached.getDiagnostics());
+                includedFeatures.addAll(cached.getIncludedFeatures());
+                currentCache.putElementDiagnostics(key, cached);
             } else if (LibertyConstants.INCLUDE_ELEMENT.equals(nodeName)) {
-                validateIncludeLocation(domDocument, diagnosticsList, node);
+                IncludedLocation includedLocation = resolveIncludeLocation(domDocument, node, workspace, includeLocations);
+                ElementKey key = createElementKey(domDocument, node, includedLocation);
+                ElementDiagnostics cached = previousCache == null ? null : previousCache.getElementDiagnostics(key);
+                if (cached == null) {
+                    List<Diagnostic> elementDiagnostics = new ArrayList<Diagnostic>();
+                    validateIncludeLocation(domDocument, elementDiagnostics, node, includedLocation);
+                    cached = new ElementDiagnostics(elementDiagnostics, Collections.emptySet());
+                }
+                diagnosticsList.addAll(cached.getDiagnostics());
+                currentCache.putElementDiagnostics(key, cached);
             } else if (featureGraph.isConfigElement(nodeName)) {    // defaults to false
                 holdConfigElement(domDocument, node, tempDiagnosticsList);
             }
         }
-        validateConfigElements(domDocument, diagnosticsList, tempDiagnosticsList, featureGraph, includedFeatures, featureManagerPresent);
-        validateVariables(domDocument, diagnosticsList, workspace);
+        // features enabled in included files, configDropins and the files that include this document count as well
+        EffectiveConfig effectiveConfig = buildEffectiveConfig(domDocument, workspace, includeLocations);
+        Set<String> enabledFeatures = includedFeatures;
+        if (!effectiveConfig.getFeatures().isEmpty()) {
+            enabledFeatures = new HashSet<String>(includedFeatures);
+            enabledFeatures.addAll(effectiveConfig.getFeatures());
+        }
+        currentCache.setIncludedFeatures(previousCache, enabledFeatures);
+        validateConfigElements(domDocument, diagnosticsList, tempDiagnosticsList, featureGraph, enabledFeatures, featureManagerPresent, currentCache);
+        diagnosticsCaches.put(domDocument.getDocumentURI(), currentCache);
+        validateVariables(domDocument, diagnosticsList, workspace, effectiveConfig.getVariables());
+    }
+
+    /**
+     * Returns the state that all cached diagnostics for a document depend on. If any part of it
+     * changes, the cached diagnostics for the document are discarded.
+     * @param domDocument
+     * @param featureGraph
+     * @return
+     */
+    private Object getDiagnosticsCacheContext(DOMDocument domDocument, FeatureListGraph featureGraph) {
+        LibertyRuntime runtimeInfo = LibertyUtils.getLibertyRuntimeInfo(domDocument);
+        String libertyVersion = runtimeInfo == null ? null : runtimeInfo.getRuntimeVersion();
+        String libertyRuntime = runtimeInfo == null ? null : runtimeInfo.getRuntimeType();
+        final int requestDelay = SettingsService.getInstance().getRequestDelay();
+        FeaturesAndPlatforms featuresAndPlatforms = FeatureService.getInstance()
+                .getFeaturesAndPlatforms(libertyVersion, libertyRuntime, requestDelay, domDocument.getDocumentURI());
+        // FeatureListGraph and FeaturesAndPlatforms are compared by identity, so a reloaded feature list invalidates the cache
+        return Arrays.asList(featureGraph, featuresAndPlatforms, libertyRuntime, libertyVersion,
+                SettingsService.getInstance().getCurrentLocale());
+    }
+
+    private ElementKey createElementKey(DOMDocument domDocument, DOMNode node, Object dependency) {
+        String text = domDocument.getText().substring(node.getStart(), node.getEnd());
+        Position start;
+        try {
+            start = domDocument.positionAt(node.getStart());
+        } catch (BadLocationException e) {
+            // not expected for the start of a node, the key then only matches elements without a position
+            start = new Position(-1, -1);
+        }
+        return new ElementKey(node.getStart(), start.getLine(), start.getCharacter(), text, dependency);
+    }
+
+    /**
+     * The include diagnostics depend on the file system, so the resolved location and its state are part
+     * of the cache key. The location is resolved through the include graph of the workspace, which reuses
+     * the resolution until the included file changes and records the document as depending on it.
+     * @param includeLocations receives the locations that are checked against the file system
+     * @return null if the location is not checked against the file system or the document is not a file
+     */
+    private IncludedLocation resolveIncludeLocation(DOMDocument domDocument, DOMNode node, LibertyWorkspace workspace, Set<String> includeLocations) {
+        String locAttribute = node.getAttribute("location");
+        if (locAttribute == null || !isFileIncludeLocation(locAttribute)) {
+            return null;
+        }
+        includeLocations.add(locAttribute);
+        try {
+            File documentFile = LibertyUtils.getDocumentAsFile(domDocument);
+            return workspace == null ? IncludedLocation.resolve(documentFile, locAttribute)
+                    : workspace.getIncludeGraph().resolve(documentFile, locAttribute);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Builds the features and variables that the rest of the server configuration adds to the document. This also
+     * removes the include locations the document no longer has from the include graph of the workspace.
+     */
+    private EffectiveConfig buildEffectiveConfig(DOMDocument domDocument, LibertyWorkspace workspace, Set<String> includeLocations) {
+        if (workspace == null) {
+            return EffectiveConfig.EMPTY;
+        }
+        try {
+            return workspace.getEffectiveConfigBuilder().build(LibertyUtils.getDocumentAsFile(domDocument), includeLocations);
+        } catch (IllegalArgumentException e) {
+            // not a file, it has no includes
+            return EffectiveConfig.EMPTY;
+        }
+    }
+
+    /**
+     * @param locAttribute
+     * @return false for the locations that are not checked (URLs and variables) and the ones that are neither an xml file nor a directory
+     */
+    private static boolean isFileIncludeLocation(String locAttribute) {
+        if (locAttribute.startsWith("http") || locAttribute.contains("$")) {
+            return false;
+        }
+        return locAttribute.endsWith(".xml") || locAttribute.endsWith("/") || locAttribute.endsWith(File.separator);
+    }
+
+    /**
+     * Removes the cached diagnostics and variable references of a document when it is closed.
+     * @param documentURI
+     */
+    public void documentClosed(String documentURI) {
+        diagnosticsCaches.remove(documentURI);
+        variableUsagesCache.remove(documentURI);
     }
 
-    private void validateVariables(DOMDocument domDocument, List<Diagnostic> diagnosticsList, LibertyWorkspace workspace) {
+    private void validateVariables(DOMDocument domDocument, List<Diagnostic> diagnosticsList, LibertyWorkspace workspace, Map<String, String> configVariables) {
         String docContent = domDocument.getTextDocument().getText();
-        List<VariableLoc> variables = LibertyUtils.getVariablesFromTextContent(docContent);
+        // only the lines changed since the previous pass are scanned for variable references
+        VariableUsages previousVariables = variableUsagesCache.get(domDocument.getDocumentURI());
+        VariableUsages variables = previousVariables == null ? VariableUsages.scan(docContent) : previousVariables.update(docContent);
+        variableUsagesCache.put(domDocument.getDocumentURI(), variables);
         Properties variablesMap = SettingsService.getInstance().getVariablesForServerXml(domDocument.getDocumentURI());
 
         // Check if the liberty plugin config has been copied to the server or not.
@@ -132,7 +280,7 @@ public class LibertyDiagnosticParticipant implements IDiagnosticsParticipant {
         // set config copied to server for checkAndAddNewVariables()
         SettingsService.getInstance().setConfigCopiedToServer(true);
         LibertyUtils.checkAndAddNewVariables(domDocument, variablesMap);
-        validateVariableExists(domDocument, diagnosticsList, variables, variablesMap);
+        validateVariableExists(domDocument, diagnosticsList, variables, variablesMap, configVariables);
         validateVariableDataTypeValues(domDocument,diagnosticsList,variablesMap);
     }
 
@@ -269,7 +417,7 @@ public class LibertyDiagnosticParticipant implements IDiagnosticsParticipant {
      * 2) performed in isConfigXMLFile
      * 4) not yet implemented/determined
      */
-    private void validateIncludeLocation(DOMDocument domDocument, List<Diagnostic> diagnosticsList, DOMNode node) {
+    private void validateIncludeLocation(DOMDocument domDocument, List<Diagnostic> diagnosticsList, DOMNode node, IncludedLocation includedLocation) {
         String locAttribute = node.getAttribute("location");
         if (locAttribute == null) {
             return;
@@ -289,41 +437,36 @@ public class LibertyDiagnosticParticipant implements IDiagnosticsParticipant {
             return;
         }
 
-        File docParentFile = LibertyUtils.getDocumentAsFile(domDocument).getParentFile();
-        File configFile = new File(docParentFile, locAttribute);
-        if (!configFile.exists()) {
-            configFile = new File(locAttribute);
+        if (includedLocation == null) {
+            String message = ResourceBundleUtil.getMessage(ResourceBundleMappingConstants.WARN_MISSING_FILE_MESSAGE);
+            diagnosticsList.add(new Diagnostic(range, message, DiagnosticSeverity.Warning, "liberty-lemminx-exception", MISSING_FILE_CODE));
+            return;
         }
-        try {
-            if (!configFile.exists()) {
-                DOMAttr optNode = node.getAttributeNode("optional");
-                if (optNode == null) {
-                    String message = ResourceBundleUtil.getMessage(ResourceBundleMappingConstants.ERR_IMPLICIT_NOT_OPTIONAL_MESSAGE);
-                    diagnosticsList.add(new Diagnostic(range, message, DiagnosticSeverity.Error, LIBERTY_LEMMINX_SOURCE, IMPLICIT_NOT_OPTIONAL_CODE));
-                } else if (optNode.getValue().equals("false")) {
-                    Range optRange = XMLPositionUtility.createRange(optNode.getStart(), optNode.getEnd(), domDocument);
-                    String message = ResourceBundleUtil.getMessage(ResourceBundleMappingConstants.ERR_NOT_OPTIONAL_MESSAGE);
-                    diagnosticsList.add(new Diagnostic(optRange, message, DiagnosticSeverity.Error, LIBERTY_LEMMINX_SOURCE, NOT_OPTIONAL_CODE));
-                }
-                String message = ResourceBundleUtil.getMessage(ResourceBundleMappingConstants.WARN_MISSING_FILE_MESSAGE);
-                diagnosticsList.add(new Diagnostic(range, message, DiagnosticSeverity.Warning, LIBERTY_LEMMINX_SOURCE, MISSING_FILE_CODE));
+        if (!includedLocation.exists()) {
+            DOMAttr optNode = node.getAttributeNode("optional");
+            if (optNode == null) {
+                String message = ResourceBundleUtil.getMessage(ResourceBundleMappingConstants.ERR_IMPLICIT_NOT_OPTIONAL_MESSAGE);
+                diagnosticsList.add(new Diagnostic(range, message, DiagnosticSeverity.Error, LIBERTY_LEMMINX_SOURCE, IMPLICIT_NOT_OPTIONAL_CODE));
+            } else if (optNode.getValue().equals("false")) {
+                Range optRange = XMLPositionUtility.createRange(optNode.getStart(), optNode.getEnd(), domDocument);
+                String message = ResourceBundleUtil.getMessage(ResourceBundleMappingConstants.ERR_NOT_OPTIONAL_MESSAGE);
+                diagnosticsList.add(new Diagnostic(optRange, message, DiagnosticSeverity.Error, LIBERTY_LEMMINX_SOURCE, NOT_OPTIONAL_CODE));
             }
-            validateFileOrDirIncludeLocation(configFile, isLibertyDirectory, range, diagnosticsList);
-        } catch (IllegalArgumentException e) {
             String message = ResourceBundleUtil.getMessage(ResourceBundleMappingConstants.WARN_MISSING_FILE_MESSAGE);
-            diagnosticsList.add(new Diagnostic(range, message, DiagnosticSeverity.Warning, "liberty-lemminx-exception", MISSING_FILE_CODE));
+            diagnosticsList.add(new Diagnostic(range, message, DiagnosticSeverity.Warning, LIBERTY_LEMMINX_SOURCE, MISSING_FILE_CODE));
         }
+        validateFileOrDirIncludeLocation(includedLocation, isLibertyDirectory, range, diagnosticsList);
     }
 
     /**
      * Checks if specified file or dir is the correct filetype.
      * Adds diagnostics if it is mismatched.
-     * @param f - <include> location file
+     * @param f - resolved <include> location
      * @param isLibertyDirectory - whether Liberty considers this specified as a dir (path ends in slash)
      * @param range - Range to apply diagnostic message
      * @param diagnosticsList
      */
-    private void validateFileOrDirIncludeLocation(File f, boolean isLibertyDirectory, Range range, List<Diagnostic> diagnosticsList) {
+    private void validateFileOrDirIncludeLocation(IncludedLocation f, boolean isLibertyDirectory, Range range, List<Diagnostic> diagnosticsList) {
         if (f.isFile() && isLibertyDirectory) {
             String message = ResourceBundleUtil.getMessage(ResourceBundleMappingConstants.ERR_SPECIFIED_DIR_IS_FILE);
             diagnosticsList.add(new Diagnostic(range, message, DiagnosticSeverity.Error, LIBERTY_LEMMINX_SOURCE, IS_FILE_NOT_DIR_CODE));
@@ -357,7 +500,8 @@ public class LibertyDiagnosticParticipant implements IDiagnosticsParticipant {
      * @param featureGraph
      */
     private void validateConfigElements(DOMDocument domDocument, List<Diagnostic> diagnosticsList, List<Diagnostic> tempDiagnosticsList, 
-                                        FeatureListGraph featureGraph, Set<String> includedFeatures, boolean featureManagerPresent) {
+                                        FeatureListGraph featureGraph, Set<String> includedFeatures, boolean featureManagerPresent,
+                                        DocumentDiagnosticsCache diagnosticsCache) {
         if (featureGraph.isEmpty()) {
             return;
         }
@@ -369,32 +513,24 @@ public class LibertyDiagnosticParticipant implements IDiagnosticsParticipant {
             }
             return;
         }
+        BitSet includedFeatureSet = null;
         for (Diagnostic tempDiagnostic : tempDiagnosticsList) {
             String configElement = tempDiagnostic.getSource();
-            Set<String> compatibleFeaturesList = featureGraph.getAllEnabledBy(configElement);
-            Set<String> includedFeaturesCopy = getCompatibleFeatures(includedFeatures, compatibleFeaturesList);
-            if (includedFeaturesCopy.isEmpty()) {
+            Boolean missingFeature = diagnosticsCache.isConfigElementMissingFeature(configElement, includedFeatures);
+            if (missingFeature == null) {
+                if (includedFeatureSet == null) {
+                    // matches both versioned and versionless features
+                    includedFeatureSet = featureGraph.getFeatureSet(includedFeatures);
+                }
+                missingFeature = !featureGraph.isEnabledBy(configElement, includedFeatureSet);
+                diagnosticsCache.putConfigElementMissingFeature(configElement, missingFeature);
+            }
+            if (missingFeature) {
                 diagnosticsList.add(tempDiagnostic);
             }
         }
     }
 
-    /**
-     * get compatible features for both versioned and versionless features
-     *
-     * @param includedFeatures       ll selected features
-     * @param compatibleFeaturesList enabled by feature list
-     * @return any compitable feature list
-     */
-    private Set<String> getCompatibleFeatures(Set<String> includedFeatures, Set<String> compatibleFeaturesList) {
-        Set<String> versionLessCompatibleFeatureList = compatibleFeaturesList.stream()
-                .map(f -> LibertyUtils.stripVersion(f))
-                .collect(Collectors.toSet());
-        return includedFeatures.stream().filter(included ->
-                compatibleFeaturesList.contains(included) || versionLessCompatibleFeatureList.contains(included)
-        ).collect(Collectors.toSet());
-    }
-
     /**
      * validate platform element. checks for
      *      1) if platform is invalid
@@ -676,16 +812,19 @@ public class LibertyDiagnosticParticipant implements IDiagnosticsParticipant {
      * @param variables variables in use in server xml
      * @param variablesMap all variables defined in liberty config files
      */
-    private static void validateVariableExists(DOMDocument domDocument, List<Diagnostic> diagnosticsList, List<VariableLoc> variables, Properties variablesMap) {
-        for (VariableLoc variable : variables) {
-            if (!variablesMap.containsKey(variable.getValue())) {
+    private static void validateVariableExists(DOMDocument domDocument, List<Diagnostic> diagnosticsList, VariableUsages variables, Properties variablesMap,
+            Map<String, String> configVariables) {
+        for (int i = 0; i < variables.size(); i++) {
+            String variableName = variables.getName(i);
+            // variables declared in included files or configDropins that are not in the server yet
+            if (!variablesMap.containsKey(variableName) && !configVariables.containsKey(variableName)) {
                 //range is used in ReplaceVariable to provide quick fix.
                 // we just need the variable value range here as ${} is added in replace variable message
-                Range range = XMLPositionUtility.createRange(variable.getStartLoc() - 2, variable.getEndLoc() + 1,
+                Range range = XMLPositionUtility.createRange(variables.getNameStart(i) - 2, variables.getNameEnd(i) + 1,
                         domDocument);
-                String message = ResourceBundleUtil.getMessage(ResourceBundleMappingConstants.ERR_VARIABLE_NOT_EXIST, variable.getValue());
+                String message = ResourceBundleUtil.getMessage(ResourceBundleMappingConstants.ERR_VARIABLE_NOT_EXIST, variableName);
                 Diagnostic diag = new Diagnostic(range, message, DiagnosticSeverity.Error, LIBERTY_LEMMINX_SOURCE, INCORRECT_VARIABLE_CODE);
-                diag.setData(variable.getValue());
+                diag.setData(variableName);
                 diagnosticsList.add(diag);
             }
         }
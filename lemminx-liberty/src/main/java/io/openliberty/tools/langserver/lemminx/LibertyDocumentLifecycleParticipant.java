@@ -0,0 +1,51 @@
+/*******************************************************************************
+* Copyright (c) 2025 IBM Corporation and others.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License v. 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*     IBM Corporation - initial API and implementation
+*******************************************************************************/
+package io.openliberty.tools.langserver.lemminx;
+
+import org.eclipse.lemminx.dom.DOMDocument;
+import org.eclipse.lemminx.services.extensions.IDocumentLifecycleParticipant;
+
+import io.openliberty.tools.langserver.lemminx.util.DocumentVariables;
+
+/**
+ * Drops the state kept for a server config document once it is closed.
+ */
+public class LibertyDocumentLifecycleParticipant implements IDocumentLifecycleParticipant {
+
+    private final LibertyDiagnosticParticipant diagnosticsParticipant;
+
+    public LibertyDocumentLifecycleParticipant(LibertyDiagnosticParticipant diagnosticsParticipant) {
+        this.diagnosticsParticipant = diagnosticsParticipant;
+    }
+
+    @Override
+    public void didOpen(DOMDocument document) {
+        // not required
+    }
+
+    @Override
+    public void didChange(DOMDocument document) {
+        // not required
+    }
+
+    @Override
+    public void didSave(DOMDocument document) {
+        // not required
+    }
+
+    @Override
+    public void didClose(DOMDocument document) {
+        diagnosticsParticipant.documentClosed(document.getDocumentURI());
+        DocumentVariables.documentClosed(document.getDocumentURI());
+    }
+}
@@ -12,16 +12,24 @@
 *******************************************************************************/
 package io.openliberty.tools.langserver.lemminx;
 
+import io.openliberty.tools.langserver.lemminx.data.LibertyRuntime;
+import io.openliberty.tools.langserver.lemminx.services.FeatureService;
+import io.openliberty.tools.langserver.lemminx.services.DirectoryWatchService;
 import io.openliberty.tools.langserver.lemminx.services.FileWatchService;
+import io.openliberty.tools.langserver.lemminx.services.IncludeGraph;
 import io.openliberty.tools.langserver.lemminx.services.LibertyWorkspace;
+import io.openliberty.tools.langserver.lemminx.util.LibertyUtils;
 import io.openliberty.tools.langserver.lemminx.util.LibertyVersionDownloadUtil;
+import org.eclipse.lemminx.dom.DOMDocument;
+import org.eclipse.lemminx.services.IXMLDocumentProvider;
+import org.eclipse.lemminx.services.IXMLValidationService;
+import org.eclipse.lemminx.services.extensions.IDocumentLifecycleParticipant;
 import org.eclipse.lemminx.services.extensions.IDocumentLinkParticipant;
 import org.eclipse.lemminx.services.extensions.codeaction.ICodeActionParticipant;
 import org.eclipse.lemminx.services.extensions.completion.ICompletionParticipant;
 import org.eclipse.lemminx.services.extensions.hover.IHoverParticipant;
 import org.eclipse.lemminx.services.extensions.IXMLExtension;
 import org.eclipse.lemminx.services.extensions.XMLExtensionsRegistry;
-import org.eclipse.lemminx.services.extensions.diagnostics.IDiagnosticsParticipant;
 import org.eclipse.lemminx.services.extensions.save.ISaveContext;
 import org.eclipse.lemminx.services.extensions.save.ISaveContext.SaveContextType;
 import org.eclipse.lemminx.uriresolver.URIResolverExtension;
@@ -29,9 +37,12 @@ import org.eclipse.lsp4j.InitializeParams;
 import org.eclipse.lsp4j.WorkspaceFolder;
 
 import java.io.File;
+import java.net.URI;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
 import io.openliberty.tools.langserver.lemminx.services.LibertyProjectsManager;
@@ -46,9 +57,12 @@ public class LibertyExtension implements IXMLExtension {
     private URIResolverExtension xsdResolver;
     private ICompletionParticipant completionParticipant;
     private IHoverParticipant hoverParticipant;
-    private IDiagnosticsParticipant diagnosticsParticipant;
+    private LibertyDiagnosticParticipant diagnosticsParticipant;
+    private IDocumentLifecycleParticipant documentLifecycleParticipant;
     private ICodeActionParticipant codeActionsParticipant;
     private IDocumentLinkParticipant documentLinkParticipant;
+    private Consumer<String> featuresUpdatedListener;
+    private Consumer<Set<String>> includeDependentsListener;
 
     @Override
     public void start(InitializeParams initializeParams, XMLExtensionsRegistry xmlExtensionsRegistry) {
@@ -80,12 +94,23 @@ public class LibertyExtension implements IXMLExtension {
         diagnosticsParticipant = new LibertyDiagnosticParticipant();
         xmlExtensionsRegistry.registerDiagnosticsParticipant(diagnosticsParticipant);
 
+        documentLifecycleParticipant = new LibertyDocumentLifecycleParticipant(diagnosticsParticipant);
+        xmlExtensionsRegistry.registerDocumentLifecycleParticipant(documentLifecycleParticipant);
+
         codeActionsParticipant = new LibertyCodeActionParticipant();
         xmlExtensionsRegistry.registerCodeActionParticipant(codeActionsParticipant);
 
         documentLinkParticipant = new LibertyDocumentLinkParticipant();
         xmlExtensionsRegistry.registerDocumentLinkParticipant(documentLinkParticipant);
 
+        // validate documents again when the features for their Liberty version have been downloaded
+        featuresUpdatedListener = featureCacheKey -> revalidateDocuments(xmlExtensionsRegistry, featureCacheKey);
+        FeatureService.getInstance().addFeaturesUpdatedListener(featuresUpdatedListener);
+
+        // validate documents again when a file they include was created, changed or deleted
+        includeDependentsListener = dependents -> revalidateIncludingDocuments(xmlExtensionsRegistry, dependents);
+        LibertyProjectsManager.getInstance().addIncludeDependentsListener(includeDependentsListener);
+
         try {
             SettingsService.getInstance()
                     .populateAllVariables(LibertyProjectsManager.getInstance().getLibertyWorkspaceFolders());
@@ -121,8 +146,61 @@ public class LibertyExtension implements IXMLExtension {
         xmlExtensionsRegistry.unregisterCompletionParticipant(completionParticipant);
         xmlExtensionsRegistry.unregisterHoverParticipant(hoverParticipant);
         xmlExtensionsRegistry.unregisterDiagnosticsParticipant(diagnosticsParticipant);
+        xmlExtensionsRegistry.unregisterDocumentLifecycleParticipant(documentLifecycleParticipant);
         xmlExtensionsRegistry.unregisterCodeActionParticipant(codeActionsParticipant);
+        FeatureService.getInstance().removeFeaturesUpdatedListener(featuresUpdatedListener);
+        LibertyProjectsManager.getInstance().removeIncludeDependentsListener(includeDependentsListener);
         FileWatchService.getInstance().cleanFileMonitors();
+        DirectoryWatchService.getInstance().close();
+    }
+
+    /**
+     * Validates the open server config documents that use the given runtime and version again.
+     * @param xmlExtensionsRegistry
+     * @param featureCacheKey runtime-version, for example ol-25.0.0.6
+     */
+    private static void revalidateDocuments(XMLExtensionsRegistry xmlExtensionsRegistry, String featureCacheKey) {
+        IXMLDocumentProvider documentProvider = xmlExtensionsRegistry.getDocumentProvider();
+        IXMLValidationService validationService = xmlExtensionsRegistry.getValidationService();
+        if (documentProvider == null || validationService == null) {
+            return;
+        }
+        for (DOMDocument document : documentProvider.getAllDocuments()) {
+            if (!LibertyUtils.isConfigXMLFile(document)) {
+                continue;
+            }
+            LibertyRuntime runtimeInfo = LibertyUtils.getLibertyRuntimeInfo(document);
+            if (runtimeInfo != null && featureCacheKey.equals(runtimeInfo.getRuntimeType() + "-" + runtimeInfo.getRuntimeVersion())) {
+                LOGGER.info("Validating " + document.getDocumentURI() + " with the downloaded features for " + featureCacheKey);
+                validationService.validate(document);
+            }
+        }
+    }
+
+    /**
+     * Validates the open server config documents that include a changed file again.
+     * @param xmlExtensionsRegistry
+     * @param dependents paths of the including files, as recorded in the IncludeGraph
+     */
+    private static void revalidateIncludingDocuments(XMLExtensionsRegistry xmlExtensionsRegistry, Set<String> dependents) {
+        IXMLDocumentProvider documentProvider = xmlExtensionsRegistry.getDocumentProvider();
+        IXMLValidationService validationService = xmlExtensionsRegistry.getValidationService();
+        if (documentProvider == null || validationService == null) {
+            return;
+        }
+        for (DOMDocument document : documentProvider.getAllDocuments()) {
+            if (!LibertyUtils.isConfigXMLFile(document)) {
+                continue;
+            }
+            try {
+                if (dependents.contains(IncludeGraph.getPath(LibertyUtils.getDocumentAsFile(document)))) {
+                    LOGGER.fine("Validating " + document.getDocumentURI() + " since a file it includes changed");
+                    validationService.validate(document);
+                }
+            } catch (IllegalArgumentException e) {
+                // not a file, it cannot include files
+            }
+        }
     }
 
     // Do save is called on startup with a Settings update
@@ -135,6 +213,16 @@ public class LibertyExtension implements IXMLExtension {
             Object xmlSettings = saveContext.getSettings();
             SettingsService.getInstance().updateLibertySettings(xmlSettings);
             LOGGER.info("Liberty XML settings updated");
+        } else if (saveContext.getType() == SaveContextType.DOCUMENT && saveContext.getUri() != null) {
+            // the directory of a saved included file may not be watched, so its dependents are validated here too
+            LibertyWorkspace workspace = LibertyProjectsManager.getInstance().getWorkspaceFolder(saveContext.getUri());
+            if (workspace != null) {
+                try {
+                    workspace.getIncludeGraph().fileChanged(new File(URI.create(saveContext.getUri())));
+                } catch (IllegalArgumentException e) {
+                    // not a file
+                }
+            }
         }
     }
 }
@@ -34,15 +34,24 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 public class LibertyHoverParticipant implements IHoverParticipant {
     private static final Logger LOGGER = Logger.getLogger(LibertyHoverParticipant.class.getName());
     private static final String MARKDOWN_NEW_LINE = "  \n  \n";
 
+    // Rendered feature hover markdown per feature set (the default feature list graph, or the features and platforms
+    // of a workspace), keyed by locale, feature list source and feature name. A feature set that is replaced is no
+    // longer referenced by the feature service, so its entries are dropped with it.
+    private final Map<Object, Map<String, String>> featureHoverCache = Collections.synchronizedMap(new WeakHashMap<>());
+
     @Override
     public Hover onAttributeName(IHoverRequest request, CancelChecker cancelChecker) {
         return null;
@@ -131,7 +140,13 @@ public class LibertyHoverParticipant implements IHoverParticipant {
         String libertyRuntime =  runtimeInfo == null ? null : runtimeInfo.getRuntimeType();
 
         final int requestDelay = SettingsService.getInstance().getRequestDelay();
-        Optional<Feature> feature = FeatureService.getInstance().getFeature(featureName, libertyVersion, libertyRuntime, requestDelay, domDocument.getDocumentURI());
+        FeaturesAndPlatforms featuresAndPlatforms = FeatureService.getInstance().getFeaturesAndPlatforms(libertyVersion, libertyRuntime, requestDelay, domDocument.getDocumentURI());
+        String hover = getCachedFeatureHover(featuresAndPlatforms, featureName, () -> renderFeatureDescription(featuresAndPlatforms, featureName));
+        return hover == null ? null : new Hover(new MarkupContent(MarkupKind.MARKDOWN, hover));
+    }
+
+    private String renderFeatureDescription(FeaturesAndPlatforms featuresAndPlatforms, String featureName) {
+        Optional<Feature> feature = Optional.ofNullable(featuresAndPlatforms.getFeature(featureName));
         if (feature.isPresent()) {
             StringBuilder sb = new StringBuilder();
             sb.append(ResourceBundleUtil.getMessage(ResourceBundleMappingConstants.TITLE_HOVER_DESCRIPTION)).append(" ");
@@ -141,7 +156,7 @@ public class LibertyHoverParticipant implements IHoverParticipant {
                 sb.append(".");
             }
             addFeatureListSource(sb);
-            return new Hover(new MarkupContent(MarkupKind.MARKDOWN, sb.toString()));
+            return sb.toString();
         }
 
         return null;
@@ -152,11 +167,41 @@ public class LibertyHoverParticipant implements IHoverParticipant {
         // feature list will only be a subset of the default one. If the feature is not found in the default feature list, this code will 
         // default to the original description only which is available from the downloaded features.json file.
         FeatureListGraph featureGraph = FeatureService.getInstance().getDefaultFeatureList();
-        FeatureListNode flNode = featureGraph.getFeatureListNode(featureName);
-        if (flNode == null) {
+        String hover = getCachedFeatureHover(featureGraph, featureName, () -> renderHoverFeatureDescription(featureGraph, featureName));
+        if (hover == null) {
             LOGGER.warning("Could not get full description for feature: "+featureName+"  from cached feature list. Using description from features.json file.");
             return getFeatureDescription(featureName, document);
         }
+        return new Hover(new MarkupContent(MarkupKind.MARKDOWN, hover));
+    }
+
+    /**
+     * Returns the rendered hover for a feature of a feature set, rendering it if it is not cached yet.
+     * @param featureSet feature list graph or features and platforms the hover is rendered from
+     * @param featureName
+     * @param render renders the hover, or returns null if the feature is not in the feature set
+     * @return the hover markdown, or null if the feature is not in the feature set
+     */
+    private String getCachedFeatureHover(Object featureSet, String featureName, Supplier<String> render) {
+        // the source link and the titles depend on the feature list source and the locale
+        Path source = SettingsService.getInstance().getFeatureJsonFilePath();
+        String key = SettingsService.getInstance().getCurrentLocale() + "|" + source + "|" + featureName;
+        Map<String, String> hovers = featureHoverCache.computeIfAbsent(featureSet, k -> new ConcurrentHashMap<>());
+        String hover = hovers.get(key);
+        if (hover == null) {
+            hover = render.get();
+            if (hover != null) {
+                hovers.put(key, hover);
+            }
+        }
+        return hover;
+    }
+
+    private String renderHoverFeatureDescription(FeatureListGraph featureGraph, String featureName) {
+        FeatureListNode flNode = featureGraph.getFeatureListNode(featureName);
+        if (flNode == null) {
+            return null;
+        }
 
         StringBuilder sb = new StringBuilder();
         String description = flNode.getDescription();
@@ -169,7 +214,7 @@ public class LibertyHoverParticipant implements IHoverParticipant {
                 sb.append(".");
             }
             addFeatureListSource(sb);
-            return new Hover(new MarkupContent(MarkupKind.MARKDOWN, sb.toString()));
+            return sb.toString();
         }
 
         sb.append(MARKDOWN_NEW_LINE);
@@ -205,7 +250,7 @@ public class LibertyHoverParticipant implements IHoverParticipant {
             sb.setLength(sb.length() - 2);
         }
        addFeatureListSource(sb);
-       return new Hover(new MarkupContent(MarkupKind.MARKDOWN, sb.toString()));
+       return sb.toString();
     }
 
     /**
@@ -0,0 +1,169 @@
+/*******************************************************************************
+* Copyright (c) 2025 IBM Corporation and others.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License v. 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*     IBM Corporation - initial API and implementation
+*******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.eclipse.lsp4j.Diagnostic;
+
+/**
+ * Diagnostics computed for the top level elements of a single server config document
+ * during one validation pass. The next pass looks up elements by their start offset and
+ * text, and reuses the stored diagnostics when neither has changed, so that only the
+ * elements that were edited are validated again.
+ *
+ * A cache is only reusable while the context it was computed in (feature list, runtime,
+ * locale) stays the same. Each pass builds a new cache from the previous one, which means
+ * entries for elements that no longer exist are dropped automatically.
+ */
+public class DocumentDiagnosticsCache {
+
+    private final Object context;
+    private final Map<ElementKey, ElementDiagnostics> elements;
+    private Set<String> includedFeatures;
+    private final Map<String, Boolean> configElementsMissingFeature;
+
+    public DocumentDiagnosticsCache(Object context) {
+        this.context = context;
+        this.elements = new HashMap<ElementKey, ElementDiagnostics>();
+        this.includedFeatures = Collections.emptySet();
+        this.configElementsMissingFeature = new HashMap<String, Boolean>();
+    }
+
+    /**
+     * Returns true if diagnostics from this cache can be used for a pass running in the given context.
+     * @param otherContext
+     * @return
+     */
+    public boolean isValidFor(Object otherContext) {
+        return Objects.equals(context, otherContext);
+    }
+
+    public Object getContext() {
+        return context;
+    }
+
+    /**
+     * Returns the cached diagnostics for an element, or null if the element was not
+     * validated with the same key in the previous pass.
+     * @param key
+     * @return
+     */
+    public ElementDiagnostics getElementDiagnostics(ElementKey key) {
+        return elements.get(key);
+    }
+
+    public void putElementDiagnostics(ElementKey key, ElementDiagnostics elementDiagnostics) {
+        elements.put(key, elementDiagnostics);
+    }
+
+    /**
+     * Returns whether the config element was missing a feature, or null if it was not
+     * evaluated against the same set of included features.
+     * @param configElement
+     * @param features lower case features included in the document
+     * @return
+     */
+    public Boolean isConfigElementMissingFeature(String configElement, Set<String> features) {
+        if (!includedFeatures.equals(features)) {
+            return null;
+        }
+        return configElementsMissingFeature.get(configElement);
+    }
+
+    /**
+     * Copies the config element results from the previous pass if they were computed with the
+     * same included features, and records the included features for this pass.
+     * @param previous
+     * @param features
+     */
+    public void setIncludedFeatures(DocumentDiagnosticsCache previous, Set<String> features) {
+        this.includedFeatures = new HashSet<String>(features);
+        if (previous != null && previous.includedFeatures.equals(features)) {
+            configElementsMissingFeature.putAll(previous.configElementsMissingFeature);
+        }
+    }
+
+    public void putConfigElementMissingFeature(String configElement, boolean missingFeature) {
+        configElementsMissingFeature.put(configElement, missingFeature);
+    }
+
+    /**
+     * Identifies a top level element by its position and text. The position includes the line and column,
+     * since the cached diagnostics hold absolute ranges, and an edit before the element can change its line
+     * without changing its offset. Any state outside of the element that the element's validation depends on
+     * (for example, the features included by earlier featureManager elements, or the last modified time of
+     * an included file) is part of the key.
+     */
+    public static final class ElementKey {
+        private final int start;
+        private final int line;
+        private final int character;
+        private final String text;
+        private final Object dependency;
+
+        public ElementKey(int start, int line, int character, String text, Object dependency) {
+            this.start = start;
+            this.line = line;
+            this.character = character;
+            this.text = text;
+            this.dependency = dependency;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ElementKey)) {
+                return false;
+            }
+            ElementKey other = (ElementKey) obj;
+            return start == other.start && line == other.line && character == other.character && text.equals(other.text)
+                    && Objects.equals(dependency, other.dependency);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(start, line, character, text, dependency);
+        }
+    }
+
+    /**
+     * Diagnostics for a single element, plus the features it added to the document if it is a featureManager.
+     */
+    public static final class ElementDiagnostics {
+        private final List<Diagnostic> diagnostics;
+        private final Set<String> includedFeatures;
+
+        public ElementDiagnostics(List<Diagnostic> diagnostics, Set<String> includedFeatures) {
+            this.diagnostics = Collections.unmodifiableList(new ArrayList<Diagnostic>(diagnostics));
+            this.includedFeatures = Collections.unmodifiableSet(new HashSet<String>(includedFeatures));
+        }
+
+        public List<Diagnostic> getDiagnostics() {
+            return diagnostics;
+        }
+
+        public Set<String> getIncludedFeatures() {
+            return includedFeatures;
+        }
+    }
+}
@@ -12,30 +12,66 @@
 *******************************************************************************/
 package io.openliberty.tools.langserver.lemminx.data;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Graph of the features and config elements in a feature list xml.
+ *
+ * The graph is built with addFeature and addConfigElement, which create mutable FeatureListNode and
+ * ConfigElementNode objects. Once the graph is complete, compact() replaces those objects with an
+ * immutable name table and integer adjacency arrays, and builds the reachability index used by
+ * getAllEnabledBy and isEnabledBy. The compact form is published through a volatile reference, so
+ * queries from any thread read it without locking and never see a partly built graph. Queries compact
+ * the graph first if needed. A compacted graph is immutable: adding a node to it throws an
+ * IllegalStateException, and getFeatureListNode and getConfigElementNode return detached copies of the
+ * nodes, so changing those copies does not change the graph.
+ *
+ * The compact form can be written to a binary snapshot with writeSnapshot and read back with readSnapshot,
+ * which skips parsing the feature list xml and building the graph. The build pre-compiles the bundled
+ * feature list xml files to snapshots this way, see FeatureListSnapshotGenerator.
+ */
 public class FeatureListGraph {
-    private String runtime = "";
+    private static final int SNAPSHOT_MAGIC = 0x4C464C47; // "LFLG"
+    private static final int SNAPSHOT_FORMAT_VERSION = 1;
+
+    private volatile String runtime = "";
+
+    // Mutable nodes, only used while the graph is being built. Guarded by the graph's lock, and set to null by compact().
     private Map<String, FeatureListNode> featureNodes;
     private Map<String, ConfigElementNode> configElementNodes;
     private Map<String, Node> nodes;
-    private Map<String, Set<String>> enabledByCache; 
-    private Map<String, Set<String>> enabledByCacheLowerCase; // storing in lower case to enable diagnostics with configured features
-    
+
+    // Compact form created by compact(), or null while the graph is being built.
+    private volatile CompactGraph compactGraph;
+
     public FeatureListGraph() {
         nodes = new HashMap<String, Node>();
         featureNodes = new HashMap<String, FeatureListNode>();
         configElementNodes = new HashMap<String, ConfigElementNode>();
-        enabledByCacheLowerCase = new HashMap<String, Set<String>>();
-        enabledByCache = new HashMap<String, Set<String>>();
     }
 
-    public FeatureListNode addFeature(String nodeName) {
+    private FeatureListGraph(String runtime, CompactGraph compactGraph) {
+        this.runtime = runtime;
+        this.compactGraph = compactGraph;
+    }
+
+    public synchronized FeatureListNode addFeature(String nodeName) {
+        checkNotCompacted();
         if (featureNodes.containsKey(nodeName)) {
             return featureNodes.get(nodeName);
         }
@@ -45,7 +81,8 @@ public class FeatureListGraph {
         return node;
     }
 
-    public FeatureListNode addFeature(String nodeName, String description) {
+    public synchronized FeatureListNode addFeature(String nodeName, String description) {
+        checkNotCompacted();
         if (featureNodes.containsKey(nodeName)) {
             FeatureListNode node = featureNodes.get(nodeName);
             if (node.getDescription().isEmpty()) {
@@ -63,8 +100,9 @@ public class FeatureListGraph {
         nodes.putIfAbsent(nodeName, node);
         return node;
     }
-    
-    public ConfigElementNode addConfigElement(String nodeName) {
+
+    public synchronized ConfigElementNode addConfigElement(String nodeName) {
+        checkNotCompacted();
         if (configElementNodes.containsKey(nodeName)) {
             return configElementNodes.get(nodeName);
         }
@@ -74,22 +112,37 @@ public class FeatureListGraph {
         return node;
     }
 
+    /**
+     * Returns a detached copy of a feature node. Changes to it do not affect the graph.
+     * @param nodeName
+     * @return
+     */
     public FeatureListNode getFeatureListNode(String nodeName) {
-        return featureNodes.get(nodeName);
+        CompactGraph graph = getCompactGraph();
+        Integer id = graph.featureIds.get(nodeName);
+        return id == null ? null : graph.createFeatureListNode(id);
     }
 
+    /**
+     * Returns a detached copy of a config element node. Changes to it do not affect the graph.
+     * @param nodeName
+     * @return
+     */
     public ConfigElementNode getConfigElementNode(String nodeName) {
-        return configElementNodes.get(nodeName);
+        CompactGraph graph = getCompactGraph();
+        Integer id = graph.configElementIds.get(nodeName);
+        return id == null ? null : graph.createConfigElementNode(id);
     }
 
     public boolean isEmpty() {
-        return configElementNodes.isEmpty() && featureNodes.isEmpty();
+        CompactGraph graph = getCompactGraph();
+        return graph.configElementNames.length == 0 && graph.featureNames.length == 0;
     }
-    
+
     public boolean isConfigElement(String name) {
-        return configElementNodes.containsKey(name);
+        return getCompactGraph().configElementIds.containsKey(name);
     }
-    
+
     public void setRuntime(String runtime) {
         this.runtime = runtime;
     }
@@ -98,6 +151,185 @@ public class FeatureListGraph {
         return this.runtime;
     }
 
+    /**
+     * Converts the graph to its compact form and builds the reachability index used by getAllEnabledBy
+     * and isEnabledBy. This should be called once after all the features and config elements have been
+     * added to the graph. If it is not called, it happens on the first query. No nodes can be added after.
+     */
+    public void compact() {
+        getCompactGraph();
+    }
+
+    private CompactGraph getCompactGraph() {
+        CompactGraph graph = compactGraph;
+        if (graph != null) {
+            return graph;
+        }
+        synchronized (this) {
+            if (compactGraph == null) {
+                compactGraph = new CompactGraph(featureNodes, configElementNodes, nodes);
+                featureNodes = null;
+                configElementNodes = null;
+                nodes = null;
+            }
+            return compactGraph;
+        }
+    }
+
+    private void checkNotCompacted() {
+        if (compactGraph != null) {
+            throw new IllegalStateException("Nodes cannot be added to a compacted feature list graph");
+        }
+    }
+
+    /**
+     * Writes the compact form of the graph. The snapshot holds a string table, followed by the feature
+     * and config element records as indexes into the string table, followed by the adjacency lists.
+     * @param out
+     * @throws IOException
+     */
+    public void writeSnapshot(DataOutput out) throws IOException {
+        CompactGraph graph = getCompactGraph();
+        Map<String, Integer> stringIds = new HashMap<String, Integer>();
+        List<String> strings = new ArrayList<String>();
+        int[] featureNameIds = toStringIds(graph.featureNames, stringIds, strings);
+        int[] featureDescriptionIds = toStringIds(graph.featureDescriptions, stringIds, strings);
+        int[] configElementNameIds = toStringIds(graph.configElementNames, stringIds, strings);
+
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_FORMAT_VERSION);
+        out.writeUTF(runtime);
+        out.writeInt(strings.size());
+        for (String string : strings) {
+            out.writeUTF(string);
+        }
+        writeInts(out, featureNameIds);
+        writeInts(out, featureDescriptionIds);
+        writeInts(out, configElementNameIds);
+        long[] versionless = graph.versionlessFeatures.toLongArray();
+        out.writeInt(versionless.length);
+        for (long word : versionless) {
+            out.writeLong(word);
+        }
+        writeInts(out, graph.featureResolvesToConfigElement);
+        graph.featureEnabledBy.write(out);
+        graph.configElementEnabledBy.write(out);
+        graph.enablesFeatures.write(out);
+        graph.enablesConfigElements.write(out);
+    }
+
+    /**
+     * Reads a graph written by writeSnapshot. The reachability index is rebuilt from the adjacency lists.
+     * @param in
+     * @return the compacted graph
+     * @throws IOException if the input is not a snapshot in the current format
+     */
+    public static FeatureListGraph readSnapshot(DataInput in) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("Not a feature list snapshot");
+        }
+        int formatVersion = in.readInt();
+        if (formatVersion != SNAPSHOT_FORMAT_VERSION) {
+            throw new IOException("Unsupported feature list snapshot format version " + formatVersion);
+        }
+        String runtime = in.readUTF();
+        String[] strings = new String[in.readInt()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = in.readUTF();
+        }
+        String[] featureNames = fromStringIds(readInts(in), strings);
+        String[] featureDescriptions = fromStringIds(readInts(in), strings);
+        String[] configElementNames = fromStringIds(readInts(in), strings);
+        long[] versionless = new long[in.readInt()];
+        for (int i = 0; i < versionless.length; i++) {
+            versionless[i] = in.readLong();
+        }
+        int[] featureResolvesToConfigElement = readInts(in);
+        AdjacencyList featureEnabledBy = AdjacencyList.read(in);
+        AdjacencyList configElementEnabledBy = AdjacencyList.read(in);
+        AdjacencyList enablesFeatures = AdjacencyList.read(in);
+        AdjacencyList enablesConfigElements = AdjacencyList.read(in);
+        return new FeatureListGraph(runtime, new CompactGraph(featureNames, featureDescriptions, BitSet.valueOf(versionless), configElementNames,
+                featureResolvesToConfigElement, featureEnabledBy, configElementEnabledBy, enablesFeatures, enablesConfigElements));
+    }
+
+    private static int[] toStringIds(String[] values, Map<String, Integer> stringIds, List<String> strings) {
+        int[] result = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            // null values, such as features without a description, are stored as -1
+            result[i] = values[i] == null ? -1 : stringIds.computeIfAbsent(values[i], value -> {
+                strings.add(value);
+                return strings.size() - 1;
+            });
+        }
+        return result;
+    }
+
+    private static String[] fromStringIds(int[] ids, String[] strings) {
+        String[] result = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            result[i] = ids[i] < 0 ? null : strings[ids[i]];
+        }
+        return result;
+    }
+
+    private static void writeInts(DataOutput out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static int[] readInts(DataInput in) throws IOException {
+        int[] values = new int[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    private static int[] toIds(Set<String> names, Map<String, Integer> ids) {
+        int[] result = new int[names.size()];
+        int i = 0;
+        for (String name : names) {
+            Integer id = ids.get(name);
+            if (id != null) {
+                result[i++] = id;
+            }
+        }
+        return i == result.length ? result : Arrays.copyOf(result, i);
+    }
+
+    /**
+     * Returns the ids of the given features, for use with isEnabledBy. The feature names are matched
+     * ignoring case, and a versionless name such as 'servlet' matches every version of the feature.
+     * Unknown feature names are ignored.
+     * @param features
+     * @return
+     */
+    public BitSet getFeatureSet(Collection<String> features) {
+        CompactGraph graph = getCompactGraph();
+        BitSet featureSet = new BitSet(graph.featureNames.length);
+        for (String feature : features) {
+            BitSet ids = graph.featureIdsLowerCase.get(feature.toLowerCase());
+            if (ids != null) {
+                featureSet.or(ids);
+            }
+        }
+        return featureSet;
+    }
+
+    /**
+     * Returns true if any feature in the feature set directly or transitively enables the given config element or feature.
+     * @param elementName
+     * @param featureSet feature ids returned by getFeatureSet
+     * @return
+     */
+    public boolean isEnabledBy(String elementName, BitSet featureSet) {
+        BitSet row = getCompactGraph().getEnabledByRow(elementName);
+        return row != null && row.intersects(featureSet);
+    }
+
     /**
      * Returns a superset of 'owning' features that enable a given config element or feature.
      * The features are returned in lower case to make the diagnostic code easier.
@@ -107,59 +339,259 @@ public class FeatureListGraph {
     public Set<String> getAllEnabledBy(String elementName) {
         return getAllEnabledBy(elementName, true);
     }
-            
+
     /**
      * Returns a superset of 'owning' features that enable a given config element or feature.
      * The features are returned in lower case if the 'lowerCase' boolean is true. Otherwise,
-     * the features are returned in their original case.
+     * the features are returned in their original case. The returned set is shared and unmodifiable.
      * @param elementName
      * @return
      */
     public Set<String> getAllEnabledBy(String elementName, boolean lowerCase) {
+        CompactGraph graph = getCompactGraph();
+        Map<String, Set<String>> enabledByCache = lowerCase ? graph.enabledByCacheLowerCase : graph.enabledByCache;
+        // no mapping is added for unknown elements, since computeIfAbsent does not store null
+        return enabledByCache.computeIfAbsent(elementName, name -> {
+            BitSet row = graph.getEnabledByRow(name);
+            if (row == null) {
+                return null;
+            }
+            Set<String> allEnabledBy = new HashSet<String>();
+            for (int id = row.nextSetBit(0); id >= 0; id = row.nextSetBit(id + 1)) {
+                allEnabledBy.add(lowerCase ? graph.featureNames[id].toLowerCase() : graph.featureNames[id]);
+            }
+            return Collections.unmodifiableSet(allEnabledBy);
+        });
+    }
 
-        if (lowerCase && enabledByCacheLowerCase.containsKey(elementName)) {
-            return enabledByCacheLowerCase.get(elementName);
+    /**
+     * Immutable compact form of the graph. Features and config elements each have their own integer id space.
+     * Only the enabledBy caches change after construction, and they are concurrent maps.
+     */
+    private static final class CompactGraph {
+        private final String[] featureNames;
+        private final String[] featureDescriptions;
+        private final BitSet versionlessFeatures;
+        private final String[] configElementNames;
+        private final Map<String, Integer> featureIds;
+        private final Map<String, Integer> configElementIds;
+        // For a feature with the same name as a config element (such as mpMetrics), the id of the config element
+        // if that is the node the name resolves to, otherwise -1. See addFeature(String, String).
+        private final int[] featureResolvesToConfigElement;
+        private final AdjacencyList featureEnabledBy;         // feature id -> feature ids
+        private final AdjacencyList configElementEnabledBy;   // config element id -> feature ids
+        private final AdjacencyList enablesFeatures;          // feature id -> feature ids
+        private final AdjacencyList enablesConfigElements;    // feature id -> config element ids
+
+        // Reachability index. Each row holds the ids of all the features that directly or transitively enable a node.
+        private final BitSet[] featureEnabledByRows;
+        private final BitSet[] configElementEnabledByRows;
+        private final Map<String, BitSet> featureIdsLowerCase; // lower case feature name or versionless name -> matching feature ids
+
+        private final Map<String, Set<String>> enabledByCache = new ConcurrentHashMap<String, Set<String>>();
+        private final Map<String, Set<String>> enabledByCacheLowerCase = new ConcurrentHashMap<String, Set<String>>(); // storing in lower case to enable diagnostics with configured features
+
+        CompactGraph(Map<String, FeatureListNode> featureNodes, Map<String, ConfigElementNode> configElementNodes, Map<String, Node> nodes) {
+            featureNames = featureNodes.keySet().toArray(new String[0]);
+            configElementNames = configElementNodes.keySet().toArray(new String[0]);
+            featureIds = createIds(featureNames);
+            configElementIds = createIds(configElementNames);
+
+            featureDescriptions = new String[featureNames.length];
+            versionlessFeatures = new BitSet(featureNames.length);
+            featureResolvesToConfigElement = new int[featureNames.length];
+            int[][] featureEnabledByIds = new int[featureNames.length][];
+            int[][] enablesFeaturesIds = new int[featureNames.length][];
+            int[][] enablesConfigElementsIds = new int[featureNames.length][];
+            for (int id = 0; id < featureNames.length; id++) {
+                FeatureListNode node = featureNodes.get(featureNames[id]);
+                featureDescriptions[id] = node.description;
+                versionlessFeatures.set(id, node.isVersionless());
+                featureResolvesToConfigElement[id] = nodes.get(featureNames[id]) == node ? -1 : configElementIds.get(featureNames[id]);
+                featureEnabledByIds[id] = toIds(node.getEnabledBy(), featureIds);
+                enablesFeaturesIds[id] = toIds(node.getEnablesFeatures(), featureIds);
+                enablesConfigElementsIds[id] = toIds(node.getEnablesConfigElements(), configElementIds);
+            }
+            int[][] configElementEnabledByIds = new int[configElementNames.length][];
+            for (int id = 0; id < configElementNames.length; id++) {
+                configElementEnabledByIds[id] = toIds(configElementNodes.get(configElementNames[id]).getEnabledBy(), featureIds);
+            }
+            featureEnabledBy = new AdjacencyList(featureEnabledByIds);
+            enablesFeatures = new AdjacencyList(enablesFeaturesIds);
+            enablesConfigElements = new AdjacencyList(enablesConfigElementsIds);
+            configElementEnabledBy = new AdjacencyList(configElementEnabledByIds);
+
+            featureEnabledByRows = new BitSet[featureNames.length];
+            configElementEnabledByRows = new BitSet[configElementNames.length];
+            featureIdsLowerCase = new HashMap<String, BitSet>();
+            buildEnabledByIndex();
         }
 
-        if (enabledByCache.containsKey(elementName)) {
-            return enabledByCache.get(elementName);
+        CompactGraph(String[] featureNames, String[] featureDescriptions, BitSet versionlessFeatures, String[] configElementNames,
+                int[] featureResolvesToConfigElement, AdjacencyList featureEnabledBy, AdjacencyList configElementEnabledBy,
+                AdjacencyList enablesFeatures, AdjacencyList enablesConfigElements) {
+            this.featureNames = featureNames;
+            this.featureDescriptions = featureDescriptions;
+            this.versionlessFeatures = versionlessFeatures;
+            this.configElementNames = configElementNames;
+            this.featureIds = createIds(featureNames);
+            this.configElementIds = createIds(configElementNames);
+            this.featureResolvesToConfigElement = featureResolvesToConfigElement;
+            this.featureEnabledBy = featureEnabledBy;
+            this.configElementEnabledBy = configElementEnabledBy;
+            this.enablesFeatures = enablesFeatures;
+            this.enablesConfigElements = enablesConfigElements;
+
+            featureEnabledByRows = new BitSet[featureNames.length];
+            configElementEnabledByRows = new BitSet[configElementNames.length];
+            featureIdsLowerCase = new HashMap<String, BitSet>();
+            buildEnabledByIndex();
         }
 
-        if (!nodes.containsKey(elementName)) {
-            return null;
+        private static Map<String, Integer> createIds(String[] names) {
+            Map<String, Integer> ids = new HashMap<String, Integer>();
+            for (int id = 0; id < names.length; id++) {
+                ids.put(names[id], id);
+            }
+            return ids;
         }
 
-        // Implements a breadth-first-search on parent nodes
-        Set<String> allEnabledBy = new HashSet<String>(nodes.get(elementName).getEnabledBy());;
-        Deque<String> queue = new ArrayDeque<String>(allEnabledBy);
-        Set<String> visited = new HashSet<String>();
-        while (!queue.isEmpty()) {
-            String node = queue.getFirst();
-            queue.removeFirst();
-            if (visited.contains(node)) {
-                continue;
+        private void buildEnabledByIndex() {
+            for (int id = 0; id < featureNames.length; id++) {
+                String featureNameLower = featureNames[id].toLowerCase();
+                featureIdsLowerCase.computeIfAbsent(featureNameLower, k -> new BitSet()).set(id);
+                if (featureNameLower.contains("-")) {
+                    String featureNameNoVersionLower = featureNameLower.substring(0, featureNameLower.lastIndexOf("-"));
+                    featureIdsLowerCase.computeIfAbsent(featureNameNoVersionLower, k -> new BitSet()).set(id);
+                }
+            }
+            // Rows are computed features first so that config element rows can reuse them. A feature
+            // whose name resolves to a config element uses the row of that config element.
+            for (int id = 0; id < featureNames.length; id++) {
+                if (featureResolvesToConfigElement[id] < 0) {
+                    featureEnabledByRows[id] = computeEnabledBy(featureEnabledBy, id);
+                }
+            }
+            for (int id = 0; id < configElementNames.length; id++) {
+                configElementEnabledByRows[id] = computeEnabledBy(configElementEnabledBy, id);
             }
-            Set<String> enablers = nodes.get(node).getEnabledBy();
-            visited.add(node);
-            allEnabledBy.addAll(enablers);
-            queue.addAll(enablers);
         }
-        return addToEnabledByCache(elementName, allEnabledBy, lowerCase);
+
+        /**
+         * Breadth-first search on parent nodes. The search stops at any parent whose row has already been
+         * computed, since that row already contains all of the parent's enablers.
+         */
+        private BitSet computeEnabledBy(AdjacencyList enabledBy, int id) {
+            BitSet row = new BitSet(featureNames.length);
+            Deque<Integer> queue = new ArrayDeque<Integer>();
+            enabledBy.addTargets(id, queue);
+            while (!queue.isEmpty()) {
+                int parent = queue.removeFirst();
+                if (row.get(parent)) {
+                    continue;
+                }
+                row.set(parent);
+                int parentConfigElement = featureResolvesToConfigElement[parent];
+                BitSet parentRow = parentConfigElement < 0 ? featureEnabledByRows[parent] : configElementEnabledByRows[parentConfigElement];
+                if (parentRow != null) {
+                    row.or(parentRow);
+                } else if (parentConfigElement < 0) {
+                    featureEnabledBy.addTargets(parent, queue);
+                } else {
+                    configElementEnabledBy.addTargets(parentConfigElement, queue);
+                }
+            }
+            return row;
+        }
+
+        /**
+         * Returns the reachability row of the node with the given name, or null if there is no such node.
+         */
+        private BitSet getEnabledByRow(String elementName) {
+            Integer featureId = featureIds.get(elementName);
+            if (featureId != null && featureResolvesToConfigElement[featureId] < 0) {
+                return featureEnabledByRows[featureId];
+            }
+            Integer configElementId = configElementIds.get(elementName);
+            return configElementId == null ? null : configElementEnabledByRows[configElementId];
+        }
+
+        private FeatureListNode createFeatureListNode(int id) {
+            FeatureListNode node = new FeatureListNode(featureNames[id], featureDescriptions[id]);
+            node.setIsVersionless(versionlessFeatures.get(id));
+            for (int i = featureEnabledBy.start(id); i < featureEnabledBy.end(id); i++) {
+                node.addEnabledBy(featureNames[featureEnabledBy.target(i)]);
+            }
+            for (int i = enablesFeatures.start(id); i < enablesFeatures.end(id); i++) {
+                node.addEnablesFeature(featureNames[enablesFeatures.target(i)]);
+            }
+            for (int i = enablesConfigElements.start(id); i < enablesConfigElements.end(id); i++) {
+                node.addEnablesConfigElement(configElementNames[enablesConfigElements.target(i)]);
+            }
+            return node;
+        }
+
+        private ConfigElementNode createConfigElementNode(int id) {
+            ConfigElementNode node = new ConfigElementNode(configElementNames[id]);
+            for (int i = configElementEnabledBy.start(id); i < configElementEnabledBy.end(id); i++) {
+                node.addEnabledBy(featureNames[configElementEnabledBy.target(i)]);
+            }
+            return node;
+        }
     }
 
-    private Set<String> addToEnabledByCache(String configElement, Set<String> allEnabledBy, boolean lowerCase) {
-        Set<String> lowercaseEnabledBy = new HashSet<String>();
-        Set<String> originalcaseEnabledBy = new HashSet<String>();
-        originalcaseEnabledBy.addAll(allEnabledBy);
+    /**
+     * Adjacency lists for a range of ids in compressed sparse row form. The targets of id i are
+     * stored in targets[offsets[i]] up to (but not including) targets[offsets[i + 1]].
+     */
+    private static final class AdjacencyList {
+        private final int[] offsets;
+        private final int[] targets;
+
+        private AdjacencyList(int[] offsets, int[] targets) {
+            this.offsets = offsets;
+            this.targets = targets;
+        }
+
+        AdjacencyList(int[][] lists) {
+            offsets = new int[lists.length + 1];
+            for (int i = 0; i < lists.length; i++) {
+                offsets[i + 1] = offsets[i] + lists[i].length;
+            }
+            targets = new int[offsets[lists.length]];
+            for (int i = 0; i < lists.length; i++) {
+                System.arraycopy(lists[i], 0, targets, offsets[i], lists[i].length);
+            }
+        }
+
+        int start(int id) {
+            return offsets[id];
+        }
 
-        for (String nextFeature: allEnabledBy) {
-            lowercaseEnabledBy.add(nextFeature.toLowerCase());
+        int end(int id) {
+            return offsets[id + 1];
         }
 
-        enabledByCacheLowerCase.put(configElement, lowercaseEnabledBy);
-        enabledByCache.put(configElement, originalcaseEnabledBy);
+        int target(int index) {
+            return targets[index];
+        }
 
-        return lowerCase ? lowercaseEnabledBy : originalcaseEnabledBy;
+        void addTargets(int id, Deque<Integer> queue) {
+            for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+                queue.add(targets[i]);
+            }
+        }
+
+        void write(DataOutput out) throws IOException {
+            writeInts(out, offsets);
+            writeInts(out, targets);
+        }
+
+        static AdjacencyList read(DataInput in) throws IOException {
+            int[] offsets = readInts(in);
+            int[] targets = readInts(in);
+            return new AdjacencyList(offsets, targets);
+        }
     }
-   
-}
\ No newline at end of file
+
+}
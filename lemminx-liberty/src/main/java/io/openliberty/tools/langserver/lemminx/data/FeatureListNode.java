@@ -35,7 +35,7 @@ public class FeatureListNode extends Node {
     }
 
     public void setIsVersionless(boolean isVersionless) {
-        this.isVersionless = true;
+        this.isVersionless = isVersionless;
     }
 
     public boolean isVersionless() {
@@ -0,0 +1,54 @@
+/*******************************************************************************
+* Copyright (c) 2025 IBM Corporation and others.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License v. 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*     IBM Corporation - initial API and implementation
+*******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.data;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The parts of a server config file on disk that the configuration of the server depends on: the features
+ * of its featureManager elements, the locations of its include elements and the variables it declares.
+ */
+public class ServerConfigFile {
+
+    public static final ServerConfigFile EMPTY = new ServerConfigFile(Collections.emptySet(), Collections.emptyList(), Collections.emptyMap());
+
+    private final Set<String> features;
+    private final List<String> includeLocations;
+    private final Map<String, String> variables;
+
+    /**
+     * @param features lower case feature names
+     * @param includeLocations location attributes of the include elements, in document order
+     * @param variables declared variables, a value overrides a default value
+     */
+    public ServerConfigFile(Set<String> features, List<String> includeLocations, Map<String, String> variables) {
+        this.features = Collections.unmodifiableSet(features);
+        this.includeLocations = Collections.unmodifiableList(includeLocations);
+        this.variables = Collections.unmodifiableMap(variables);
+    }
+
+    public Set<String> getFeatures() {
+        return features;
+    }
+
+    public List<String> getIncludeLocations() {
+        return includeLocations;
+    }
+
+    public Map<String, String> getVariables() {
+        return variables;
+    }
+}
@@ -0,0 +1,132 @@
+/*******************************************************************************
+* Copyright (c) 2025 IBM Corporation and others.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License v. 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*     IBM Corporation - initial API and implementation
+*******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.data;
+
+import java.util.Arrays;
+
+import io.openliberty.tools.langserver.lemminx.util.VariableScanner;
+
+/**
+ * Offsets of the ${name} variable references in one version of a document's text.
+ *
+ * The next version is found by comparing the texts from both ends. The references in the unchanged lines
+ * before and after the edit are kept, the ones after it moved by the change in length, and only the changed
+ * lines are scanned again.
+ */
+public class VariableUsages {
+
+    private final String text;
+    // start and end offset of each name, in pairs
+    private final int[] nameOffsets;
+
+    private VariableUsages(String text, int[] nameOffsets) {
+        this.text = text;
+        this.nameOffsets = nameOffsets;
+    }
+
+    /**
+     * Scans the whole text.
+     * @param text
+     * @return
+     */
+    public static VariableUsages scan(String text) {
+        OffsetList offsets = new OffsetList(16);
+        VariableScanner.scan(text, 0, text.length(), offsets::add);
+        return new VariableUsages(text, offsets.toArray());
+    }
+
+    /**
+     * Returns the references in a new version of the text, scanning only the lines that changed.
+     * @param newText
+     * @return
+     */
+    public VariableUsages update(String newText) {
+        int oldLength = text.length();
+        int newLength = newText.length();
+        int commonLength = Math.min(oldLength, newLength);
+        int prefix = 0;
+        while (prefix < commonLength && text.charAt(prefix) == newText.charAt(prefix)) {
+            prefix++;
+        }
+        if (prefix == oldLength && prefix == newLength) {
+            return new VariableUsages(newText, nameOffsets);
+        }
+        int suffix = 0;
+        while (suffix < commonLength - prefix && text.charAt(oldLength - 1 - suffix) == newText.charAt(newLength - 1 - suffix)) {
+            suffix++;
+        }
+        int delta = newLength - oldLength;
+        // the changed lines, the text before regionStart and after regionEnd is the same in both versions
+        int regionStart = VariableScanner.lineStart(newText, prefix);
+        int regionEnd = VariableScanner.lineEnd(newText, newLength - suffix);
+        int oldRegionEnd = regionEnd - delta;
+
+        OffsetList offsets = new OffsetList(nameOffsets.length + 16);
+        int i = 0;
+        for (; i < nameOffsets.length && nameOffsets[i + 1] < regionStart; i += 2) {
+            offsets.add(nameOffsets[i], nameOffsets[i + 1]);
+        }
+        VariableScanner.scan(newText, regionStart, regionEnd, offsets::add);
+        for (; i < nameOffsets.length; i += 2) {
+            if (nameOffsets[i] - 2 >= oldRegionEnd) {
+                offsets.add(nameOffsets[i] + delta, nameOffsets[i + 1] + delta);
+            }
+        }
+        return new VariableUsages(newText, offsets.toArray());
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int size() {
+        return nameOffsets.length / 2;
+    }
+
+    public boolean isEmpty() {
+        return nameOffsets.length == 0;
+    }
+
+    public int getNameStart(int index) {
+        return nameOffsets[2 * index];
+    }
+
+    public int getNameEnd(int index) {
+        return nameOffsets[2 * index + 1];
+    }
+
+    public String getName(int index) {
+        return text.substring(getNameStart(index), getNameEnd(index));
+    }
+
+    private static class OffsetList {
+        private int[] offsets;
+        private int size;
+
+        private OffsetList(int capacity) {
+            offsets = new int[capacity];
+        }
+
+        private void add(int nameStart, int nameEnd) {
+            if (size + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, Math.max(16, offsets.length * 2));
+            }
+            offsets[size++] = nameStart;
+            offsets[size++] = nameEnd;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(offsets, size);
+        }
+    }
+}
@@ -13,18 +13,29 @@
 package io.openliberty.tools.langserver.lemminx.models.feature;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 import io.openliberty.tools.langserver.lemminx.util.LibertyConstants;
+import io.openliberty.tools.langserver.lemminx.util.NameSearchIndex;
 
+/**
+ * Public and private features of a Liberty runtime, plus the platforms the private features provide.
+ *
+ * Lookups by feature or platform name use an index of the public features that is built when the features are
+ * loaded and rebuilt by addFeaturesAndPlatforms. The feature lists should not be modified in any other way.
+ */
 public class FeaturesAndPlatforms {
     private List<Feature> publicFeatures;
     private List<Feature> privateFeatures;
     private Set<String> platforms;
+    private volatile FeatureIndex featureIndex;
     
     public FeaturesAndPlatforms(List<Feature> publicFeatures, List<Feature> privateFeatures) {
         this.publicFeatures = publicFeatures;
@@ -38,18 +49,21 @@ public class FeaturesAndPlatforms {
                 .map(WlpInformation::getPlatforms)
                 .filter(Objects::nonNull)
                 .flatMap(List::stream).collect(Collectors.toSet());
+        this.featureIndex = new FeatureIndex(this.publicFeatures, this.platforms);
     }
 
     public FeaturesAndPlatforms() {
         this.publicFeatures = new ArrayList<>();
         this.privateFeatures = new ArrayList<>();
         this.platforms = new HashSet<>();
+        this.featureIndex = new FeatureIndex(this.publicFeatures, this.platforms);
     }
 
     public void addFeaturesAndPlatforms(FeaturesAndPlatforms fp) {
         this.publicFeatures.addAll(fp.getPublicFeatures());
         this.privateFeatures.addAll(fp.getPrivateFeatures());
         this.platforms.addAll(fp.getPlatforms());
+        this.featureIndex = new FeatureIndex(this.publicFeatures, this.platforms);
     }
 
     public List<Feature> getPublicFeatures() {
@@ -63,4 +77,96 @@ public class FeaturesAndPlatforms {
     public Set<String> getPlatforms() {
         return this.platforms;
     }
+
+    /**
+     * Returns the public feature with the given short name, ignoring case, or null if there is none.
+     * @param featureName feature short name, such as servlet-6.0
+     * @return
+     */
+    public Feature getFeature(String featureName) {
+        return getFeatureIndex().featuresByShortName.get(featureName.toLowerCase());
+    }
+
+    /**
+     * Returns the public features whose short name contains the given text, ignoring case, in the order of getPublicFeatures.
+     * @param text
+     * @return
+     */
+    public List<Feature> findFeatures(String text) {
+        FeatureIndex index = getFeatureIndex();
+        int[] ids = index.shortNameSearch.search(text);
+        List<Feature> features = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            features.add(index.features[id]);
+        }
+        return features;
+    }
+
+    /**
+     * Returns the available platforms that contain the given text, ignoring case, in alphabetical order.
+     * @param text
+     * @return
+     */
+    public List<String> findPlatforms(String text) {
+        FeatureIndex index = getFeatureIndex();
+        int[] ids = index.platformSearch.search(text);
+        List<String> platformNames = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            platformNames.add(index.platformNames.get(id));
+        }
+        return platformNames;
+    }
+
+    /**
+     * @return the lower case short names of the public features, in the same order as getPublicFeatures
+     */
+    public List<String> getFeatureShortNamesLowerCase() {
+        return getFeatureIndex().shortNamesLowerCase;
+    }
+
+    /**
+     * @return true if the platform is one of the available platforms, ignoring case
+     */
+    public boolean platformExists(String platformName) {
+        return getFeatureIndex().platformsLowerCase.contains(platformName.toLowerCase());
+    }
+
+    private FeatureIndex getFeatureIndex() {
+        return featureIndex;
+    }
+
+    // Immutable lookup tables over the public features, keyed by lower case names.
+    private static final class FeatureIndex {
+        private final Feature[] features;
+        private final List<String> shortNamesLowerCase;
+        private final NameSearchIndex shortNameSearch;
+        private final List<String> platformNames;
+        private final NameSearchIndex platformSearch;
+        private final Map<String, Feature> featuresByShortName = new HashMap<>();
+        private final Set<String> platformsLowerCase = new HashSet<>();
+
+        FeatureIndex(List<Feature> publicFeatures, Set<String> platforms) {
+            features = publicFeatures.toArray(new Feature[0]);
+            List<String> shortNames = new ArrayList<>(publicFeatures.size());
+            for (Feature feature : publicFeatures) {
+                WlpInformation wlpInformation = feature.getWlpInformation();
+                String shortName = wlpInformation == null || wlpInformation.getShortName() == null ? null : wlpInformation.getShortName().toLowerCase();
+                shortNames.add(shortName);
+                if (shortName == null) {
+                    continue;
+                }
+                // keep the first feature with a name, like a search of the list would
+                featuresByShortName.putIfAbsent(shortName, feature);
+            }
+            shortNamesLowerCase = Collections.unmodifiableList(shortNames);
+            shortNameSearch = new NameSearchIndex(shortNamesLowerCase);
+            for (String platform : platforms) {
+                platformsLowerCase.add(platform.toLowerCase());
+            }
+            List<String> sortedPlatforms = new ArrayList<>(platforms);
+            Collections.sort(sortedPlatforms);
+            platformNames = Collections.unmodifiableList(sortedPlatforms);
+            platformSearch = new NameSearchIndex(platformNames);
+        }
+    }
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
-* Copyright (c) 2020, 2022 IBM Corporation and others.
+* Copyright (c) 2020, 2025 IBM Corporation and others.
 *
 * This program and the accompanying materials are made available under the
 * terms of the Eclipse Public License v. 2.0 which is available at
@@ -21,6 +21,7 @@ public class LibertySettings {
     private String version;
     private String runtime;
     private int requestDelay; // in seconds
+    private int fileWatchDelay; // in milliseconds
 
     public String getVersion() {
         return version;
@@ -46,4 +47,12 @@ public class LibertySettings {
         this.requestDelay = requestDelay;
     }
 
+    public int getFileWatchDelay() {
+        return fileWatchDelay;
+    }
+
+    public void setFileWatchDelay(int fileWatchDelay) {
+        this.fileWatchDelay = fileWatchDelay;
+    }
+
 }
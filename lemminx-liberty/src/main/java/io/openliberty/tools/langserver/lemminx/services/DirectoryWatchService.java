@@ -0,0 +1,215 @@
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.services;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Logger;
+
+/**
+ * Watches directories for all workspaces with one WatchService and one thread. Each directory is registered
+ * by an owner, such as a LibertyWorkspace, and the events for the directory are passed to the listeners of
+ * every owner that registered it. Removing an owner stops watching the directories that no one else needs.
+ */
+public class DirectoryWatchService {
+
+    private static final Logger LOGGER = Logger.getLogger(DirectoryWatchService.class.getName());
+
+    private static final DirectoryWatchService INSTANCE = new DirectoryWatchService();
+
+    public static DirectoryWatchService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Receives the events for a watched directory on the watch thread, so it should not block.
+     */
+    public interface DirectoryListener {
+        /**
+         * @param dir watched directory
+         * @param events create, delete and modify events, with paths relative to dir
+         */
+        void onEvents(Path dir, List<WatchEvent<?>> events);
+
+        /**
+         * Called when the directory can no longer be watched, usually because it was deleted.
+         * The directory is no longer registered for any owner afterwards.
+         * @param dir watched directory
+         */
+        default void onDirectoryInvalid(Path dir) {
+        }
+    }
+
+    private static class Registration {
+        private final Object owner;
+        private final DirectoryListener listener;
+
+        private Registration(Object owner, DirectoryListener listener) {
+            this.owner = owner;
+            this.listener = listener;
+        }
+    }
+
+    private static class WatchedDirectory {
+        private final Path dir;
+        private final WatchKey key;
+        private final List<Registration> registrations = new CopyOnWriteArrayList<Registration>();
+
+        private WatchedDirectory(Path dir, WatchKey key) {
+            this.dir = dir;
+            this.key = key;
+        }
+    }
+
+    private final Map<WatchKey, WatchedDirectory> watchedDirectories = new ConcurrentHashMap<WatchKey, WatchedDirectory>();
+
+    private WatchService watcher;
+    private Thread watchThread;
+
+    private DirectoryWatchService() {
+    }
+
+    /**
+     * Starts watching a directory for an owner. The same owner can register several directories, and several
+     * owners can register the same directory.
+     *
+     * @param dir directory to watch, events in its subdirectories are not reported
+     * @param owner object the registration belongs to, used to unregister it
+     * @param listener receives the events for the directory
+     * @throws IOException if the directory cannot be watched
+     */
+    public synchronized void register(Path dir, Object owner, DirectoryListener listener) throws IOException {
+        if (watcher == null) {
+            watcher = FileSystems.getDefault().newWatchService();
+            WatchService startedWatcher = watcher;
+            watchThread = new Thread(() -> processEvents(startedWatcher), "liberty-ls-file-watch");
+            watchThread.setDaemon(true);
+            watchThread.start();
+        }
+        // registering a directory again returns the same key, so always register all kinds and let the listeners filter them
+        WatchKey key = dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        watchedDirectories.computeIfAbsent(key, k -> new WatchedDirectory(dir, k)).registrations.add(new Registration(owner, listener));
+    }
+
+    /**
+     * Stops watching the directories registered by an owner, unless another owner also registered them.
+     * @param owner
+     */
+    public synchronized void unregister(Object owner) {
+        for (WatchedDirectory watchedDirectory : new ArrayList<WatchedDirectory>(watchedDirectories.values())) {
+            removeRegistrations(watchedDirectory, owner);
+        }
+    }
+
+    /**
+     * Stops watching one directory registered by an owner, unless another owner also registered it.
+     * @param dir
+     * @param owner
+     */
+    public synchronized void unregister(Path dir, Object owner) {
+        for (WatchedDirectory watchedDirectory : new ArrayList<WatchedDirectory>(watchedDirectories.values())) {
+            if (watchedDirectory.dir.equals(dir)) {
+                removeRegistrations(watchedDirectory, owner);
+            }
+        }
+    }
+
+    private void removeRegistrations(WatchedDirectory watchedDirectory, Object owner) {
+        watchedDirectory.registrations.removeIf(registration -> registration.owner == owner);
+        if (watchedDirectory.registrations.isEmpty()) {
+            watchedDirectory.key.cancel();
+            watchedDirectories.remove(watchedDirectory.key);
+        }
+    }
+
+    /**
+     * @param owner
+     * @return the directories registered by an owner that are still watched
+     */
+    public List<Path> getWatchedDirectories(Object owner) {
+        List<Path> dirs = new ArrayList<Path>();
+        for (WatchedDirectory watchedDirectory : watchedDirectories.values()) {
+            if (watchedDirectory.registrations.stream().anyMatch(registration -> registration.owner == owner)) {
+                dirs.add(watchedDirectory.dir);
+            }
+        }
+        return dirs;
+    }
+
+    /**
+     * Stops watching all directories and stops the watch thread. Registering a directory afterwards starts a new one.
+     */
+    public synchronized void close() {
+        watchedDirectories.clear();
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException e) {
+                LOGGER.warning("Unable to close file watch service: " + e.getMessage());
+            }
+            watcher = null;
+            watchThread = null;
+        }
+    }
+
+    private void processEvents(WatchService watcher) {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                List<WatchEvent<?>> events = key.pollEvents();
+                // reset before dispatching, so that events that happen while the listeners run are not lost
+                boolean valid = key.reset();
+                WatchedDirectory watchedDirectory = watchedDirectories.get(key);
+                if (watchedDirectory == null) {
+                    continue;
+                }
+                if (!events.isEmpty()) {
+                    for (Registration registration : watchedDirectory.registrations) {
+                        try {
+                            registration.listener.onEvents(watchedDirectory.dir, events);
+                        } catch (RuntimeException e) {
+                            LOGGER.warning("Error while processing file changes in " + watchedDirectory.dir + ": " + e.getMessage());
+                        }
+                    }
+                }
+                if (!valid) {
+                    watchedDirectories.remove(key);
+                    for (Registration registration : watchedDirectory.registrations) {
+                        try {
+                            registration.listener.onDirectoryInvalid(watchedDirectory.dir);
+                        } catch (RuntimeException e) {
+                            LOGGER.warning("Error while processing removal of " + watchedDirectory.dir + ": " + e.getMessage());
+                        }
+                    }
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            // close() was called
+        } catch (InterruptedException e) {
+            LOGGER.warning("File watch thread was interrupted: " + e.getMessage());
+            Thread.currentThread().interrupt();
+        }
+    }
+}
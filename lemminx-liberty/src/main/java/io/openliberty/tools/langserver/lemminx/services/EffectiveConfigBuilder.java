@@ -0,0 +1,253 @@
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.services;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import javax.xml.stream.XMLStreamException;
+
+import io.openliberty.tools.langserver.lemminx.data.ServerConfigFile;
+import io.openliberty.tools.langserver.lemminx.services.IncludeGraph.IncludedLocation;
+import io.openliberty.tools.langserver.lemminx.util.LibertyConstants;
+import io.openliberty.tools.langserver.lemminx.util.XmlReader;
+
+/**
+ * Builds the effective configuration of a server config document in one workspace: the features and variables
+ * that the rest of the server configuration adds to the document. These come from the files the document
+ * includes, directly or through other included files and directories, from configDropins/defaults and
+ * configDropins/overrides next to a server.xml, and from the files that include the document.
+ *
+ * Config files on disk are parsed lazily, the first time a configuration that depends on them is built, and kept
+ * until the resolution of their location in the IncludeGraph of the workspace changes, so after a file is created,
+ * changed or deleted only that file is parsed again. Every include location found on the way is recorded in the
+ * IncludeGraph, so a change anywhere in the include tree validates the open documents that depend on it again.
+ * Files are read from disk, so unsaved changes to another open document are seen once it is saved.
+ */
+public class EffectiveConfigBuilder {
+
+    private static final Logger LOGGER = Logger.getLogger(EffectiveConfigBuilder.class.getName());
+
+    // configDropins directories next to a server.xml, in the order they are applied
+    private static final String DEFAULTS_DROPINS_LOCATION = "configDropins/defaults/";
+    private static final String OVERRIDES_DROPINS_LOCATION = "configDropins/overrides/";
+
+    /**
+     * Features and variables that the rest of the server configuration adds to a document.
+     */
+    public static final class EffectiveConfig {
+        public static final EffectiveConfig EMPTY = new EffectiveConfig(Collections.emptySet(), Collections.emptyMap());
+
+        private final Set<String> features;
+        private final Map<String, String> variables;
+
+        private EffectiveConfig(Set<String> features, Map<String, String> variables) {
+            this.features = Collections.unmodifiableSet(features);
+            this.variables = Collections.unmodifiableMap(variables);
+        }
+
+        /**
+         * @return lower case features
+         */
+        public Set<String> getFeatures() {
+            return features;
+        }
+
+        public Map<String, String> getVariables() {
+            return variables;
+        }
+    }
+
+    private static class ParsedFile {
+        private final IncludedLocation location;
+        private final ServerConfigFile contents;
+
+        private ParsedFile(IncludedLocation location, ServerConfigFile contents) {
+            this.location = location;
+            this.contents = contents;
+        }
+    }
+
+    private static class ListedDirectory {
+        private final IncludedLocation location;
+        private final List<String> xmlFileNames;
+
+        private ListedDirectory(IncludedLocation location, List<String> xmlFileNames) {
+            this.location = location;
+            this.xmlFileNames = xmlFileNames;
+        }
+    }
+
+    private final IncludeGraph includeGraph;
+    // path -> contents parsed from the file at that path
+    private final Map<String, ParsedFile> parsedFiles = new HashMap<String, ParsedFile>();
+    // path -> xml files in an included directory
+    private final Map<String, ListedDirectory> listedDirectories = new HashMap<String, ListedDirectory>();
+    private int parsedFileCount;
+
+    public EffectiveConfigBuilder(IncludeGraph includeGraph) {
+        this.includeGraph = includeGraph;
+    }
+
+    /**
+     * Builds the effective configuration of an open document. The features and variables of the document itself
+     * are not part of it, since its current text may not be saved yet.
+     *
+     * @param documentFile file of the document
+     * @param includeLocations include locations in the current text of the document
+     * @return features and variables from the other files of the server configuration
+     */
+    public synchronized EffectiveConfig build(File documentFile, Collection<String> includeLocations) {
+        Set<String> features = new HashSet<String>();
+        Map<String, String> variables = new HashMap<String, String>();
+        Set<String> visited = new HashSet<String>();
+        visited.add(IncludeGraph.getPath(documentFile));
+        parsedFileCount = 0;
+
+        addIncludedConfig(documentFile, includeLocations, true, features, variables, visited);
+        // the documents that include this one, which are recorded when they are validated or built
+        for (String dependent : includeGraph.getDependents(documentFile)) {
+            File dependentFile = new File(dependent);
+            if (visited.add(dependent)) {
+                ServerConfigFile contents = getContents(dependent, IncludedLocation.of(dependentFile));
+                features.addAll(contents.getFeatures());
+                variables.putAll(contents.getVariables());
+                // the includes of a dependent are recorded from its current text when it is validated, not from disk
+                addIncludedConfig(dependentFile, contents.getIncludeLocations(), false, features, variables, visited);
+            }
+        }
+        if (parsedFileCount > 0) {
+            LOGGER.finest("Parsed " + parsedFileCount + " config files for the effective configuration of " + documentFile);
+        }
+        return features.isEmpty() && variables.isEmpty() ? EffectiveConfig.EMPTY : new EffectiveConfig(features, variables);
+    }
+
+    /**
+     * @return number of files that were parsed by the latest build, because they were new or changed
+     */
+    public synchronized int getParsedFileCount() {
+        return parsedFileCount;
+    }
+
+    /**
+     * Adds the configuration of the files a config file includes, and of its configDropins if it is a server.xml,
+     * and records their locations in the include graph.
+     * @param retainIncludes whether the include locations are all the locations of the config file, so the graph
+     *        can forget the ones it no longer has
+     */
+    private void addIncludedConfig(File configFile, Collection<String> includeLocations, boolean retainIncludes, Set<String> features,
+            Map<String, String> variables, Set<String> visited) {
+        Set<String> resolvedLocations = new LinkedHashSet<String>();
+        boolean isServerXml = LibertyConstants.SERVER_XML.equals(configFile.getName());
+        if (isServerXml) {
+            addLocation(configFile, DEFAULTS_DROPINS_LOCATION, resolvedLocations, features, variables, visited);
+        }
+        for (String location : includeLocations) {
+            if (isFileLocation(location)) {
+                addLocation(configFile, location, resolvedLocations, features, variables, visited);
+            }
+        }
+        if (isServerXml) {
+            addLocation(configFile, OVERRIDES_DROPINS_LOCATION, resolvedLocations, features, variables, visited);
+        }
+        if (retainIncludes) {
+            includeGraph.retainIncludes(configFile, resolvedLocations);
+        }
+    }
+
+    private void addLocation(File configFile, String location, Set<String> resolvedLocations, Set<String> features,
+            Map<String, String> variables, Set<String> visited) {
+        resolvedLocations.add(location);
+        IncludedLocation includedLocation = includeGraph.resolve(configFile, location);
+        if (includedLocation.isFile()) {
+            addFile(includedLocation, features, variables, visited);
+        } else if (includedLocation.isDirectory() && isDirectoryLocation(location)) {
+            // Liberty includes the xml files of a directory in alphabetical order
+            for (String fileName : getXmlFileNames(includedLocation)) {
+                String fileLocation = location + fileName;
+                resolvedLocations.add(fileLocation);
+                IncludedLocation fileIncludedLocation = includeGraph.resolve(configFile, fileLocation);
+                if (fileIncludedLocation.isFile()) {
+                    addFile(fileIncludedLocation, features, variables, visited);
+                }
+            }
+        }
+    }
+
+    private void addFile(IncludedLocation includedLocation, Set<String> features, Map<String, String> variables, Set<String> visited) {
+        String path = IncludeGraph.getPath(includedLocation.getFile());
+        if (!visited.add(path)) {
+            return;
+        }
+        ServerConfigFile contents = getContents(path, includedLocation);
+        features.addAll(contents.getFeatures());
+        variables.putAll(contents.getVariables());
+        addIncludedConfig(includedLocation.getFile(), contents.getIncludeLocations(), true, features, variables, visited);
+    }
+
+    private ServerConfigFile getContents(String path, IncludedLocation includedLocation) {
+        ParsedFile parsedFile = parsedFiles.get(path);
+        if (parsedFile != null && parsedFile.location.equals(includedLocation)) {
+            return parsedFile.contents;
+        }
+        ServerConfigFile contents = ServerConfigFile.EMPTY;
+        if (includedLocation.isFile()) {
+            try {
+                contents = XmlReader.readServerConfigFile(includedLocation.getFile());
+            } catch (IOException | XMLStreamException e) {
+                LOGGER.fine("Unable to read included config file " + path + ": " + e.getMessage());
+            }
+            parsedFileCount++;
+            parsedFiles.put(path, new ParsedFile(includedLocation, contents));
+        } else {
+            parsedFiles.remove(path);
+        }
+        return contents;
+    }
+
+    private List<String> getXmlFileNames(IncludedLocation directory) {
+        String path = IncludeGraph.getPath(directory.getFile());
+        ListedDirectory listedDirectory = listedDirectories.get(path);
+        if (listedDirectory != null && listedDirectory.location.equals(directory)) {
+            return listedDirectory.xmlFileNames;
+        }
+        List<String> xmlFileNames = new ArrayList<String>();
+        String[] fileNames = directory.getFile().list((dir, name) -> name.endsWith(".xml"));
+        if (fileNames != null) {
+            Arrays.sort(fileNames, String.CASE_INSENSITIVE_ORDER);
+            xmlFileNames.addAll(Arrays.asList(fileNames));
+        }
+        listedDirectories.put(path, new ListedDirectory(directory, xmlFileNames));
+        return xmlFileNames;
+    }
+
+    // locations with variables or URLs are not resolved
+    private static boolean isFileLocation(String location) {
+        return !location.startsWith("http") && !location.contains("$") && (location.endsWith(".xml") || isDirectoryLocation(location));
+    }
+
+    private static boolean isDirectoryLocation(String location) {
+        return location.endsWith("/") || location.endsWith(File.separator);
+    }
+}
@@ -12,32 +12,48 @@
 *******************************************************************************/
 package io.openliberty.tools.langserver.lemminx.services;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.File;
+import java.io.UncheckedIOException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
 import io.openliberty.tools.langserver.lemminx.models.feature.FeatureTolerate;
 import io.openliberty.tools.langserver.lemminx.models.feature.FeaturesAndPlatforms;
 import io.openliberty.tools.langserver.lemminx.models.feature.PrivateFeature;
 
+import io.openliberty.tools.langserver.lemminx.util.FeatureCacheUtil;
 import io.openliberty.tools.langserver.lemminx.util.LibertyVersionDownloadUtil;
 import io.openliberty.tools.langserver.lemminx.util.SchemaAndFeatureListGeneratorUtil;
+import io.openliberty.tools.langserver.lemminx.util.SingleFlight;
+import io.openliberty.tools.langserver.lemminx.util.XmlReader;
 import org.eclipse.lemminx.dom.DOMDocument;
 import org.eclipse.lemminx.dom.DOMNode;
 import org.eclipse.lemminx.uriresolver.CacheResourcesManager;
@@ -45,6 +61,8 @@ import org.eclipse.lemminx.uriresolver.CacheResourcesManager.ResourceToDeploy;
 
 import java.util.stream.Collectors;
 
+import javax.xml.stream.XMLStreamException;
+
 import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBException;
 import jakarta.xml.bind.Unmarshaller;
@@ -71,9 +89,17 @@ public class FeatureService {
     // Singleton so that only 1 Feature Service can be initialized and is
     // shared between all Lemminx Language Feature Participants
 
-    private static FeatureService instance;
-    private static String olFeatureEndpoint = "https://repo1.maven.org/maven2/io/openliberty/features/features/%1$s/features-%1$s.json";
-    private static String wlpFeatureEndpoint = "https://repo1.maven.org/maven2/com/ibm/websphere/appserver/features/features/%1$s/features-%1$s.json";
+    private static volatile FeatureService instance;
+    private static JAXBContext featureInfoJAXBContext;
+    private static final ExecutorService featureDownloadExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "liberty-ls-feature-download");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final String OL_FEATURE_ENDPOINT = "https://repo1.maven.org/maven2/io/openliberty/features/features/%1$s/features-%1$s.json";
+    private static final String WLP_FEATURE_ENDPOINT = "https://repo1.maven.org/maven2/com/ibm/websphere/appserver/features/features/%1$s/features-%1$s.json";
+    private static volatile String olFeatureEndpoint = OL_FEATURE_ENDPOINT;
+    private static volatile String wlpFeatureEndpoint = WLP_FEATURE_ENDPOINT;
 
     // This file is copied to the local .lemminx cache. 
     // This is how we ensure the latest default featurelist xml gets used in each developer environment. 
@@ -81,6 +107,9 @@ public class FeatureService {
     private static final String FEATURELIST_XML_CLASSPATH_LOCATION = "/featurelist.cached/featurelist-cached-25.0.0.6_%s.xml";
     private static final String FEATURELIST_XML_RESOURCE_URL_DEFAULT = "https://github.com/OpenLiberty/liberty-language-server/blob/master/lemminx-liberty/src/main/resources/featurelist.cached/featurelist-cached-25.0.0.6.xml";
     private static final String FEATURELIST_XML_CLASSPATH_LOCATION_DEFAULT = "/featurelist.cached/featurelist-cached-25.0.0.6.xml";
+    // Binary snapshots of the graphs in the featurelist xml files above, generated at build time by FeatureListSnapshotGenerator
+    private static final String FEATURELIST_SNAPSHOT_CLASSPATH_LOCATION = "/featurelist.cached/featurelist-cached-25.0.0.6_%s.bin";
+    private static final String FEATURELIST_SNAPSHOT_CLASSPATH_LOCATION_DEFAULT = "/featurelist.cached/featurelist-cached-25.0.0.6.bin";
     public static final String LIBERTY_FEATURELIST_VERSION_XML = "https://repo1.maven.org/maven2/io/openliberty/features/open_liberty_featurelist/$VERSION/open_liberty_featurelist-$VERSION.xml";
     public static final String LIBERTY_FEATURELIST_VERSION_WITH_LOCALE_XML = "https://repo1.maven.org/maven2/io/openliberty/features/open_liberty_featurelist_$LOCALE/$VERSION/open_liberty_featurelist_$LOCALE-$VERSION.xml";
     public static final String FEATURES_JSON_URI = "https://repo1.maven.org/maven2/io/openliberty/features/features/$VERSION/features-$VERSION.json";
@@ -101,24 +130,55 @@ public class FeatureService {
     private static final ResourceToDeploy FEATURELIST_XML_RESOURCE_DEFAULT = new ResourceToDeploy(FEATURELIST_XML_RESOURCE_URL_DEFAULT,
             FEATURELIST_XML_CLASSPATH_LOCATION_DEFAULT) ;
 
+    /**
+     * Overrides the endpoints the features json files are downloaded from, with the Liberty version as
+     * format argument 1. Null restores the Maven Central endpoint.
+     *
+     * Declared public to be used by tests
+     */
+    public static void setFeatureEndpoints(String olEndpoint, String wlpEndpoint) {
+        olFeatureEndpoint = olEndpoint != null ? olEndpoint : OL_FEATURE_ENDPOINT;
+        wlpFeatureEndpoint = wlpEndpoint != null ? wlpEndpoint : WLP_FEATURE_ENDPOINT;
+    }
+
     public static FeatureService getInstance() {
-        if (instance == null) {
-            instance = new FeatureService();
-            FEATURELIST_XML_RESOURCE = new ResourceToDeploy(FEATURELIST_XML_RESOURCE_URL.formatted(SettingsService.getInstance().getCurrentLocale().toString()),
-                    FEATURELIST_XML_CLASSPATH_LOCATION.formatted(SettingsService.getInstance().getCurrentLocale().toString()));
+        FeatureService featureService = instance;
+        if (featureService == null) {
+            synchronized (FeatureService.class) {
+                featureService = instance;
+                if (featureService == null) {
+                    // set before the instance is published, so that every thread that sees the instance also sees the resource
+                    FEATURELIST_XML_RESOURCE = new ResourceToDeploy(FEATURELIST_XML_RESOURCE_URL.formatted(SettingsService.getInstance().getCurrentLocale().toString()),
+                            FEATURELIST_XML_CLASSPATH_LOCATION.formatted(SettingsService.getInstance().getCurrentLocale().toString()));
+                    featureService = new FeatureService();
+                    instance = featureService;
+                }
+            }
         }
-        return instance;
+        return featureService;
     }
 
-    // Cache of Liberty version -> list of supported features
-    private Map<String, FeaturesAndPlatforms> featureAndPlatformCache;   // the key consists of runtime-version, where runtime is 'ol' or 'wlp'
-    private FeaturesAndPlatforms defaultFeaturesAndPlatforms;
-    private FeatureListGraph defaultFeatureList;
-    private long featureUpdateTime;
+    // Cache of Liberty version -> list of supported features. Requests, the feature download threads and the file
+    // watchers all use it, so it is a concurrent map and the default features and graph are published through
+    // volatile fields once they are fully loaded.
+    private final Map<String, FeaturesAndPlatforms> featureAndPlatformCache;   // the key consists of runtime-version, where runtime is 'ol' or 'wlp'
+    private volatile FeaturesAndPlatforms defaultFeaturesAndPlatforms;
+    private volatile FeatureListGraph defaultFeatureList;
+    private volatile long featureDownloadFailureTime;
+    // Guards loading the default features and graph, which are read without locking once loaded
+    private final Object defaultFeaturesLock = new Object();
+    // Downloads of features json files in progress, keyed like featureAndPlatformCache
+    private final SingleFlight<String, FeaturesAndPlatforms> featureDownloads = new SingleFlight<>();
+    // Feature list generations in progress, keyed by ws-featurelist.jar location or container, and locale
+    private final SingleFlight<String, File> featureListGenerations = new SingleFlight<>();
+    private final List<Consumer<String>> featuresUpdatedListeners = new CopyOnWriteArrayList<>();
+    // Feature lists shared between workspaces, see getSharedFeatureListKey
+    private final Map<String, SharedFeatureList> sharedFeatureLists;
 
     private FeatureService() {
-        featureAndPlatformCache = new HashMap<>();
-        featureUpdateTime = -1;
+        featureAndPlatformCache = new ConcurrentHashMap<>();
+        featureDownloadFailureTime = -1;
+        sharedFeatureLists = new HashMap<>();
     }
 
     /**
@@ -137,10 +197,13 @@ public class FeatureService {
         LibertyVersionDownloadUtil.getResource(featureEndpoint,jsonDestFile.getPath());
         // saving feature.json to .libertyls folder first and then reading from there
         // saved because this would help to show URL in hover
-        InputStreamReader reader = new InputStreamReader(new FileInputStream(jsonDestFile));
-
-        // Only need the public features
-        FeaturesAndPlatforms fp = readFeaturesAndPlatforms(reader);
+        FeaturesAndPlatforms fp;
+        try (InputStreamReader reader = new InputStreamReader(new FileInputStream(jsonDestFile))) {
+            // Only need the public features
+            fp = readFeaturesAndPlatforms(reader);
+        }
+        // the json for a released version does not change, so it can be reused after a restart
+        FeatureCacheUtil.cacheFeaturesJson(libertyRuntime, libertyVersion, jsonDestFile);
 
         if (libertyRuntime.equals("wlp")) {
             // need to also get the OpenLiberty features and add them to the list to return
@@ -154,54 +217,95 @@ public class FeatureService {
         return fp;
     }
 
+    /**
+     * Reads the features json for a Liberty version from the persistent cache
+     *
+     * @return features and platforms from the cached json, or null if the json is not cached
+     */
+    private FeaturesAndPlatforms readCachedFeaturesForVersion(String libertyVersion, String libertyRuntime) {
+        Path cachedJsonPath = FeatureCacheUtil.getCachedFeaturesJson(libertyRuntime, libertyVersion);
+        if (cachedJsonPath == null) {
+            return null;
+        }
+        FeaturesAndPlatforms fp;
+        try (InputStreamReader reader = new InputStreamReader(new FileInputStream(cachedJsonPath.toFile()), StandardCharsets.UTF_8)) {
+            fp = readFeaturesAndPlatforms(reader);
+        } catch (IOException | JsonParseException e) {
+            LOGGER.warning("Unable to read cached features json " + cachedJsonPath + ": " + e.getMessage());
+            return null;
+        }
+
+        if (libertyRuntime.equals("wlp")) {
+            // need to also get the OpenLiberty features, see fetchFeaturesForVersion
+            FeaturesAndPlatforms olFP = readCachedFeaturesForVersion(libertyVersion, "ol");
+            if (olFP == null) {
+                return null;
+            }
+            fp.addFeaturesAndPlatforms(olFP);
+        }
+
+        LOGGER.info("Returning public features and platforms from cache - features: " + fp.getPublicFeatures().size()+" platforms: "+fp.getPlatforms().size());
+        SettingsService.getInstance().setFeatureJsonFilePath(cachedJsonPath);
+        return fp;
+    }
+
     /**
      * Returns the default list of features and platforms
      *
      * @return list of features and platforms supported by the default version of Liberty
      */
     private FeaturesAndPlatforms getDefaultFeaturesAndPlatforms() {
-        InputStream is = null;
-        if (defaultFeaturesAndPlatforms == null) {
-            try {
-                Path featureVersionPath = LibertyVersionDownloadUtil.downloadAndCacheLatestResource(FEATURES_JSON_URI, null);
-                if (featureVersionPath != null) {
-                    is = new FileInputStream(featureVersionPath.toFile());
-                    LOGGER.info("Setting feature json by downloading latest version cached to %s".formatted(featureVersionPath));
-                    SettingsService.getInstance().setFeatureJsonFilePath(featureVersionPath);
-                } else {
-                    // falling back to the json stored in local
-                    // caching this to .lemminx folder as well to show URL in hover
-                    ResourceToDeploy featureJsonResource = new ResourceToDeploy(FEATURES_CACHED_25_0_0_6_JSON, DEFAULT_FEATURES_JSON_FILENAME);
-                    Path deployedPath = CacheResourcesManager.getResourceCachePath(featureJsonResource);
-                    is = new FileInputStream(deployedPath.toFile());
-                    LOGGER.info("Setting feature json by caching local version stored in classpath to %s".formatted(deployedPath));
-                    SettingsService.getInstance().setFeatureJsonFilePath(deployedPath);
-                }
-                InputStreamReader reader = new InputStreamReader(is, StandardCharsets.UTF_8);
-
-                // Only need the public features
-                defaultFeaturesAndPlatforms = readFeaturesAndPlatforms(reader);
-            } catch (JsonParseException | IOException e) {
-                // unable to read json in resources file, return empty list
-                LOGGER.severe("Error: Unable to get default features and platforms.");
-                defaultFeaturesAndPlatforms = new FeaturesAndPlatforms();
-                return defaultFeaturesAndPlatforms;
-            } catch (Exception e) {
-                LOGGER.severe("Error: " + e.getMessage());
-                defaultFeaturesAndPlatforms = new FeaturesAndPlatforms();
-                return defaultFeaturesAndPlatforms;
-            } finally {
-                if (is != null) {
-                    try {
-                        is.close();
-                    } catch (IOException e) {
-                        LOGGER.severe("Error: Unable to close input stream " + e.getMessage());
-                    }
+        FeaturesAndPlatforms featuresAndPlatforms = defaultFeaturesAndPlatforms;
+        if (featuresAndPlatforms == null) {
+            synchronized (defaultFeaturesLock) {
+                featuresAndPlatforms = defaultFeaturesAndPlatforms;
+                if (featuresAndPlatforms == null) {
+                    featuresAndPlatforms = loadDefaultFeaturesAndPlatforms();
+                    defaultFeaturesAndPlatforms = featuresAndPlatforms;
                 }
             }
         }
         LOGGER.info("Returning default list of features and platforms");
-        return defaultFeaturesAndPlatforms;
+        return featuresAndPlatforms;
+    }
+
+    private FeaturesAndPlatforms loadDefaultFeaturesAndPlatforms() {
+        InputStream is = null;
+        try {
+            Path featureVersionPath = LibertyVersionDownloadUtil.downloadAndCacheLatestResource(FEATURES_JSON_URI, null);
+            if (featureVersionPath != null) {
+                is = new FileInputStream(featureVersionPath.toFile());
+                LOGGER.info("Setting feature json by downloading latest version cached to %s".formatted(featureVersionPath));
+                SettingsService.getInstance().setFeatureJsonFilePath(featureVersionPath);
+            } else {
+                // falling back to the json stored in local
+                // caching this to .lemminx folder as well to show URL in hover
+                ResourceToDeploy featureJsonResource = new ResourceToDeploy(FEATURES_CACHED_25_0_0_6_JSON, DEFAULT_FEATURES_JSON_FILENAME);
+                Path deployedPath = CacheResourcesManager.getResourceCachePath(featureJsonResource);
+                is = new FileInputStream(deployedPath.toFile());
+                LOGGER.info("Setting feature json by caching local version stored in classpath to %s".formatted(deployedPath));
+                SettingsService.getInstance().setFeatureJsonFilePath(deployedPath);
+            }
+            InputStreamReader reader = new InputStreamReader(is, StandardCharsets.UTF_8);
+
+            // Only need the public features
+            return readFeaturesAndPlatforms(reader);
+        } catch (JsonParseException | IOException e) {
+            // unable to read json in resources file, return empty list
+            LOGGER.severe("Error: Unable to get default features and platforms.");
+            return new FeaturesAndPlatforms();
+        } catch (Exception e) {
+            LOGGER.severe("Error: " + e.getMessage());
+            return new FeaturesAndPlatforms();
+        } finally {
+            if (is != null) {
+                try {
+                    is.close();
+                } catch (IOException e) {
+                    LOGGER.severe("Error: Unable to close input stream " + e.getMessage());
+                }
+            }
+        }
     }
 
     /**
@@ -235,6 +339,9 @@ public class FeatureService {
      * attempts to fetch the feature json from Maven, otherwise falls back to the
      * list of installed features. If the installed features list cannot be
      * gathered, falls back to the default cached features json file.
+     * The feature json is downloaded in the background. While the download is in
+     * progress, the already loaded installed features or the default features are
+     * returned.
      * 
      * @param libertyVersion Liberty version (corresponds to XML document)
      * @param libertyRuntime Liberty runtime (corresponds to XML document)
@@ -253,9 +360,10 @@ public class FeatureService {
         String featureCacheKey = libertyRuntime + "-" + libertyVersion;
 
         // if the features are already cached in the feature cache
-        if (featureAndPlatformCache.containsKey(featureCacheKey)) {
+        FeaturesAndPlatforms cachedFeaturesAndPlatforms = featureAndPlatformCache.get(featureCacheKey);
+        if (cachedFeaturesAndPlatforms != null) {
             LOGGER.info("Getting cached features and platforms for: " + featureCacheKey);
-            return featureAndPlatformCache.get(featureCacheKey);
+            return cachedFeaturesAndPlatforms;
         }
 
         LOGGER.info("Getting features and platforms for: " + featureCacheKey);
@@ -263,21 +371,35 @@ public class FeatureService {
         // if not a beta runtime, fetch features from maven central
         // - beta runtimes do not have a published features.json in mc
         if (!libertyVersion.endsWith("-beta")) {
-            try {
-                // verify that request delay (seconds) has gone by since last fetch request
-                // Note that the default delay is 10 seconds and can cause us to generate a feature list instead of download from MC when
-                // switching back and forth between projects.
-                long currentTime = System.currentTimeMillis();
-                if (this.featureUpdateTime == -1 || currentTime >= (this.featureUpdateTime + (requestDelay * 1000))) {
-                    LibertyWorkspace workspaceFolder = LibertyProjectsManager.getInstance().getWorkspaceFolder(documentURI);
-                    FeaturesAndPlatforms features = fetchFeaturesForVersion(libertyVersion, libertyRuntime, workspaceFolder);
-                    featureAndPlatformCache.put(featureCacheKey, features);
-                    this.featureUpdateTime = System.currentTimeMillis();
-                    return features;
+            // a json downloaded before a restart does not need to be downloaded again
+            FeaturesAndPlatforms cachedFeatures = readCachedFeaturesForVersion(libertyVersion, libertyRuntime);
+            if (cachedFeatures != null) {
+                FeaturesAndPlatforms existingFeatures = featureAndPlatformCache.putIfAbsent(featureCacheKey, cachedFeatures);
+                return existingFeatures != null ? existingFeatures : cachedFeatures;
+            }
+            // Concurrent requests for the same runtime and version share a single download. After a failed download,
+            // verify that request delay (seconds) has gone by before trying again.
+            CompletableFuture<FeaturesAndPlatforms> featureDownload = featureDownloads.get(featureCacheKey);
+            long currentTime = System.currentTimeMillis();
+            if (featureDownload == null && (this.featureDownloadFailureTime == -1 || currentTime >= (this.featureDownloadFailureTime + (requestDelay * 1000)))) {
+                LibertyWorkspace workspaceFolder = LibertyProjectsManager.getInstance().getWorkspaceFolder(documentURI);
+                featureDownload = featureDownloads.runAsync(featureCacheKey,
+                        () -> downloadFeatures(featureCacheKey, libertyVersion, libertyRuntime, workspaceFolder), featureDownloadExecutor);
+            }
+            // Do not block the request on the download. Until it completes, the default features are used, and
+            // documents are validated again once the features for the version are available.
+            if (featureDownload != null && !featureDownload.isDone()) {
+                LOGGER.info("Downloading features and platforms for " + featureCacheKey + " in the background, using default features until the download completes");
+                FeaturesAndPlatforms installedFeatures = getInstalledFeaturesIfLoaded(documentURI);
+                if (installedFeatures != null) {
+                    return installedFeatures;
                 }
-            } catch (Exception e) {
-                // do nothing, continue on to returning default feature list
-                LOGGER.warning("Received exception when trying to download features from Maven Central: "+e.getMessage());
+                getDefaultFeatureList();
+                return getDefaultFeaturesAndPlatforms();
+            }
+            cachedFeaturesAndPlatforms = featureAndPlatformCache.get(featureCacheKey);
+            if (cachedFeaturesAndPlatforms != null) {
+                return cachedFeaturesAndPlatforms;
             }
         }
 
@@ -289,16 +411,62 @@ public class FeatureService {
         }
 
         // return default list of features
-        getDefaultFeaturesAndPlatforms(); 
+        FeaturesAndPlatforms defaultFeatures = getDefaultFeaturesAndPlatforms();
         getDefaultFeatureList();
-        return defaultFeaturesAndPlatforms;
+        return defaultFeatures;
+    }
+
+    /**
+     * Downloads the features json for a Liberty version from Maven Central and stores the features in the cache.
+     * Runs on the feature download executor. Listeners registered with addFeaturesUpdatedListener are notified
+     * if the download succeeds.
+     * @return the downloaded features, or null if the download failed
+     */
+    private FeaturesAndPlatforms downloadFeatures(String featureCacheKey, String libertyVersion, String libertyRuntime, LibertyWorkspace workspaceFolder) {
+        FeaturesAndPlatforms features;
+        try {
+            features = fetchFeaturesForVersion(libertyVersion, libertyRuntime, workspaceFolder);
+            featureAndPlatformCache.put(featureCacheKey, features);
+        } catch (Exception e) {
+            // do nothing, requests fall back to the installed features or the default feature list
+            LOGGER.warning("Received exception when trying to download features from Maven Central: "+e.getMessage());
+            this.featureDownloadFailureTime = System.currentTimeMillis();
+            return null;
+        }
+        for (Consumer<String> listener : featuresUpdatedListeners) {
+            listener.accept(featureCacheKey);
+        }
+        return features;
+    }
+
+    /**
+     * Returns the installed features of the workspace containing the document if they have already been
+     * loaded, without generating the feature list.
+     */
+    private FeaturesAndPlatforms getInstalledFeaturesIfLoaded(String documentURI) {
+        LibertyWorkspace libertyWorkspace = LibertyProjectsManager.getInstance().getWorkspaceFolder(documentURI);
+        if (libertyWorkspace == null || libertyWorkspace.getInstalledFeaturesAndPlatformsList().getPublicFeatures().isEmpty()) {
+            return null;
+        }
+        return libertyWorkspace.getInstalledFeaturesAndPlatformsList();
+    }
+
+    /**
+     * Registers a listener that is called with the runtime-version key (for example, ol-25.0.0.6) when
+     * the features for a Liberty version have been downloaded in the background.
+     * @param listener
+     */
+    public void addFeaturesUpdatedListener(Consumer<String> listener) {
+        featuresUpdatedListeners.add(listener);
+    }
+
+    public void removeFeaturesUpdatedListener(Consumer<String> listener) {
+        featuresUpdatedListeners.remove(listener);
     }
 
     public Optional<Feature> getFeature(String featureName, String libertyVersion, String libertyRuntime, int requestDelay, String documentURI) {
         FeaturesAndPlatforms fp = getFeaturesAndPlatforms(libertyVersion, libertyRuntime, requestDelay, documentURI);
-        List<Feature> features = fp.getPublicFeatures();
-        return features.stream().filter(f -> f.getWlpInformation().getShortName().equalsIgnoreCase(featureName))
-            .findFirst();
+        return Optional.ofNullable(fp.getFeature(featureName));
     }
 
     public List<String> getFeatureShortNames(List<Feature> features) {
@@ -321,40 +489,35 @@ public class FeatureService {
 
     public List<Feature> getFeatureReplacements(String featureName, DOMNode featureManagerNode, String libertyVersion, String libertyRuntime, int requestDelay, String documentURI) {
         FeaturesAndPlatforms fp = getFeaturesAndPlatforms(libertyVersion, libertyRuntime, requestDelay, documentURI);
-        List<Feature> features = fp.getPublicFeatures();
-        List<String> featureNamesLowerCase = getFeatureShortNames(features, true);
 
         // get list of existing features to exclude from list of possible replacements
         List<String> existingFeatures = collectExistingFeatures(featureManagerNode, featureName);
 
         // also exclude any feature with a different version that matches an existing feature
         Set<String> featuresWithoutVersionsToExclude = new HashSet<String>();
-        for (String nextFeatureName : featureNamesLowerCase) {
-            if (existingFeatures.contains(nextFeatureName)) {
+        for (String existingFeatureName : existingFeatures) {
+            if (fp.getFeature(existingFeatureName) != null) {
                 // collect feature name minus version number to know which other features to exclude
-                String featureNameMinusVersion = nextFeatureName.contains("-") ?
-                        nextFeatureName.substring(0, nextFeatureName.lastIndexOf("-") + 1) : nextFeatureName + "-";
-                featuresWithoutVersionsToExclude.add(featureNameMinusVersion);
+                featuresWithoutVersionsToExclude.add(getFeatureNameMinusVersion(existingFeatureName));
             }
         }
 
+        // only the features that contain the typed name are looked at
         List<Feature> replacementFeatures = new ArrayList<Feature>();
-        String featureNameLowerCase = featureName.toLowerCase();
-
-        for (int i = 0; i < featureNamesLowerCase.size(); i++) {
-            String nextFeatureName = featureNamesLowerCase.get(i);
-            if (nextFeatureName.contains(featureNameLowerCase)) {
-                String comparingFeatureName = nextFeatureName.contains("-") ?
-                        nextFeatureName.substring(0, nextFeatureName.lastIndexOf("-") + 1) : nextFeatureName + "-";
-                if (!featuresWithoutVersionsToExclude.contains(comparingFeatureName)) {
-                    replacementFeatures.add(features.get(i));
-                }
+        for (Feature feature : fp.findFeatures(featureName)) {
+            String nextFeatureName = feature.getWlpInformation().getShortName().toLowerCase();
+            if (!featuresWithoutVersionsToExclude.contains(getFeatureNameMinusVersion(nextFeatureName))) {
+                replacementFeatures.add(feature);
             }
         }
 
         return replacementFeatures;
     }
 
+    private static String getFeatureNameMinusVersion(String featureName) {
+        return featureName.contains("-") ? featureName.substring(0, featureName.lastIndexOf("-") + 1) : featureName + "-";
+    }
+
     /*
      * Returns the feature names specified in the featureManager element in lower case, excluding the currentFeatureName if specified.
      */
@@ -407,18 +570,35 @@ public class FeatureService {
         }
 
         try {
-            // Need to handle both local installation and container
+            // Need to handle both local installation and container. Concurrent requests for workspaces that use the
+            // same installation or container share a single feature list generation.
+            String locale = SettingsService.getInstance().getCurrentLocale().toString();
             File featureListFile = null;
             if (libertyWorkspace.isLibertyInstalled()) {
                 Path featureListJAR = LibertyUtils.findLibertyFileForWorkspace(libertyWorkspace, Paths.get("bin", "tools", "ws-featurelist.jar"));
                 if (featureListJAR != null && featureListJAR.toFile().exists()) {
-                    //Generate featurelist file
-                    featureListFile = generateFeatureListXml(libertyWorkspace, featureListJAR);
+                    featureListFile = featureListGenerations.run(featureListJAR.toAbsolutePath() + "-" + locale, () -> {
+                        // Use a feature list generated for the same runtime before a restart, otherwise generate the featurelist file
+                        File generatedFile = getCachedFeatureListXml(libertyWorkspace, featureListJAR);
+                        if (generatedFile == null) {
+                            generatedFile = generateFeatureListXml(libertyWorkspace, featureListJAR);
+                            cacheFeatureListXml(libertyWorkspace, featureListJAR, generatedFile);
+                        }
+                        return generatedFile;
+                    });
                 }
             } else if (libertyWorkspace.isContainerAlive()) {
                 ContainerService container = ContainerService.getInstance();
-                featureListFile = container.generateFeatureListFromContainer(libertyWorkspace);
+                featureListFile = featureListGenerations.run("container-" + libertyWorkspace.getContainerName() + "-" + locale, () -> {
+                    try {
+                        return container.generateFeatureListFromContainer(libertyWorkspace);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
             }
+            // the feature list may have been generated for another workspace
+            featureListFile = copyGeneratedFeatureListToWorkspace(libertyWorkspace, featureListFile);
 
             if (featureListFile != null && featureListFile.exists()) {
                 try {
@@ -429,8 +609,8 @@ public class FeatureService {
             } else {
                 LOGGER.warning("Unable to generate the feature list for the current Liberty workspace:" + libertyWorkspace.getWorkspaceString());
             }
-        } catch (IOException e) {
-            LOGGER.severe("Error: Unable to generate the feature list file from the target Liberty runtime due to exception: "+e.getMessage());
+        } catch (CompletionException e) {
+            LOGGER.severe("Error: Unable to generate the feature list file from the target Liberty runtime due to exception: "+e.getCause().getMessage());
         }
 
         LOGGER.info("Returning installed features: " + installedFeaturesAndPlatforms.getPublicFeatures().size());
@@ -443,19 +623,46 @@ public class FeatureService {
     }
 
     public FeatureListGraph getDefaultFeatureList() {
-        if (defaultFeatureList != null) {
+        FeatureListGraph featureListGraph = defaultFeatureList;
+        if (featureListGraph != null) {
+            return featureListGraph;
+        }
+        synchronized (defaultFeaturesLock) {
+            if (defaultFeatureList == null) {
+                loadDefaultFeatureList();
+            }
             return defaultFeatureList;
         }
+    }
 
+    // Sets defaultFeatureList. Called with defaultFeaturesLock held.
+    private void loadDefaultFeatureList() {
         try {
-            Path featurelistXmlFile = getFeaturelistXmlFile();
+            Path featurelistXmlFile = LibertyVersionDownloadUtil.downloadAndCacheLatestResource(LIBERTY_FEATURELIST_VERSION_XML, LIBERTY_FEATURELIST_VERSION_WITH_LOCALE_XML);
+            if (featurelistXmlFile == null) {
+                // the bundled featurelist is pre-compiled, so there is no need to parse it unless the snapshot is missing
+                defaultFeatureList = readFeatureListSnapshot();
+                if (defaultFeatureList != null) {
+                    return;
+                }
+                featurelistXmlFile = getBundledFeaturelistXmlFile();
+            }
             LOGGER.info("Using cached Liberty featurelist xml file located at: " + featurelistXmlFile.toString());
 
             File featureListFile = featurelistXmlFile.toFile();
 
             if (featureListFile != null && featureListFile.exists()) {
+                // the graph of a featurelist xml is cached as a snapshot, so the xml is parsed once per version
+                defaultFeatureList = FeatureCacheUtil.getCachedFeatureListGraph(featurelistXmlFile);
+                if (defaultFeatureList != null) {
+                    LOGGER.info("Using cached featurelist snapshot for: " + featurelistXmlFile);
+                    return;
+                }
                 try {
                     readFeaturesFromFeatureListFile(null, featureListFile, true);
+                    if (defaultFeatureList != null && !defaultFeatureList.isEmpty()) {
+                        FeatureCacheUtil.cacheFeatureListGraph(featurelistXmlFile, defaultFeatureList);
+                    }
                 } catch (JAXBException e) {
                     LOGGER.severe("Error: Unable to load the default cached featurelist file due to exception: "+e.getMessage());
                 }
@@ -469,27 +676,50 @@ public class FeatureService {
         if (defaultFeatureList == null) {
             defaultFeatureList = new FeatureListGraph();
         }
+    }
 
-        return defaultFeatureList;
+    // fallback to classpath cached file
+    private static Path getBundledFeaturelistXmlFile() throws IOException {
+        Path featurelistXmlFile;
+        if (Locale.US.equals(SettingsService.getInstance().getCurrentLocale())) {
+            LOGGER.info("Locale is %s. Using default feature list cache xml in %s".formatted(SettingsService.getInstance().getCurrentLocale(), FEATURELIST_XML_RESOURCE));
+            return CacheResourcesManager.getResourceCachePath(FEATURELIST_XML_RESOURCE_DEFAULT);
+        }
+        try {
+            LOGGER.info("Using Locale %s to find feature list xml in %s".formatted(SettingsService.getInstance().getCurrentLocale(), FEATURELIST_XML_RESOURCE));
+            featurelistXmlFile = CacheResourcesManager.getResourceCachePath(FEATURELIST_XML_RESOURCE);
+        } catch (Exception e) {
+            LOGGER.warning("Unable to find localized feature list cache using current locale %s. Using default feature list cache xml in %s".formatted(SettingsService.getInstance().getCurrentLocale(), FEATURELIST_XML_RESOURCE_DEFAULT));
+            featurelistXmlFile = CacheResourcesManager.getResourceCachePath(FEATURELIST_XML_RESOURCE_DEFAULT);
+        }
+        return featurelistXmlFile;
     }
 
-    private static Path getFeaturelistXmlFile() throws IOException {
-        Path featurelistXmlFile = LibertyVersionDownloadUtil.downloadAndCacheLatestResource(LIBERTY_FEATURELIST_VERSION_XML, LIBERTY_FEATURELIST_VERSION_WITH_LOCALE_XML);
-        // fallback to classpath cached file
-        if (featurelistXmlFile == null) {
-            if (Locale.US.equals(SettingsService.getInstance().getCurrentLocale())) {
-                LOGGER.info("Locale is %s. Using default feature list cache xml in %s".formatted(SettingsService.getInstance().getCurrentLocale(), FEATURELIST_XML_RESOURCE));
-                return CacheResourcesManager.getResourceCachePath(FEATURELIST_XML_RESOURCE_DEFAULT);
-            }
-            try {
-                LOGGER.info("Using Locale %s to find feature list xml in %s".formatted(SettingsService.getInstance().getCurrentLocale(), FEATURELIST_XML_RESOURCE));
-                featurelistXmlFile = CacheResourcesManager.getResourceCachePath(FEATURELIST_XML_RESOURCE);
-            } catch (Exception e) {
-                LOGGER.warning("Unable to find localized feature list cache using current locale %s. Using default feature list cache xml in %s".formatted(SettingsService.getInstance().getCurrentLocale(), FEATURELIST_XML_RESOURCE_DEFAULT));
-                featurelistXmlFile = CacheResourcesManager.getResourceCachePath(FEATURELIST_XML_RESOURCE_DEFAULT);
+    /**
+     * Reads the snapshot of the bundled featurelist xml for the current locale, falling back to the
+     * default locale like getBundledFeaturelistXmlFile does.
+     * @return the graph, or null if there is no usable snapshot on the classpath
+     */
+    private static FeatureListGraph readFeatureListSnapshot() {
+        Locale locale = SettingsService.getInstance().getCurrentLocale();
+        String snapshotLocation = FEATURELIST_SNAPSHOT_CLASSPATH_LOCATION.formatted(locale.toString());
+        if (Locale.US.equals(locale) || FeatureService.class.getResource(snapshotLocation) == null) {
+            snapshotLocation = FEATURELIST_SNAPSHOT_CLASSPATH_LOCATION_DEFAULT;
+        }
+        try (InputStream snapshotStream = FeatureService.class.getResourceAsStream(snapshotLocation)) {
+            if (snapshotStream == null) {
+                LOGGER.info("Unable to find the default featurelist snapshot at location: " + snapshotLocation);
+                return null;
             }
+            // read the whole snapshot at once, the graph is then decoded from memory
+            byte[] snapshot = snapshotStream.readAllBytes();
+            FeatureListGraph featureListGraph = FeatureListGraph.readSnapshot(new DataInputStream(new ByteArrayInputStream(snapshot)));
+            LOGGER.info("Using default featurelist snapshot located at: " + snapshotLocation);
+            return featureListGraph;
+        } catch (IOException e) {
+            LOGGER.warning("Unable to read the default featurelist snapshot " + snapshotLocation + ": " + e.getMessage());
+            return null;
         }
-        return featurelistXmlFile;
     }
 
     public boolean doesGeneratedFeatureListExist(LibertyWorkspace libertyWorkspace) {
@@ -515,6 +745,79 @@ public class FeatureService {
         return featureListFile;
     }
 
+    /**
+     * Copies a feature list generated before a restart from the persistent cache to the location that
+     * generateFeatureListXml would generate it at. The cached feature list is only used if the Liberty
+     * installation still has the same installed features.
+     * @param libertyWorkspace
+     * @param featurelistJarPath
+     * @return File the feature list file, or null if there is no usable cached feature list
+     */
+    private File getCachedFeatureListXml(LibertyWorkspace libertyWorkspace, Path featurelistJarPath) {
+        String runtimeFingerprint = getRuntimeFingerprint(libertyWorkspace, featurelistJarPath);
+        if (runtimeFingerprint == null) {
+            return null;
+        }
+        Path cachedFeatureList = FeatureCacheUtil.getCachedFeatureList(libertyWorkspace.getLibertyRuntime(), libertyWorkspace.getLibertyVersion(),
+                SettingsService.getInstance().getCurrentLocale().toString(), runtimeFingerprint);
+        File tempDir = LibertyUtils.getTempDir(libertyWorkspace);
+        if (cachedFeatureList == null || tempDir == null) {
+            return null;
+        }
+        File featureListFile = getGeneratedFeatureListFileLocation(libertyWorkspace, tempDir);
+        try {
+            Files.copy(cachedFeatureList, featureListFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOGGER.warning("Unable to copy cached feature list " + cachedFeatureList + ": " + e.getMessage());
+            return null;
+        }
+        LOGGER.info("Using cached feature list file at: " + cachedFeatureList);
+        return featureListFile;
+    }
+
+    /**
+     * Copies a feature list generated for another workspace to the location that generateFeatureListXml would
+     * generate it at for this workspace, so that doesGeneratedFeatureListExist finds it.
+     * @return the feature list file to use for this workspace
+     */
+    private File copyGeneratedFeatureListToWorkspace(LibertyWorkspace libertyWorkspace, File featureListFile) {
+        File tempDir = LibertyUtils.getTempDir(libertyWorkspace);
+        if (featureListFile == null || !featureListFile.exists() || tempDir == null) {
+            return featureListFile;
+        }
+        File workspaceFeatureListFile = getGeneratedFeatureListFileLocation(libertyWorkspace, tempDir);
+        if (workspaceFeatureListFile.equals(featureListFile)) {
+            return featureListFile;
+        }
+        try {
+            Files.copy(featureListFile.toPath(), workspaceFeatureListFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return workspaceFeatureListFile;
+        } catch (IOException e) {
+            LOGGER.warning("Unable to copy generated feature list " + featureListFile + ": " + e.getMessage());
+            return featureListFile;
+        }
+    }
+
+    private void cacheFeatureListXml(LibertyWorkspace libertyWorkspace, Path featurelistJarPath, File featureListFile) {
+        String runtimeFingerprint = getRuntimeFingerprint(libertyWorkspace, featurelistJarPath);
+        if (runtimeFingerprint != null && featureListFile != null && featureListFile.exists()) {
+            FeatureCacheUtil.cacheFeatureList(libertyWorkspace.getLibertyRuntime(), libertyWorkspace.getLibertyVersion(),
+                    SettingsService.getInstance().getCurrentLocale().toString(), runtimeFingerprint, featureListFile);
+        }
+    }
+
+    /**
+     * Returns the fingerprint of the features installed in the Liberty installation containing bin/tools/ws-featurelist.jar,
+     * or null if the generated feature list should not be cached.
+     */
+    private String getRuntimeFingerprint(LibertyWorkspace libertyWorkspace, Path featurelistJarPath) {
+        if (!libertyWorkspace.isLibertyRuntimeAndVersionSet()) {
+            return null;
+        }
+        Path installDir = featurelistJarPath.toAbsolutePath().getParent().getParent().getParent();
+        return FeatureCacheUtil.getRuntimeFingerprint(installDir);
+    }
+
     /**
      * Generate the featurelist file for a LibertyWorkspace using the ws-featurelist.jar in the corresponding Liberty installation
      * @param libertyWorkspace
@@ -566,10 +869,20 @@ public class FeatureService {
     public FeaturesAndPlatforms readFeaturesFromFeatureListFile(LibertyWorkspace libertyWorkspace,
         File featureListFile, boolean graphOnly) throws JAXBException {
         FeaturesAndPlatforms installedFeatures = new FeaturesAndPlatforms();
-        JAXBContext jaxbContext = JAXBContext.newInstance(FeatureInfo.class);
-        Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
-        FeatureInfo featureInfo = (FeatureInfo) jaxbUnmarshaller.unmarshal(featureListFile);
-        FeatureListGraph featureListGraph = new FeatureListGraph();
+
+        // Workspaces that generated an identical feature list share the parsed features and graph.
+        String sharedFeatureListKey = graphOnly ? null : getSharedFeatureListKey(libertyWorkspace, featureListFile);
+        if (sharedFeatureListKey != null) {
+            SharedFeatureList sharedFeatureList = acquireSharedFeatureList(sharedFeatureListKey, libertyWorkspace);
+            if (sharedFeatureList != null) {
+                LOGGER.info("Using shared feature list for runtime " + libertyWorkspace.getWorkspaceRuntime() + " in workspace " + libertyWorkspace.getWorkspaceString());
+                libertyWorkspace.setInstalledFeaturesAndPlatformsList(sharedFeatureList.featuresAndPlatforms);
+                libertyWorkspace.setFeatureListGraph(sharedFeatureList.featureListGraph);
+                return sharedFeatureList.featuresAndPlatforms;
+            }
+        }
+
+        FeatureInfo featureInfo = readFeatureInfo(featureListFile);
         
         // Note: The public features are loaded in the getFeatures() collection when unmarshalling the passed featureListFile.
         if ((featureInfo.getFeatures() != null) && (featureInfo.getFeatures().size() > 0)) {
@@ -580,32 +893,8 @@ public class FeatureService {
                 // the feature name.
                 WlpInformation wlpInfo = new WlpInformation(f.getName());
                 f.setWlpInformation(wlpInfo);
-
-                String currentFeature = f.getName();            
-                List<String> enables = f.getEnables();
-                List<String> configElements = f.getConfigElements();
-                FeatureListNode currentFeatureNode = featureListGraph.addFeature(currentFeature, f.getDescription());
-
-                // check symbolicName to see if this is a versionless feature
-                if (f.getSymbolicName().contains(".versionless.")) {
-                    currentFeatureNode.setIsVersionless(true);
-                }
-
-                if (enables != null) {
-                    for (String enabledFeature : enables) {
-                        FeatureListNode feature = featureListGraph.addFeature(enabledFeature);
-                        feature.addEnabledBy(currentFeature);
-                        currentFeatureNode.addEnablesFeature(enabledFeature);
-                    }
-                }
-                if (configElements != null) {
-                    for (String configElement : configElements) {
-                        ConfigElementNode configNode = featureListGraph.addConfigElement(configElement);
-                        configNode.addEnabledBy(currentFeature);
-                        currentFeatureNode.addEnablesConfigElement(configElement);
-                    }
-                }
             }
+            FeatureListGraph featureListGraph = buildFeatureListGraph(featureInfo.getFeatures());
 
             // Note: The private features are loaded in the getPrivateFeatures() collection when unmarshalling the passed featureListFile.
             List<Feature> privateFeatures = new ArrayList<>();
@@ -624,6 +913,12 @@ public class FeatureService {
 
             if (!graphOnly) {
                 installedFeatures = new FeaturesAndPlatforms(featureInfo.getFeatures(), privateFeatures);
+                if (sharedFeatureListKey != null) {
+                    SharedFeatureList sharedFeatureList = addSharedFeatureList(sharedFeatureListKey, libertyWorkspace,
+                            new SharedFeatureList(installedFeatures, featureListGraph));
+                    installedFeatures = sharedFeatureList.featuresAndPlatforms;
+                    featureListGraph = sharedFeatureList.featureListGraph;
+                }
                 libertyWorkspace.setInstalledFeaturesAndPlatformsList(installedFeatures);
                 libertyWorkspace.setFeatureListGraph(featureListGraph);
             } else {
@@ -634,12 +929,154 @@ public class FeatureService {
                 LOGGER.warning("Unable to get installed features for current Liberty workspace: " + libertyWorkspace.getWorkspaceString());
                 libertyWorkspace.setFeatureListGraph(new FeatureListGraph());
             } else {
-                defaultFeatureList = featureListGraph;
+                defaultFeatureList = new FeatureListGraph();
             }
         }
         return installedFeatures;
     }
 
+    /**
+     * Reads the feature list file with the streaming reader. Falls back to JAXB if the streaming reader fails.
+     */
+    private FeatureInfo readFeatureInfo(File featureListFile) throws JAXBException {
+        try {
+            return XmlReader.readFeatureInfo(featureListFile);
+        } catch (IOException | XMLStreamException e) {
+            LOGGER.warning("Unable to read feature list file " + featureListFile + " with streaming reader, using JAXB instead: " + e.getMessage());
+        }
+        Unmarshaller jaxbUnmarshaller = getFeatureInfoJAXBContext().createUnmarshaller();
+        return (FeatureInfo) jaxbUnmarshaller.unmarshal(featureListFile);
+    }
+
+    private static synchronized JAXBContext getFeatureInfoJAXBContext() throws JAXBException {
+        // creating a JAXBContext is expensive, so it is only done once and only if it is needed
+        if (featureInfoJAXBContext == null) {
+            featureInfoJAXBContext = JAXBContext.newInstance(FeatureInfo.class);
+        }
+        return featureInfoJAXBContext;
+    }
+
+    /**
+     * Builds the compacted graph of the features and config elements in a feature list.
+     * @param features public features read from a feature list xml
+     * @return
+     */
+    public static FeatureListGraph buildFeatureListGraph(List<Feature> features) {
+        FeatureListGraph featureListGraph = new FeatureListGraph();
+        for (Feature f : features) {
+            String currentFeature = f.getName();            
+            List<String> enables = f.getEnables();
+            List<String> configElements = f.getConfigElements();
+            FeatureListNode currentFeatureNode = featureListGraph.addFeature(currentFeature, f.getDescription());
+
+            // check symbolicName to see if this is a versionless feature
+            if (f.getSymbolicName().contains(".versionless.")) {
+                currentFeatureNode.setIsVersionless(true);
+            }
+
+            if (enables != null) {
+                for (String enabledFeature : enables) {
+                    FeatureListNode feature = featureListGraph.addFeature(enabledFeature);
+                    feature.addEnabledBy(currentFeature);
+                    currentFeatureNode.addEnablesFeature(enabledFeature);
+                }
+            }
+            if (configElements != null) {
+                for (String configElement : configElements) {
+                    ConfigElementNode configNode = featureListGraph.addConfigElement(configElement);
+                    configNode.addEnabledBy(currentFeature);
+                    currentFeatureNode.addEnablesConfigElement(configElement);
+                }
+            }
+        }
+        featureListGraph.compact();
+        return featureListGraph;
+    }
+
+    /**
+     * Returns the key used to share the features and graph of a workspace with other workspaces, or null
+     * if they should not be shared. The key is the runtime, version and locale plus a checksum of the
+     * generated feature list file, since installing features changes the feature list without changing
+     * the version.
+     */
+    private String getSharedFeatureListKey(LibertyWorkspace libertyWorkspace, File featureListFile) {
+        // only graphs that setFeatureListGraph tags with the runtime and version can be shared
+        if (!libertyWorkspace.isLibertyRuntimeAndVersionSet() || !(libertyWorkspace.isLibertyInstalled() || libertyWorkspace.isContainerAlive())) {
+            return null;
+        }
+        try {
+            return libertyWorkspace.getWorkspaceRuntime() + "-" + SettingsService.getInstance().getCurrentLocale()
+                    + "-" + Long.toHexString(FeatureCacheUtil.checksum(featureListFile));
+        } catch (IOException e) {
+            LOGGER.warning("Unable to compute checksum of feature list file " + featureListFile + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Returns the shared feature list for the key and records the workspace as a user of it, or returns
+     * null if no other workspace has loaded the feature list yet.
+     */
+    private synchronized SharedFeatureList acquireSharedFeatureList(String key, LibertyWorkspace libertyWorkspace) {
+        SharedFeatureList sharedFeatureList = sharedFeatureLists.get(key);
+        if (sharedFeatureList != null) {
+            retainSharedFeatureList(key, libertyWorkspace);
+        }
+        return sharedFeatureList;
+    }
+
+    /**
+     * Adds a newly loaded feature list for the key, unless another workspace loaded the same feature list
+     * first, and records the workspace as a user of it. Returns the feature list the workspace should use.
+     */
+    private synchronized SharedFeatureList addSharedFeatureList(String key, LibertyWorkspace libertyWorkspace, SharedFeatureList sharedFeatureList) {
+        sharedFeatureLists.putIfAbsent(key, sharedFeatureList);
+        retainSharedFeatureList(key, libertyWorkspace);
+        return sharedFeatureLists.get(key);
+    }
+
+    private void retainSharedFeatureList(String key, LibertyWorkspace libertyWorkspace) {
+        // a workspace uses one feature list at a time, so drop any other it was using before
+        releaseSharedFeatureLists(libertyWorkspace, key);
+        sharedFeatureLists.get(key).workspaces.add(libertyWorkspace.getWorkspaceString());
+    }
+
+    /**
+     * Releases the shared feature list used by the workspace. The feature list is removed from the
+     * cache once no workspace uses it anymore. Called when a workspace is closed.
+     * @param libertyWorkspace
+     */
+    public synchronized void releaseSharedFeatureList(LibertyWorkspace libertyWorkspace) {
+        releaseSharedFeatureLists(libertyWorkspace, null);
+    }
+
+    private void releaseSharedFeatureLists(LibertyWorkspace libertyWorkspace, String keepKey) {
+        Iterator<Map.Entry<String, SharedFeatureList>> it = sharedFeatureLists.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, SharedFeatureList> entry = it.next();
+            if (entry.getKey().equals(keepKey)) {
+                continue;
+            }
+            Set<String> workspaces = entry.getValue().workspaces;
+            if (workspaces.remove(libertyWorkspace.getWorkspaceString()) && workspaces.isEmpty()) {
+                LOGGER.info("Releasing shared feature list " + entry.getKey());
+                it.remove();
+            }
+        }
+    }
+
+    // Features and graph loaded from a generated feature list, plus the workspaces that use them.
+    private static class SharedFeatureList {
+        private final FeaturesAndPlatforms featuresAndPlatforms;
+        private final FeatureListGraph featureListGraph;
+        private final Set<String> workspaces = new HashSet<String>();
+
+        SharedFeatureList(FeaturesAndPlatforms featuresAndPlatforms, FeatureListGraph featureListGraph) {
+            this.featuresAndPlatforms = featuresAndPlatforms;
+            this.featureListGraph = featureListGraph;
+        }
+    }
+
     /**
      * get all platforms for all features from feature json
      * @param libertyVersion liberty version
@@ -662,9 +1099,7 @@ public class FeatureService {
      * @return true or false
      */
     public boolean platformExists(String platformName, String libertyVersion, String libertyRuntime, int requestDelay, String documentURI) {
-        Set<String> platforms = this.getAllPlatforms(libertyVersion, libertyRuntime, requestDelay, documentURI);
-        return platforms.stream()
-                .anyMatch(platform -> platform.equalsIgnoreCase(platformName));
+        return getFeaturesAndPlatforms(libertyVersion, libertyRuntime, requestDelay, documentURI).platformExists(platformName);
     }
 
 
@@ -679,12 +1114,12 @@ public class FeatureService {
      */
     public Set<String> getAllPlatformsForFeature(String featureName, String libertyVersion, String libertyRuntime,
                                                      int requestDelay, String documentURI) {
-        Optional<Feature> feature=this.getFeature(featureName,libertyVersion, libertyRuntime, requestDelay, documentURI);
-        if (feature.isPresent() && feature.get().getWlpInformation().getPlatforms() != null) {
+        FeaturesAndPlatforms fp = getFeaturesAndPlatforms(libertyVersion, libertyRuntime, requestDelay, documentURI);
+        Feature feature = fp.getFeature(featureName);
+        if (feature != null && feature.getWlpInformation().getPlatforms() != null) {
             // only include available platforms - a feature can list a platform that is in beta
-            Set<String> availablePlatforms = getAllPlatforms(libertyVersion, libertyRuntime, requestDelay, documentURI);
-            Set<String> returnSet = new HashSet<>(feature.get().getWlpInformation().getPlatforms());
-            returnSet.retainAll(availablePlatforms);
+            Set<String> returnSet = new HashSet<>(feature.getWlpInformation().getPlatforms());
+            returnSet.retainAll(fp.getPlatforms());
 
             return returnSet;
         }
@@ -834,25 +1269,33 @@ public class FeatureService {
      */
     public Set<String> getVersionLessFeaturesForVersioned(List<String> versionedFeatureNames, String libertyRuntime, String libertyVersion,int requestDelay, String documentURI) {
         FeaturesAndPlatforms featuresAndPlatforms = getFeaturesAndPlatforms( libertyVersion,libertyRuntime, requestDelay, documentURI);
-        Set<String> featureNames = featuresAndPlatforms.getPublicFeatures().stream()
-                .filter(feature -> feature.getWlpInformation() != null)
-                .map(feature -> feature.getWlpInformation().getShortName().toLowerCase())
-                .collect(Collectors.toSet());
 
         return versionedFeatureNames.stream()
                 .map(LibertyUtils::stripVersion)
-                .filter(feature -> featureNames.contains(feature.toLowerCase()))
+                .filter(feature -> featuresAndPlatforms.getFeature(feature) != null)
                 .collect(Collectors.toSet());
     }
 
+    /**
+     * Returns the background download of the features json for a runtime and version, or null if none is in progress.
+     *
+     * Declared public to be used by tests
+     */
+    public CompletableFuture<FeaturesAndPlatforms> getFeatureDownload(String libertyRuntime, String libertyVersion) {
+        return featureDownloads.get(libertyRuntime + "-" + libertyVersion);
+    }
+
     /**
      * Clean featurelist and platforms cache when needed
      * Used for tests
      */
     public void evictCache() {
-        featureAndPlatformCache = new HashMap<>();
-        featureUpdateTime = -1;
+        featureAndPlatformCache.clear();
+        featureDownloadFailureTime = -1;
         defaultFeatureList = null;
         defaultFeaturesAndPlatforms = null;
+        synchronized (this) {
+            sharedFeatureLists.clear();
+        }
     }
 }
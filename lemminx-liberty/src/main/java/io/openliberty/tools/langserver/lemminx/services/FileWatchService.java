@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2024 IBM Corporation and others.
+ * Copyright (c) 2024, 2025 IBM Corporation and others.
  *
  * This program and the accompanying materials are made available under the
  * terms of the Eclipse Public License v. 2.0 which is available at
@@ -25,16 +25,68 @@ import org.apache.commons.io.monitor.FileAlterationObserver;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Arrays;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
+/**
+ * Updates the Liberty variables of a workspace when config files in its target or build directory change.
+ *
+ * The directories are watched with the shared DirectoryWatchService, which uses the native file change
+ * notifications of the platform, and changes are coalesced so that a build that writes many files updates
+ * the variables once. If a directory cannot be watched that way, for example because the platform limit on
+ * watched directories was reached, the workspace falls back to polling with a commons-io FileAlterationMonitor,
+ * also when that happens for a directory created after the workspace was first watched.
+ *
+ * The events are handled on the update thread, so that walking the directories a build creates does not hold up
+ * the shared watch thread.
+ */
 public class FileWatchService {
 
-    private final Set<FileAlterationObserver> fileObservers = new HashSet<>();
-    private final Set<FileAlterationMonitor> monitors = new HashSet<>();
+    //ignore files/directories with below suffixes and names
+    private static final List<String> IGNORED_SUFFIXES = Arrays.asList(".class", ".lst", ".txt", ".log", ".manager", ".libertyls",
+            ".sLock", ".jar", ".war", ".ear",".mf");
+    private static final List<String> IGNORED_NAMES = Arrays.asList("plugin-cfg.xml", "libs", "tmp", "classes",
+            "generated-sources", "generated-test-sources", "invoker-reports",
+            "it", "maven-status", "surefire-reports", "test-classes");
+    // directories of a Liberty installation that never hold server config, not watched natively since every
+    // directory uses one of the limited native watches
+    private static final List<String> IGNORED_INSTALLATION_DIRS = Arrays.asList("lib", "dev", "logs", "workarea");
+
+    // a build that keeps writing files delays the update by at most this many times the file watch delay
+    private static final int MAX_DELAY_FACTOR = 5;
+
+    // polling observers are added from the update thread when a workspace falls back to polling
+    private final Set<FileAlterationObserver> fileObservers = ConcurrentHashMap.newKeySet();
+    private final Set<FileAlterationMonitor> monitors = ConcurrentHashMap.newKeySet();
+    private final Set<LibertyWorkspace> pollingWorkspaces = ConcurrentHashMap.newKeySet();
+    private final Map<LibertyWorkspace, WorkspaceWatch> workspaceWatches = new ConcurrentHashMap<LibertyWorkspace, WorkspaceWatch>();
+    private final List<Consumer<LibertyWorkspace>> variablesUpdatedListeners = new CopyOnWriteArrayList<Consumer<LibertyWorkspace>>();
+    private final ScheduledExecutorService updateExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "liberty-ls-file-watch-update");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private static final FileWatchService instance = new FileWatchService();
 
@@ -55,6 +107,26 @@ public class FileWatchService {
      */
     public void addFileAlterationObserver(LibertyWorkspace workspace, List<String> watchLocations)
             throws Exception {
+        WorkspaceWatch workspaceWatch = new WorkspaceWatch(workspace);
+        try {
+            for (String location : watchLocations) {
+                workspaceWatch.watch(Paths.get(location));
+            }
+            WorkspaceWatch previousWatch = workspaceWatches.put(workspace, workspaceWatch);
+            if (previousWatch != null) {
+                previousWatch.stop();
+            }
+            return;
+        } catch (IOException e) {
+            workspaceWatch.stop();
+            LOGGER.warning("Unable to watch %s for file changes, polling for changes instead: %s"
+                    .formatted(watchLocations, e.getMessage()));
+        }
+        addPollingObservers(workspace, watchLocations);
+    }
+
+    private void addPollingObservers(LibertyWorkspace workspace, List<String> watchLocations) throws Exception {
+        pollingWorkspaces.add(workspace);
         for (String location:watchLocations) {
             FileAlterationObserver observer = getFileAlterationObserver(location, workspace);
             observer.initialize();
@@ -66,15 +138,67 @@ public class FileWatchService {
         }
     }
 
+    /**
+     * Switches a natively watched workspace to polling, when a directory that was created later cannot be watched.
+     * Runs on the update thread.
+     */
+    private void fallBackToPolling(WorkspaceWatch workspaceWatch) {
+        if (!workspaceWatches.remove(workspaceWatch.workspace, workspaceWatch)) {
+            // already stopped or replaced
+            return;
+        }
+        workspaceWatch.stop();
+        List<String> watchLocations = workspaceWatch.locations.stream().map(Path::toString).collect(Collectors.toList());
+        try {
+            addPollingObservers(workspaceWatch.workspace, watchLocations);
+        } catch (Exception e) {
+            LOGGER.warning("Unable to poll %s for file changes: %s".formatted(watchLocations, e.getMessage()));
+        }
+        // files may have changed in the directories that could not be watched
+        updateVariables(workspaceWatch.workspace);
+    }
+
+    private void updateVariables(LibertyWorkspace workspace) {
+        SettingsService.getInstance().populateVariablesForWorkspace(workspace);
+        LOGGER.info("Liberty XML variables updated for workspace URI " + workspace.getWorkspaceString());
+        for (Consumer<LibertyWorkspace> listener : variablesUpdatedListeners) {
+            listener.accept(workspace);
+        }
+    }
+
+    /**
+     * Registers a listener that is called after the variables of a workspace were updated because its files changed.
+     * @param listener
+     */
+    public void addVariablesUpdatedListener(Consumer<LibertyWorkspace> listener) {
+        variablesUpdatedListeners.add(listener);
+    }
+
+    public void removeVariablesUpdatedListener(Consumer<LibertyWorkspace> listener) {
+        variablesUpdatedListeners.remove(listener);
+    }
+
+    /**
+     * @param workspace
+     * @return the directories of the workspace that are watched natively, empty if it is not watched or polled instead
+     */
+    public List<Path> getWatchedDirectories(LibertyWorkspace workspace) {
+        WorkspaceWatch workspaceWatch = workspaceWatches.get(workspace);
+        return workspaceWatch == null ? Collections.emptyList() : DirectoryWatchService.getInstance().getWatchedDirectories(workspaceWatch);
+    }
+
+    /**
+     * @param workspace
+     * @return true if the workspace is polled for changes instead of watched natively
+     */
+    public boolean isPolling(LibertyWorkspace workspace) {
+        return pollingWorkspaces.contains(workspace);
+    }
+
     private FileAlterationObserver getFileAlterationObserver(final String parentPath, LibertyWorkspace workspace) {
-        //ignore files/directories with below suffixes and names
         IOFileFilter notFileFilter = FileFilterUtils.notFileFilter(
-                new SuffixFileFilter(Arrays.asList(".class", ".lst", ".txt", ".log", ".manager", ".libertyls",
-                        ".sLock", ".jar", ".war", ".ear",".mf"),
-                        IOCase.INSENSITIVE)
-                        .or(new NameFileFilter(Arrays.asList("plugin-cfg.xml", "libs", "tmp", "classes",
-                                "generated-sources", "generated-test-sources", "invoker-reports",
-                                "it", "maven-status", "surefire-reports", "test-classes"), IOCase.INSENSITIVE)));
+                new SuffixFileFilter(IGNORED_SUFFIXES, IOCase.INSENSITIVE)
+                        .or(new NameFileFilter(IGNORED_NAMES, IOCase.INSENSITIVE)));
         FileAlterationObserver observer = new FileAlterationObserver(parentPath, notFileFilter);
         addFileAlterationListener(observer, workspace);
         return observer;
@@ -119,27 +243,212 @@ public class FileWatchService {
              * @param workspace current workspace
              */
             private void onAlteration(File file, LibertyWorkspace workspace) {
-                boolean watchedFileChanged = LibertyConstants.filesToWatch.stream().anyMatch(fileName -> file.getName().contains(fileName));
-                boolean isConfigXmlFile = false;
+                if (isWatchedFile(file)) {
+                    updateVariables(workspace);
+                }
+            }
+        });
+    }
+
+    /**
+     * @param file changed file
+     * @return true if the file is a config file or one of the files that Liberty variables are read from
+     */
+    private static boolean isWatchedFile(File file) {
+        boolean watchedFileChanged = LibertyConstants.filesToWatch.stream().anyMatch(fileName -> file.getName().contains(fileName));
+        boolean isConfigXmlFile = false;
+        try {
+            isConfigXmlFile = LibertyUtils.isConfigXMLFile(file.getCanonicalPath());
+        } catch (IOException e) {
+            LOGGER.warning("Liberty XML variables cannot be updated for file path %s with error %s"
+                    .formatted(file.getPath(), e.getMessage()));
+        }
+        return watchedFileChanged || isConfigXmlFile;
+    }
+
+    private static boolean isIgnored(Path path) {
+        String name = path.getFileName().toString();
+        return IGNORED_NAMES.stream().anyMatch(name::equalsIgnoreCase)
+                || IGNORED_SUFFIXES.stream().anyMatch(suffix -> name.regionMatches(true, name.length() - suffix.length(), suffix, 0, suffix.length()));
+    }
+
+    /**
+     * Native watch of the target and build directories of one workspace. It is the owner of the directories it
+     * registers with the DirectoryWatchService. A location that does not exist yet is picked up when it is created,
+     * by watching its parent directory for that location only.
+     */
+    private class WorkspaceWatch implements DirectoryWatchService.DirectoryListener {
+        private final LibertyWorkspace workspace;
+        private final Set<Path> locations = ConcurrentHashMap.newKeySet();
+        private final Set<Path> registeredDirs = ConcurrentHashMap.newKeySet();
+        private ScheduledFuture<?> pendingUpdate;
+        private long firstChangeTime;
+        private volatile boolean stopped;
+
+        private WorkspaceWatch(LibertyWorkspace workspace) {
+            this.workspace = workspace;
+        }
+
+        private void watch(Path location) throws IOException {
+            locations.add(location);
+            // the parent is watched so that the location is watched again after it is deleted and created, for example by a clean build
+            register(location.getParent());
+            if (Files.isDirectory(location)) {
+                registerTree(location, false);
+            }
+        }
+
+        private void stop() {
+            stopped = true;
+            DirectoryWatchService.getInstance().unregister(this);
+            synchronized (this) {
+                if (pendingUpdate != null) {
+                    pendingUpdate.cancel(false);
+                }
+            }
+        }
+
+        private void register(Path dir) throws IOException {
+            if (registeredDirs.add(dir)) {
                 try {
-                    isConfigXmlFile = LibertyUtils.isConfigXMLFile(file.getCanonicalPath());
+                    DirectoryWatchService.getInstance().register(dir, this, this);
                 } catch (IOException e) {
-                    LOGGER.warning("Liberty XML variables cannot be updated for file path %s with error %s"
-                            .formatted(file.getPath(), e.getMessage()));
+                    registeredDirs.remove(dir);
+                    throw e;
                 }
-                if (watchedFileChanged || isConfigXmlFile) {
-                    SettingsService.getInstance().populateVariablesForWorkspace(workspace);
-                    LOGGER.info("Liberty XML variables updated for workspace URI " + workspace.getWorkspaceString());
+            }
+        }
+
+        /**
+         * Registers the directory and its subdirectories that are not ignored.
+         * @param checkFiles whether to check the files in them, when they were created before the directories could be registered
+         * @return true if any of the files in them is a watched file
+         */
+        private boolean registerTree(Path root, boolean checkFiles) throws IOException {
+            boolean[] foundWatchedFile = new boolean[1];
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    if (!dir.equals(root) && (isIgnored(dir) || IGNORED_INSTALLATION_DIRS.contains(dir.getFileName().toString()))) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    register(dir);
+                    return FileVisitResult.CONTINUE;
                 }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (checkFiles && !foundWatchedFile[0] && !isIgnored(file) && isWatchedFile(file.toFile())) {
+                        foundWatchedFile[0] = true;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            return foundWatchedFile[0];
+        }
+
+        @Override
+        public void onEvents(Path dir, List<WatchEvent<?>> events) {
+            updateExecutor.execute(() -> processEvents(dir, events));
+        }
+
+        private void processEvents(Path dir, List<WatchEvent<?>> events) {
+            if (stopped) {
+                return;
             }
-        });
+            boolean watchedFileChanged = false;
+            for (WatchEvent<?> event : events) {
+                if (stopped) {
+                    // switched to polling while registering a new directory
+                    return;
+                }
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    // events were lost, so assume a watched file changed
+                    watchedFileChanged = true;
+                    continue;
+                }
+                Path child = dir.resolve((Path) event.context());
+                if (locations.stream().noneMatch(dir::startsWith)) {
+                    // dir is the parent of a location, only interested in the location being created
+                    if (locations.contains(child) && event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(child)) {
+                        watchedFileChanged |= registerNewDirectory(child);
+                    }
+                } else if (!isIgnored(child)) {
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(child)) {
+                        if (!IGNORED_INSTALLATION_DIRS.contains(child.getFileName().toString())) {
+                            watchedFileChanged |= registerNewDirectory(child);
+                        }
+                    } else if (!Files.isDirectory(child) && isWatchedFile(child.toFile())) {
+                        watchedFileChanged = true;
+                    }
+                }
+            }
+            if (watchedFileChanged) {
+                scheduleUpdate();
+            }
+        }
+
+        private boolean registerNewDirectory(Path dir) {
+            try {
+                return registerTree(dir, true);
+            } catch (NoSuchFileException e) {
+                // deleted again before it could be registered, for example by a clean build
+                return true;
+            } catch (IOException e) {
+                LOGGER.warning("Unable to watch %s for file changes, polling for changes instead: %s".formatted(dir, e.getMessage()));
+                fallBackToPolling(this);
+                return false;
+            }
+        }
+
+        @Override
+        public void onDirectoryInvalid(Path dir) {
+            updateExecutor.execute(() -> processDirectoryInvalid(dir));
+        }
+
+        private void processDirectoryInvalid(Path dir) {
+            if (stopped) {
+                return;
+            }
+            registeredDirs.remove(dir);
+            // watched files in the directory may have been deleted with it
+            if (locations.stream().anyMatch(dir::startsWith)) {
+                scheduleUpdate();
+            }
+        }
+
+        /**
+         * Updates the variables once the files have stopped changing for the file watch delay, so that a build that
+         * writes many files updates the variables once.
+         */
+        private synchronized void scheduleUpdate() {
+            long now = System.currentTimeMillis();
+            long delay = SettingsService.getInstance().getFileWatchDelay();
+            if (pendingUpdate == null || pendingUpdate.isDone()) {
+                firstChangeTime = now;
+            } else {
+                pendingUpdate.cancel(false);
+            }
+            delay = Math.max(0, Math.min(delay, firstChangeTime + MAX_DELAY_FACTOR * delay - now));
+            pendingUpdate = updateExecutor.schedule(() -> updateVariables(workspace), delay, TimeUnit.MILLISECONDS);
+        }
     }
 
     /**
      * clean all monitors for all workspaces
      */
     public void cleanFileMonitors() {
+        for (WorkspaceWatch workspaceWatch : workspaceWatches.values()) {
+            workspaceWatch.stop();
+        }
+        workspaceWatches.clear();
         fileObservers.clear();
+        pollingWorkspaces.clear();
         try {
             for (FileAlterationMonitor monitor : monitors) {
                 monitor.stop();
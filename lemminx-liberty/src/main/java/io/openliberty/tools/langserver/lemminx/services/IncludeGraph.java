@@ -0,0 +1,408 @@
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.services;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+/**
+ * Include dependencies of the server config files of one workspace: the locations each config file includes,
+ * the files they resolve to, and whether those files existed and when they were modified when last checked.
+ *
+ * The directories of the included files are watched with the shared DirectoryWatchService, so a resolved location
+ * is reused until a file in its directory changes. An included directory is watched itself as well, since the files
+ * in it are included, and a directory is no longer watched once no include needs it. When an included file is
+ * created, changed or deleted, its
+ * resolution is dropped and the config files that include it, directly or through other included files, are
+ * reported to the listeners registered with LibertyProjectsManager so they can be validated again. Locations in
+ * a directory that cannot be watched, for example because it does not exist, are resolved again on every pass.
+ */
+public class IncludeGraph implements DirectoryWatchService.DirectoryListener {
+
+    private static final Logger LOGGER = Logger.getLogger(IncludeGraph.class.getName());
+
+    /**
+     * File an include location resolved to, and its state when it was resolved. Compared by value, so it can be
+     * part of a cache key.
+     */
+    public static final class IncludedLocation {
+        private final File file;
+        private final boolean exists;
+        private final boolean isFile;
+        private final boolean isDirectory;
+        private final long lastModified;
+
+        private IncludedLocation(File file) {
+            this.file = file;
+            this.exists = file.exists();
+            this.isFile = exists && file.isFile();
+            this.isDirectory = exists && file.isDirectory();
+            this.lastModified = file.lastModified();
+        }
+
+        /**
+         * Resolves a location the way Liberty does, relative to the directory of the including file first, then
+         * on its own.
+         * @param parentFile including config file
+         * @param location location attribute of the include element
+         * @return
+         */
+        public static IncludedLocation resolve(File parentFile, String location) {
+            File file = new File(parentFile.getParentFile(), location);
+            if (!file.exists()) {
+                file = new File(location);
+            }
+            return new IncludedLocation(file);
+        }
+
+        /**
+         * @param file
+         * @return the current state of a file that is not resolved from an include location
+         */
+        public static IncludedLocation of(File file) {
+            return new IncludedLocation(file);
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public boolean exists() {
+            return exists;
+        }
+
+        public boolean isFile() {
+            return isFile;
+        }
+
+        public boolean isDirectory() {
+            return isDirectory;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof IncludedLocation)) {
+                return false;
+            }
+            IncludedLocation other = (IncludedLocation) obj;
+            return exists == other.exists && isFile == other.isFile && isDirectory == other.isDirectory
+                    && lastModified == other.lastModified && file.equals(other.file);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(file, exists, isFile, isDirectory, lastModified);
+        }
+    }
+
+    /**
+     * One include location of a config file. Both files it can resolve to are tracked, so that creating the
+     * file next to the including file is noticed even when the location resolved on its own before.
+     */
+    private static class Include {
+        private final Path relativeCandidate;
+        private final Path candidate;
+        private IncludedLocation resolved;
+        private boolean watched;
+
+        private Include(Path relativeCandidate, Path candidate) {
+            this.relativeCandidate = relativeCandidate;
+            this.candidate = candidate;
+        }
+
+        private boolean resolvesTo(Path file) {
+            return file.equals(relativeCandidate) || file.equals(candidate);
+        }
+    }
+
+    // including file -> location -> include
+    private final Map<String, Map<String, Include>> includes = new HashMap<String, Map<String, Include>>();
+    // file an include can resolve to -> including files
+    private final Map<Path, Set<String>> includedBy = new HashMap<Path, Set<String>>();
+    private final Set<Path> watchedDirs = new HashSet<Path>();
+    private boolean closed;
+
+    /**
+     * @param file
+     * @return the path that identifies a config file in the graph
+     */
+    public static String getPath(File file) {
+        return toPath(file).toString();
+    }
+
+    private static Path toPath(File file) {
+        return file.toPath().toAbsolutePath().normalize();
+    }
+
+    /**
+     * Returns the file an include location of a config file resolves to, resolving it only if it was not
+     * resolved before or a file it can resolve to changed since. The location is recorded as a dependency of
+     * the config file.
+     *
+     * @param parentFile including config file
+     * @param location location attribute of the include element
+     * @return
+     */
+    public synchronized IncludedLocation resolve(File parentFile, String location) {
+        String parent = getPath(parentFile);
+        Map<String, Include> parentIncludes = includes.computeIfAbsent(parent, key -> new HashMap<String, Include>());
+        Include include = parentIncludes.get(location);
+        if (include == null) {
+            include = new Include(toPath(new File(parentFile.getParentFile(), location)), toPath(new File(location)));
+            parentIncludes.put(location, include);
+            includedBy.computeIfAbsent(include.relativeCandidate, key -> new HashSet<String>()).add(parent);
+            includedBy.computeIfAbsent(include.candidate, key -> new HashSet<String>()).add(parent);
+        }
+        if (include.resolved == null || !include.watched) {
+            // a relative location only falls back to the working directory of the language server, which is not watched
+            boolean watched = watch(include.relativeCandidate.getParent());
+            if (new File(location).isAbsolute()) {
+                watched &= watch(include.candidate.getParent());
+            }
+            include.resolved = IncludedLocation.resolve(parentFile, location);
+            if (include.resolved.isDirectory()) {
+                // the files of an included directory are included too, so files created in it or deleted from it change the include
+                watched &= watch(toPath(include.resolved.getFile()));
+            }
+            include.watched = watched;
+        }
+        return include.resolved;
+    }
+
+    /**
+     * Forgets the include locations a config file no longer has, and stops watching the directories that
+     * no remaining include needs.
+     * @param parentFile including config file
+     * @param locations locations of its include elements
+     */
+    public synchronized void retainIncludes(File parentFile, Set<String> locations) {
+        String parent = getPath(parentFile);
+        Map<String, Include> parentIncludes = includes.get(parent);
+        if (parentIncludes == null) {
+            return;
+        }
+        boolean removed = false;
+        Iterator<Map.Entry<String, Include>> iterator = parentIncludes.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Include> entry = iterator.next();
+            if (!locations.contains(entry.getKey())) {
+                iterator.remove();
+                removeIncludedBy(parent, entry.getValue().relativeCandidate);
+                removeIncludedBy(parent, entry.getValue().candidate);
+                removed = true;
+            }
+        }
+        if (parentIncludes.isEmpty()) {
+            includes.remove(parent);
+        }
+        if (removed) {
+            releaseUnusedDirs();
+        }
+    }
+
+    /**
+     * @param file
+     * @return paths of the config files that include the file, directly or through other included files
+     */
+    public synchronized Set<String> getDependents(File file) {
+        return getDependents(Collections.singleton(toPath(file)));
+    }
+
+    /**
+     * Drops the resolutions of the include locations that can resolve to a file that changed.
+     * Listeners are notified of the config files that depend on it.
+     * @param file created, changed or deleted file
+     */
+    public void fileChanged(File file) {
+        Set<String> dependents;
+        synchronized (this) {
+            Path path = toPath(file);
+            invalidate(include -> include.resolvesTo(path));
+            dependents = getDependents(Collections.singleton(path));
+        }
+        notifyDependents(dependents);
+    }
+
+    /**
+     * Stops watching the directories of the included files and forgets all includes.
+     */
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            includes.clear();
+            includedBy.clear();
+            watchedDirs.clear();
+        }
+        DirectoryWatchService.getInstance().unregister(this);
+    }
+
+    @Override
+    public void onEvents(Path dir, List<WatchEvent<?>> events) {
+        Set<String> dependents;
+        synchronized (this) {
+            Set<Path> changedFiles = new HashSet<Path>();
+            boolean overflow = false;
+            for (WatchEvent<?> event : events) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    overflow = true;
+                } else {
+                    changedFiles.add(dir.resolve((Path) event.context()));
+                    if (event.kind() != StandardWatchEventKinds.ENTRY_MODIFY) {
+                        // the files in the directory changed, for includes of the directory itself
+                        changedFiles.add(dir);
+                    }
+                }
+            }
+            if (overflow) {
+                // events were lost, so assume every file in the directory changed
+                changedFiles.addAll(getIncludedFilesIn(dir));
+                changedFiles.add(dir);
+            }
+            invalidate(include -> changedFiles.contains(include.relativeCandidate) || changedFiles.contains(include.candidate));
+            dependents = getDependents(changedFiles);
+        }
+        notifyDependents(dependents);
+    }
+
+    @Override
+    public void onDirectoryInvalid(Path dir) {
+        Set<String> dependents;
+        synchronized (this) {
+            watchedDirs.remove(dir);
+            Set<Path> includedFiles = getIncludedFilesIn(dir);
+            invalidate(include -> includedFiles.contains(include.relativeCandidate) || includedFiles.contains(include.candidate));
+            dependents = getDependents(includedFiles);
+        }
+        notifyDependents(dependents);
+    }
+
+    private boolean watch(Path dir) {
+        if (dir == null || closed) {
+            return false;
+        }
+        if (watchedDirs.contains(dir)) {
+            return true;
+        }
+        try {
+            DirectoryWatchService.getInstance().register(dir, this, this);
+            watchedDirs.add(dir);
+            return true;
+        } catch (IOException e) {
+            // usually the directory does not exist, the location is resolved again on every pass
+            LOGGER.finest("Unable to watch included files in %s: %s".formatted(dir, e.getMessage()));
+            return false;
+        }
+    }
+
+    private void releaseUnusedDirs() {
+        // the directories resolve watches: those of both candidates, and the candidates themselves for included directories
+        Set<Path> neededDirs = new HashSet<Path>();
+        for (Map<String, Include> parentIncludes : includes.values()) {
+            for (Include include : parentIncludes.values()) {
+                neededDirs.add(include.relativeCandidate);
+                neededDirs.add(include.relativeCandidate.getParent());
+                neededDirs.add(include.candidate);
+                neededDirs.add(include.candidate.getParent());
+            }
+        }
+        Iterator<Path> iterator = watchedDirs.iterator();
+        while (iterator.hasNext()) {
+            Path dir = iterator.next();
+            if (!neededDirs.contains(dir)) {
+                iterator.remove();
+                DirectoryWatchService.getInstance().unregister(dir, this);
+            }
+        }
+    }
+
+    private void invalidate(Predicate<Include> changed) {
+        for (Map<String, Include> parentIncludes : includes.values()) {
+            for (Include include : parentIncludes.values()) {
+                if (changed.test(include)) {
+                    include.resolved = null;
+                }
+            }
+        }
+    }
+
+    private Set<Path> getIncludedFilesIn(Path dir) {
+        Set<Path> files = new HashSet<Path>();
+        for (Path file : includedBy.keySet()) {
+            if (dir.equals(file.getParent())) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    private Set<String> getDependents(Set<Path> files) {
+        Set<String> dependents = new HashSet<String>();
+        Deque<Path> pending = new ArrayDeque<Path>(files);
+        while (!pending.isEmpty()) {
+            Set<String> parents = includedBy.get(pending.pop());
+            if (parents == null) {
+                continue;
+            }
+            for (String parent : parents) {
+                if (dependents.add(parent)) {
+                    pending.push(Path.of(parent));
+                }
+            }
+        }
+        return dependents;
+    }
+
+    private void removeIncludedBy(String parent, Path file) {
+        Set<String> parents = includedBy.get(file);
+        if (parents == null) {
+            return;
+        }
+        // the same file can be a candidate of another location of the same parent
+        boolean stillIncluded = includes.getOrDefault(parent, Collections.emptyMap()).values().stream()
+                .anyMatch(include -> include.resolvesTo(file));
+        if (!stillIncluded) {
+            parents.remove(parent);
+            if (parents.isEmpty()) {
+                includedBy.remove(file);
+            }
+        }
+    }
+
+    private static void notifyDependents(Set<String> dependents) {
+        if (!dependents.isEmpty()) {
+            LibertyProjectsManager.getInstance().notifyIncludeDependents(dependents);
+        }
+    }
+}
@@ -13,21 +13,30 @@
 package io.openliberty.tools.langserver.lemminx.services;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Map;
 import java.util.Set;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import io.openliberty.tools.langserver.lemminx.util.LibertyUtils;
+import io.openliberty.tools.langserver.lemminx.util.ServerRootXmlIndex;
 
 import org.eclipse.lsp4j.WorkspaceFolder;
 
@@ -39,7 +48,15 @@ public class LibertyProjectsManager {
 
     private static final Set<String> SRC_AND_BUILD_DIRS = Stream.of("target", "build", "src").collect(Collectors.toCollection(HashSet::new));
 
-    private Map<String, LibertyWorkspace> libertyWorkspaceFolders;
+    // replaced as a whole, and together with workspaceLookup while holding this, but never modified once published
+    private volatile Map<String, LibertyWorkspace> libertyWorkspaceFolders;
+    // serializes the updates of libertyWorkspaceFolders, which scan the file system, without blocking lookups
+    private final Object updateLock = new Object();
+
+    // document URI to workspace lookups for the current set of workspaces, null when the set changes
+    private volatile WorkspaceLookup workspaceLookup;
+
+    private final List<Consumer<Set<String>>> includeDependentsListeners = new CopyOnWriteArrayList<Consumer<Set<String>>>();
 
     public static LibertyProjectsManager getInstance() {
         return INSTANCE;
@@ -50,6 +67,45 @@ public class LibertyProjectsManager {
     }
 
     public void setWorkspaceFolders(List<WorkspaceFolder> workspaceFolders) {
+        synchronized (updateLock) {
+            Map<String, LibertyWorkspace> folders = new HashMap<String, LibertyWorkspace>(libertyWorkspaceFolders);
+            addWorkspaceFolders(folders, workspaceFolders);
+            publishWorkspaceFolders(folders);
+        }
+    }
+
+    /**
+     * Publishes a new set of workspaces and drops the lookups made for the previous set at the same time, so that
+     * a lookup built from the previous set can not be published afterwards.
+     * @param folders
+     */
+    private synchronized void publishWorkspaceFolders(Map<String, LibertyWorkspace> folders) {
+        libertyWorkspaceFolders = folders;
+        workspaceLookup = null;
+    }
+
+    private void addWorkspaceFolders(Map<String, LibertyWorkspace> folders, List<WorkspaceFolder> workspaceFolders) {
+        // Searching a folder for xml files with a <server> root element is the slow part, so start the search for
+        // every new folder up front and let them run at the same time. The folders are still added in order below.
+        Map<String, CompletableFuture<List<Path>>> serverXmlSearches = new HashMap<String, CompletableFuture<List<Path>>>();
+        for (WorkspaceFolder folder : workspaceFolders) {
+            String normalizedUriString = folder.getUri().replace("///", "/");
+            if (!folders.containsKey(normalizedUriString)) {
+                serverXmlSearches.computeIfAbsent(normalizedUriString, uri -> CompletableFuture.supplyAsync(() -> {
+                    try {
+                        // reuse the results of the previous session for files that have not changed since
+                        Path workspacePath = Paths.get(URI.create(uri));
+                        ServerRootXmlIndex index = ServerRootXmlIndex.load(workspacePath);
+                        List<Path> serverXmlFiles = LibertyUtils.getXmlFilesWithServerRootInDirectory(workspacePath, index);
+                        index.save();
+                        return serverXmlFiles;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+            }
+        }
+
         for (WorkspaceFolder folder : workspaceFolders) {
             // Add logic here to see if child folders are sub-modules in a multi-module project.
             // If child folder is a Liberty project (has any xml files with a <server> root element),
@@ -58,7 +114,7 @@ public class LibertyProjectsManager {
             String workspaceUriString = folder.getUri();
             String normalizedUriString = workspaceUriString.replace("///", "/");
 
-            if (this.libertyWorkspaceFolders.containsKey(normalizedUriString)) {
+            if (folders.containsKey(normalizedUriString)) {
                 LOGGER.info("Skipping already added Liberty workspace: " + normalizedUriString);
                 continue;
             }
@@ -70,15 +126,16 @@ public class LibertyProjectsManager {
             List<Path> serverXmlFiles = null;
 
             try {
-                serverXmlFiles = LibertyUtils.getXmlFilesWithServerRootInDirectory(workspacePath);
+                serverXmlFiles = serverXmlSearches.get(normalizedUriString).join();
             } catch (Exception e) {
-                LOGGER.warning("Received exception while searching for xml files with a <server> root element in: " + workspacePath + ": " + e.getMessage());
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                LOGGER.warning("Received exception while searching for xml files with a <server> root element in: " + workspacePath + ": " + cause.getMessage());
             }
 
             if ((serverXmlFiles == null) || serverXmlFiles.isEmpty() || (serverXmlFiles.size() == 1)) {
                 LOGGER.info("Adding Liberty workspace: " + normalizedUriString);
                 LibertyWorkspace libertyWorkspace = new LibertyWorkspace(normalizedUriString);
-                this.libertyWorkspaceFolders.put(normalizedUriString, libertyWorkspace);
+                folders.put(normalizedUriString, libertyWorkspace);
             } else {
                 LOGGER.info("Checking Liberty workspace for sub-modules: " + normalizedUriString);
                 boolean addedSubModule = false;
@@ -98,7 +155,7 @@ public class LibertyProjectsManager {
                         if (nextChildDir.equals(workspacePath)) {
                             LOGGER.info("Skipping parent module: " + lastChildDirPath);
                             continue; // skip parent module
-                        } else if (this.libertyWorkspaceFolders.containsKey(lastChildDirPath)) {
+                        } else if (folders.containsKey(lastChildDirPath)) {
                             // this sub-module was already added but we still don't want to add the parent module
                             LOGGER.info("Skipping already added sub-module: " + lastChildDirPath);
                             addedSubModule = true; 
@@ -109,7 +166,7 @@ public class LibertyProjectsManager {
                             // Since we already found all server root xml files earlier, just check if any start with this path.
                             if (LibertyUtils.containsFileStartingWithRootPath(nextChildDir, serverXmlFiles)) {
                                 LibertyWorkspace libertyWorkspace = new LibertyWorkspace(lastChildDirPath);
-                                this.libertyWorkspaceFolders.put(lastChildDirPath, libertyWorkspace);
+                                folders.put(lastChildDirPath, libertyWorkspace);
                                 addedSubModule = true;
                                 LOGGER.info("Adding Liberty workspace for sub-module: " + lastChildDirPath);
                             }
@@ -121,7 +178,7 @@ public class LibertyProjectsManager {
 
                 if (!addedSubModule) {
                     LibertyWorkspace libertyWorkspace = new LibertyWorkspace(normalizedUriString);
-                    this.libertyWorkspaceFolders.put(normalizedUriString, libertyWorkspace);
+                    folders.put(normalizedUriString, libertyWorkspace);
                     LOGGER.info("Adding Liberty workspace by default: " + normalizedUriString);
                 }
             }
@@ -143,21 +200,15 @@ public class LibertyProjectsManager {
      * @return
      */
     public LibertyWorkspace getWorkspaceFolder(String serverXMLUri) {
-        // Need to ensure the closest match is returned. A parent workspace can match the contains method below, but the variables
-        // for that workspace can be stored in the child workspace.
-        LibertyWorkspace matchingWorkspace = null;
         String normalizeUri = serverXMLUri.replace("///", "/");
-        for (LibertyWorkspace folder : getInstance().getLibertyWorkspaceFolders()) {
-            //Append workspaceString with file separator to avoid bad matches
-            if (normalizeUri.contains(folder.getWorkspaceStringWithTrailingSlash())) {
-                if (matchingWorkspace != null) {
-                    if (folder.getWorkspaceStringWithTrailingSlash().length() > matchingWorkspace.getWorkspaceStringWithTrailingSlash().length()) {
-                        // this one is a closer match so use it instead
-                        matchingWorkspace = folder;
-                    }
-                } else {
-                    matchingWorkspace = folder;
-                }
+        // workspace URIs end with a slash, so every file in a directory resolves to the same workspace
+        String normalizeDirUri = normalizeUri.substring(0, normalizeUri.lastIndexOf('/') + 1);
+        WorkspaceLookup lookup = getWorkspaceLookup();
+        LibertyWorkspace matchingWorkspace = lookup.workspacesByDirUri.get(normalizeDirUri);
+        if (matchingWorkspace == null) {
+            matchingWorkspace = lookup.findWorkspace(normalizeDirUri);
+            if (matchingWorkspace != null) {
+                lookup.workspacesByDirUri.put(normalizeDirUri, matchingWorkspace);
             }
         }
 
@@ -169,6 +220,68 @@ public class LibertyProjectsManager {
         return matchingWorkspace;
     }
 
+    private WorkspaceLookup getWorkspaceLookup() {
+        WorkspaceLookup lookup = workspaceLookup;
+        if (lookup == null) {
+            synchronized (this) {
+                lookup = workspaceLookup;
+                if (lookup == null) {
+                    lookup = new WorkspaceLookup(libertyWorkspaceFolders.values());
+                    workspaceLookup = lookup;
+                }
+            }
+        }
+        return lookup;
+    }
+
+    /**
+     * Resolves document directory URIs to workspaces for one set of workspaces. A new lookup is created whenever
+     * the set changes, so the resolved URIs never outlive the workspaces they were resolved against.
+     */
+    private static class WorkspaceLookup {
+        // longest workspace URI first, so the first match is the closest one
+        private final List<LibertyWorkspace> workspaces;
+        // keyed by directory rather than by document, so it grows with the directories of the workspaces only
+        private final Map<String, LibertyWorkspace> workspacesByDirUri = new ConcurrentHashMap<String, LibertyWorkspace>();
+
+        WorkspaceLookup(Collection<LibertyWorkspace> workspaces) {
+            this.workspaces = new ArrayList<LibertyWorkspace>(workspaces);
+            this.workspaces.removeIf(workspace -> workspace.getWorkspaceStringWithTrailingSlash() == null);
+            this.workspaces.sort(Comparator.comparingInt((LibertyWorkspace workspace) -> workspace.getWorkspaceStringWithTrailingSlash().length()).reversed());
+        }
+
+        LibertyWorkspace findWorkspace(String normalizeUri) {
+            // Need to ensure the closest match is returned. A parent workspace can match the contains method below, but the variables
+            // for that workspace can be stored in the child workspace.
+            for (LibertyWorkspace folder : workspaces) {
+                //Append workspaceString with file separator to avoid bad matches
+                if (normalizeUri.contains(folder.getWorkspaceStringWithTrailingSlash())) {
+                    return folder;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Registers a listener that is called with the paths of the config files that include a file that was
+     * created, changed or deleted, as recorded in the IncludeGraph of their workspace.
+     * @param listener
+     */
+    public void addIncludeDependentsListener(Consumer<Set<String>> listener) {
+        includeDependentsListeners.add(listener);
+    }
+
+    public void removeIncludeDependentsListener(Consumer<Set<String>> listener) {
+        includeDependentsListeners.remove(listener);
+    }
+
+    void notifyIncludeDependents(Set<String> dependents) {
+        for (Consumer<Set<String>> listener : includeDependentsListeners) {
+            listener.accept(dependents);
+        }
+    }
+
     public void cleanUpTempDirs() {
         for (LibertyWorkspace folder : getInstance().getLibertyWorkspaceFolders()) {
             // search for liberty ls directory
@@ -194,6 +307,14 @@ public class LibertyProjectsManager {
     }
 
     public void cleanInstance() {
-        libertyWorkspaceFolders = new HashMap<String, LibertyWorkspace>();
+        synchronized (updateLock) {
+            Map<String, LibertyWorkspace> folders = libertyWorkspaceFolders;
+            publishWorkspaceFolders(new HashMap<String, LibertyWorkspace>());
+            for (LibertyWorkspace folder : folders.values()) {
+                FeatureService.getInstance().releaseSharedFeatureList(folder);
+                DirectoryWatchService.getInstance().unregister(folder);
+                folder.getIncludeGraph().close();
+            }
+        }
     }
 }
@@ -44,6 +44,8 @@ public class LibertyWorkspace {
     private FeaturesAndPlatforms installedFeaturesAndPlatformsList;
     private String libertyInstallationDir;
     private FeatureListGraph featureListGraph;
+    private final IncludeGraph includeGraph;
+    private final EffectiveConfigBuilder effectiveConfigBuilder;
 
     // devc vars
     private String containerName;
@@ -68,6 +70,8 @@ public class LibertyWorkspace {
         this.containerType = "docker";
         this.containerAlive = false;
         this.featureListGraph = new FeatureListGraph();
+        this.includeGraph = new IncludeGraph();
+        this.effectiveConfigBuilder = new EffectiveConfigBuilder(includeGraph);
     }
 
     public String getWorkspaceString() {
@@ -262,4 +266,18 @@ public class LibertyWorkspace {
         return useFeatureListGraph;
     }
 
+    /**
+     * @return the include dependencies of the config files in this workspace
+     */
+    public IncludeGraph getIncludeGraph() {
+        return includeGraph;
+    }
+
+    /**
+     * @return the builder of the effective configuration of the config files in this workspace
+     */
+    public EffectiveConfigBuilder getEffectiveConfigBuilder() {
+        return effectiveConfigBuilder;
+    }
+
 }
@@ -12,10 +12,9 @@
 *******************************************************************************/
 package io.openliberty.tools.langserver.lemminx.services;
 
-import io.openliberty.tools.common.plugins.config.ServerConfigDocument;
-import io.openliberty.tools.langserver.lemminx.util.CommonLogger;
 import io.openliberty.tools.langserver.lemminx.util.LibertyUtils;
 import io.openliberty.tools.langserver.lemminx.util.ResourceBundleUtil;
+import io.openliberty.tools.langserver.lemminx.util.ServerVariableIndex;
 import org.eclipse.lemminx.utils.JSONUtility;
 import io.openliberty.tools.langserver.lemminx.models.settings.*;
 import org.eclipse.lsp4j.InitializeParams;
@@ -24,6 +23,7 @@ import java.io.File;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 import static io.openliberty.tools.langserver.lemminx.util.LibertyUtils.findFileInWorkspace;
@@ -42,6 +42,8 @@ public class SettingsService {
 
     // default request delay is 10 seconds
     private static int DEFAULT_REQUEST_DELAY = 10;
+    // default delay after the last file change before variables are updated is 500 milliseconds
+    private static int DEFAULT_FILE_WATCH_DELAY = 500;
     private static final Logger LOGGER = Logger.getLogger(SettingsService.class.getName());
 
     private SettingsService() {
@@ -49,7 +51,11 @@ public class SettingsService {
 
     private LibertySettings settings;
 
-    private Map<String,Properties> variables;
+    // workspace -> variables. Replaced as a whole when all workspaces are populated, so readers never see a partly
+    // populated map, and updated per workspace by the file watchers.
+    private volatile Map<String,Properties> variables;
+    // workspace -> parsed variable source files, so that an update only parses the files that changed
+    private final Map<String,ServerVariableIndex> variableIndexes = new ConcurrentHashMap<>();
     private Locale currentLocale = Locale.getDefault();
     private boolean configCopiedToServer = false;
     private String latestRuntimeVersion;
@@ -85,24 +91,48 @@ public class SettingsService {
         return DEFAULT_REQUEST_DELAY;
     }
 
+    public int getFileWatchDelay() {
+        if (settings != null) {
+            int fileWatchDelay = settings.getFileWatchDelay();
+            if (fileWatchDelay > 0) {
+                return fileWatchDelay;
+            }
+        }
+
+        return DEFAULT_FILE_WATCH_DELAY;
+    }
+
     /**
      * populate all variables for all available workspace folders
      *
      * @param workspaceFolders workspace folders
      */
     public void populateAllVariables(Collection<LibertyWorkspace> workspaceFolders) {
-        variables = new HashMap<>();
+        Map<String,Properties> allVariables = new ConcurrentHashMap<>();
         for (LibertyWorkspace workspace : workspaceFolders) {
-            populateVariablesForWorkspace(workspace);
+            allVariables.put(workspace.getWorkspaceString(), readVariablesForWorkspace(workspace));
         }
+        variableIndexes.keySet().retainAll(allVariables.keySet());
+        variables = allVariables;
     }
 
     /**
-     * read all variables from workspace directories
+     * read all variables from workspace directories, only the files that changed since they were last read are parsed again
      *
      * @param workspace workspace
      */
     public void populateVariablesForWorkspace(LibertyWorkspace workspace) {
+        Properties variablesForWorkspace = readVariablesForWorkspace(workspace);
+        Map<String,Properties> currentVariables = variables;
+        if (currentVariables == null) {
+            // not populated yet, populateAllVariables reads this workspace as well
+            return;
+        }
+        // the properties are read completely before they replace the previous ones
+        currentVariables.put(workspace.getWorkspaceString(), variablesForWorkspace);
+    }
+
+    private Properties readVariablesForWorkspace(LibertyWorkspace workspace) {
         Properties variablesForWorkspace = new Properties();
         Path pluginConfigFilePath = findFileInWorkspace(workspace, Paths.get("liberty-plugin-config.xml"));
         if (pluginConfigFilePath != null) {
@@ -112,10 +142,8 @@ public class SettingsService {
             File serverOutputDirectory = LibertyUtils.getFileFromLibertyPluginXml(pluginConfigFilePath, "serverOutputDirectory");
             if (serverDirectory != null && installDirectory != null && userDirectory != null && serverOutputDirectory !=null) {
                 try {
-                    ServerConfigDocument serverConfigDocument = new ServerConfigDocument(
-                            new CommonLogger(LOGGER), null, installDirectory, userDirectory, serverDirectory, serverOutputDirectory);
-                    variablesForWorkspace.putAll(serverConfigDocument.getDefaultProperties());
-                    variablesForWorkspace.putAll(serverConfigDocument.getProperties());
+                    ServerVariableIndex variableIndex = variableIndexes.computeIfAbsent(workspace.getWorkspaceString(), w -> new ServerVariableIndex());
+                    variablesForWorkspace.putAll(variableIndex.readVariables(installDirectory, userDirectory, serverDirectory, serverOutputDirectory));
                     LOGGER.finest("Populated variables for workspace: " + workspace.getWorkspaceString() + ". Number of variables found: " + variablesForWorkspace.size());
                 } catch (Exception e) {
                     LOGGER.warning("Variable resolution is not available because the necessary directory locations were not found in the liberty-plugin-config.xml file.");
@@ -125,7 +153,7 @@ public class SettingsService {
         } else {
             LOGGER.warning("Could not find liberty-plugin-config.xml in workspace URI " + workspace.getWorkspaceString() + ". Variable resolution cannot be performed");
         }
-        variables.put(workspace.getWorkspaceString(), variablesForWorkspace);
+        return variablesForWorkspace;
     }
 
     /**
@@ -136,15 +164,16 @@ public class SettingsService {
      */
     public Properties getVariablesForServerXml(String serverXmlURI) {
         LibertyWorkspace workspace = LibertyProjectsManager.getInstance().getWorkspaceFolder(serverXmlURI);
-        Properties variableProps = new Properties();
+        Map<String,Properties> currentVariables = variables;
+        Properties variableProps = null;
         if (workspace == null) {
             LOGGER.warning("Could not find workspace for server xml URI %s. Variable resolution cannot be performed.".formatted(serverXmlURI));
-        } else if (variables != null && variables.containsKey(workspace.getWorkspaceString())) {
-            variableProps = variables.get(workspace.getWorkspaceString());
+        } else if (currentVariables != null && (variableProps = currentVariables.get(workspace.getWorkspaceString())) != null) {
+            return variableProps;
         } else {
             LOGGER.warning("Could not find variable mapping for workspace URI %s. Variable resolution cannot be performed.".formatted(workspace.getWorkspaceString()));
         }
-        return variableProps;
+        return new Properties();
     }
 
     public boolean isConfigCopiedToServer() {
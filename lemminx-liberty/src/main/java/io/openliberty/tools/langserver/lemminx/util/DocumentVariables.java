@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.util;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.eclipse.lemminx.dom.DOMDocument;
+import org.eclipse.lemminx.dom.DOMElement;
+import org.eclipse.lemminx.dom.DOMNode;
+
+/**
+ * Variables declared by the &lt;variable&gt; elements of an open server config document, the same elements that
+ * VariableUtility.parseVariables finds with the /server/variable XPath.
+ *
+ * The elements are collected once per version of a document. The variables that a document added to the
+ * workspace variables are remembered, so the next version only adds, changes or removes the variables whose
+ * declarations changed, and variables read from the server config files are never overwritten.
+ */
+public class DocumentVariables {
+
+    private static final String VARIABLE_ELEMENT = "variable";
+    private static final String SERVER_ELEMENT = "server";
+
+    // document URI -> variables of the latest version of the document, guarded by itself
+    private static final Map<String, DocumentVariables> documentVariables = new HashMap<String, DocumentVariables>();
+
+    private final int version;
+    // the text is compared by identity, it is not kept alive after the document was changed or closed
+    private final WeakReference<String> text;
+    // declared values, which take precedence over declared default values
+    private final Map<String, String> declaredVariables;
+    // workspace variables the added variables were put in, and the values that were added
+    private final WeakReference<Properties> workspaceVariables;
+    private final Map<String, String> addedVariables;
+
+    private DocumentVariables(int version, String text, Map<String, String> declaredVariables, Properties workspaceVariables,
+            Map<String, String> addedVariables) {
+        this.version = version;
+        this.text = new WeakReference<String>(text);
+        this.declaredVariables = declaredVariables;
+        this.workspaceVariables = new WeakReference<Properties>(workspaceVariables);
+        this.addedVariables = addedVariables;
+    }
+
+    /**
+     * Adds the variables declared in the document that the workspace variables do not have, and updates or removes
+     * the ones it added for a previous version of the document.
+     *
+     * @param document server config document
+     * @param workspaceVariables variables of the workspace, updated in place
+     */
+    public static void addToWorkspaceVariables(DOMDocument document, Properties workspaceVariables) {
+        int version = document.getTextDocument().getVersion();
+        String text = document.getText();
+        synchronized (documentVariables) {
+            DocumentVariables previous = documentVariables.get(document.getDocumentURI());
+            boolean sameText = previous != null && previous.version == version && previous.text.get() == text;
+            boolean sameWorkspaceVariables = previous != null && previous.workspaceVariables.get() == workspaceVariables;
+            if (sameText && sameWorkspaceVariables) {
+                return;
+            }
+            Map<String, String> declared = sameText ? previous.declaredVariables : collect(document);
+            Map<String, String> added = sameWorkspaceVariables ? new HashMap<String, String>(previous.addedVariables) : new HashMap<String, String>();
+
+            added.entrySet().removeIf(variable -> {
+                if (declared.containsKey(variable.getKey())) {
+                    return false;
+                }
+                workspaceVariables.remove(variable.getKey(), variable.getValue());
+                return true;
+            });
+            for (Map.Entry<String, String> variable : declared.entrySet()) {
+                String name = variable.getKey();
+                String addedValue = added.get(name);
+                if (addedValue != null ? !addedValue.equals(variable.getValue()) : !workspaceVariables.containsKey(name)) {
+                    workspaceVariables.put(name, variable.getValue());
+                    added.put(name, variable.getValue());
+                }
+            }
+            documentVariables.put(document.getDocumentURI(), new DocumentVariables(version, text, declared, workspaceVariables, added));
+        }
+    }
+
+    /**
+     * Forgets the variables of a document when it is closed. The variables it added stay in the workspace
+     * variables until they are read again.
+     * @param documentURI
+     */
+    public static void documentClosed(String documentURI) {
+        synchronized (documentVariables) {
+            documentVariables.remove(documentURI);
+        }
+    }
+
+    /**
+     * Walks the children of the server element once.
+     * @param document
+     * @return declared variables, a value overrides a default value
+     */
+    private static Map<String, String> collect(DOMDocument document) {
+        Map<String, String> defaultValues = new HashMap<String, String>();
+        Map<String, String> values = new HashMap<String, String>();
+        DOMElement root = document.getDocumentElement();
+        if (root == null || !SERVER_ELEMENT.equals(root.getNodeName())) {
+            return values;
+        }
+        for (DOMNode node : root.getChildren()) {
+            if (!node.isElement() || !VARIABLE_ELEMENT.equals(node.getNodeName())) {
+                continue;
+            }
+            String name = node.getAttribute("name");
+            if (name == null || name.isEmpty()) {
+                continue;
+            }
+            String value = node.getAttribute("value");
+            if (value != null) {
+                values.put(name, value);
+            }
+            String defaultValue = node.getAttribute("defaultValue");
+            if (defaultValue != null) {
+                defaultValues.put(name, defaultValue);
+            }
+        }
+        defaultValues.putAll(values);
+        return defaultValues;
+    }
+}
@@ -0,0 +1,260 @@
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.util;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+import io.openliberty.tools.langserver.lemminx.data.FeatureListGraph;
+
+/**
+ * Persistent cache of the features json files downloaded from Maven Central and the feature list files
+ * generated with ws-featurelist.jar, stored per runtime and version under the .lemminx cache directory.
+ * This lets the language server reuse them after a restart without any network calls or subprocesses.
+ *
+ * Each cached file has a properties file next to it that records the checksum of the file. A cached feature
+ * list also records a fingerprint of the features installed in the Liberty runtime it was generated from,
+ * so that it is generated again when features are installed or removed.
+ *
+ * The graph of a downloaded feature list xml is cached as a FeatureListGraph snapshot, which records the
+ * checksum of the xml it was built from, so the xml is only parsed again when it changes.
+ */
+public class FeatureCacheUtil {
+    private static final Logger LOGGER = Logger.getLogger(FeatureCacheUtil.class.getName());
+
+    private static final String CHECKSUM_PROPERTY = "checksum";
+    private static final String RUNTIME_FINGERPRINT_PROPERTY = "runtimeFingerprint";
+    private static final String SOURCE_CHECKSUM_PROPERTY = "sourceChecksum";
+
+    private FeatureCacheUtil() {
+    }
+
+    /**
+     * @return the directory holding the cached feature files
+     */
+    public static Path getCacheDir() {
+        return LibertyVersionDownloadUtil.getLibertyLsCacheDir().resolve("features");
+    }
+
+    /**
+     * Returns the cached features json for a runtime version, or null if it is not cached or fails validation.
+     * @param libertyRuntime ol or wlp
+     * @param libertyVersion
+     * @return
+     */
+    public static Path getCachedFeaturesJson(String libertyRuntime, String libertyVersion) {
+        return getCachedFile(getCacheDir().resolve("features-" + libertyRuntime + "-" + libertyVersion + ".json"), RUNTIME_FINGERPRINT_PROPERTY, null);
+    }
+
+    /**
+     * Copies a features json downloaded from Maven Central to the cache.
+     * @return the cached file, or null if it could not be cached
+     */
+    public static Path cacheFeaturesJson(String libertyRuntime, String libertyVersion, File featuresJsonFile) {
+        return cacheFile(featuresJsonFile, getCacheDir().resolve("features-" + libertyRuntime + "-" + libertyVersion + ".json"), RUNTIME_FINGERPRINT_PROPERTY, null);
+    }
+
+    /**
+     * Returns the cached feature list generated for a runtime version and locale, or null if it is not cached,
+     * fails validation, or was generated from a runtime with different installed features.
+     * @param runtimeFingerprint see getRuntimeFingerprint
+     */
+    public static Path getCachedFeatureList(String libertyRuntime, String libertyVersion, String locale, String runtimeFingerprint) {
+        return getCachedFile(getFeatureListCacheFile(libertyRuntime, libertyVersion, locale), RUNTIME_FINGERPRINT_PROPERTY, runtimeFingerprint);
+    }
+
+    /**
+     * Copies a generated feature list to the cache.
+     * @return the cached file, or null if it could not be cached
+     */
+    public static Path cacheFeatureList(String libertyRuntime, String libertyVersion, String locale, String runtimeFingerprint, File featureListFile) {
+        return cacheFile(featureListFile, getFeatureListCacheFile(libertyRuntime, libertyVersion, locale), RUNTIME_FINGERPRINT_PROPERTY, runtimeFingerprint);
+    }
+
+    private static Path getFeatureListCacheFile(String libertyRuntime, String libertyVersion, String locale) {
+        return getCacheDir().resolve("featurelist-" + libertyRuntime + "-" + libertyVersion + "-" + locale + ".xml");
+    }
+
+    /**
+     * Returns the cached graph of a feature list xml, or null if it is not cached, fails validation, or was
+     * built from a different version of the xml.
+     * @param featureListXml downloaded feature list xml, whose name holds its version and locale
+     */
+    public static FeatureListGraph getCachedFeatureListGraph(Path featureListXml) {
+        try {
+            Path cachedSnapshot = getCachedFile(getFeatureListGraphCacheFile(featureListXml), SOURCE_CHECKSUM_PROPERTY,
+                    Long.toHexString(checksum(featureListXml.toFile())));
+            if (cachedSnapshot == null) {
+                return null;
+            }
+            // the snapshot was validated from the same bytes, it is decoded from memory
+            byte[] snapshot = Files.readAllBytes(cachedSnapshot);
+            return FeatureListGraph.readSnapshot(new DataInputStream(new ByteArrayInputStream(snapshot)));
+        } catch (IOException e) {
+            LOGGER.warning("Unable to read cached feature list graph for " + featureListXml + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Caches the graph built from a feature list xml as a snapshot.
+     * @return the cached snapshot, or null if it could not be cached
+     */
+    public static Path cacheFeatureListGraph(Path featureListXml, FeatureListGraph featureListGraph) {
+        Path cachedSnapshot = getFeatureListGraphCacheFile(featureListXml);
+        Path snapshotFile = null;
+        try {
+            Files.createDirectories(cachedSnapshot.getParent());
+            snapshotFile = Files.createTempFile(cachedSnapshot.getParent(), cachedSnapshot.getFileName().toString(), ".snapshot");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(snapshotFile)))) {
+                featureListGraph.writeSnapshot(out);
+            }
+            return cacheFile(snapshotFile.toFile(), cachedSnapshot, SOURCE_CHECKSUM_PROPERTY, Long.toHexString(checksum(featureListXml.toFile())));
+        } catch (IOException e) {
+            LOGGER.warning("Unable to cache feature list graph for " + featureListXml + ": " + e.getMessage());
+            return null;
+        } finally {
+            if (snapshotFile != null) {
+                try {
+                    Files.deleteIfExists(snapshotFile);
+                } catch (IOException e) {
+                    LOGGER.fine("Unable to delete " + snapshotFile + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static Path getFeatureListGraphCacheFile(Path featureListXml) {
+        String fileName = featureListXml.getFileName().toString();
+        if (fileName.endsWith(".xml")) {
+            fileName = fileName.substring(0, fileName.length() - ".xml".length());
+        }
+        return getCacheDir().resolve(fileName + ".bin");
+    }
+
+    /**
+     * Returns a fingerprint of the features installed in a Liberty runtime, computed from the names, sizes and
+     * last modified times of the feature manifests. Reading the manifest directories is much cheaper than
+     * running ws-featurelist.jar.
+     * @param installDir Liberty installation directory (wlp)
+     * @return the fingerprint, or null if there are no feature manifests in the installation
+     */
+    public static String getRuntimeFingerprint(Path installDir) {
+        CRC32 crc = new CRC32();
+        boolean foundFeatures = false;
+        for (Path featuresDir : Arrays.asList(installDir.resolve("lib").resolve("features"),
+                installDir.resolve("usr").resolve("extension").resolve("lib").resolve("features"))) {
+            File[] manifests = featuresDir.toFile().listFiles((dir, name) -> name.endsWith(".mf"));
+            if (manifests == null) {
+                continue;
+            }
+            Arrays.sort(manifests);
+            for (File manifest : manifests) {
+                crc.update((manifest.getName() + ":" + manifest.length() + ":" + manifest.lastModified() + "\n").getBytes(StandardCharsets.UTF_8));
+                foundFeatures = true;
+            }
+        }
+        return foundFeatures ? Long.toHexString(crc.getValue()) : null;
+    }
+
+    /**
+     * Computes the CRC32 checksum of a file.
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static long checksum(File file) throws IOException {
+        try (CheckedInputStream in = new CheckedInputStream(new FileInputStream(file), new CRC32())) {
+            byte[] buffer = new byte[8192];
+            while (in.read(buffer) != -1) {
+                // reading updates the checksum
+            }
+            return in.getChecksum().getValue();
+        }
+    }
+
+    /**
+     * @param fingerprintProperty property that records what the cached file was created from
+     * @param fingerprint expected value of the property, or null if it is not checked
+     */
+    private static Path getCachedFile(Path cachedFile, String fingerprintProperty, String fingerprint) {
+        Path propertiesFile = getPropertiesFile(cachedFile);
+        if (!Files.exists(cachedFile) || !Files.exists(propertiesFile)) {
+            return null;
+        }
+        try {
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(propertiesFile)) {
+                properties.load(in);
+            }
+            if (fingerprint != null && !fingerprint.equals(properties.getProperty(fingerprintProperty))) {
+                LOGGER.info("Cached file " + cachedFile + " was created from different " + (RUNTIME_FINGERPRINT_PROPERTY.equals(fingerprintProperty)
+                        ? "installed features" : "contents"));
+                return null;
+            }
+            if (!Long.toHexString(checksum(cachedFile.toFile())).equals(properties.getProperty(CHECKSUM_PROPERTY))) {
+                LOGGER.warning("Ignoring cached file " + cachedFile + " because its checksum does not match");
+                return null;
+            }
+            return cachedFile;
+        } catch (IOException e) {
+            LOGGER.warning("Unable to read cached file " + cachedFile + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Path cacheFile(File file, Path cachedFile, String fingerprintProperty, String fingerprint) {
+        try {
+            Files.createDirectories(cachedFile.getParent());
+            Properties properties = new Properties();
+            properties.setProperty(CHECKSUM_PROPERTY, Long.toHexString(checksum(file)));
+            if (fingerprint != null) {
+                properties.setProperty(fingerprintProperty, fingerprint);
+            }
+            // write to temporary files and move them into place, since another language server may be reading the cache
+            Path tempFile = Files.createTempFile(cachedFile.getParent(), cachedFile.getFileName().toString(), ".tmp");
+            Path tempPropertiesFile = Files.createTempFile(cachedFile.getParent(), cachedFile.getFileName().toString(), ".tmp");
+            Files.copy(file.toPath(), tempFile, StandardCopyOption.REPLACE_EXISTING);
+            try (OutputStream out = Files.newOutputStream(tempPropertiesFile)) {
+                properties.store(out, null);
+            }
+            Files.move(tempFile, cachedFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(tempPropertiesFile, getPropertiesFile(cachedFile), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOGGER.info("Cached " + file + " at " + cachedFile);
+            return cachedFile;
+        } catch (IOException e) {
+            LOGGER.warning("Unable to cache " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Path getPropertiesFile(Path cachedFile) {
+        return cachedFile.resolveSibling(cachedFile.getFileName() + ".properties");
+    }
+}
@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+import javax.xml.stream.XMLStreamException;
+
+import io.openliberty.tools.langserver.lemminx.data.FeatureListGraph;
+import io.openliberty.tools.langserver.lemminx.models.feature.FeatureInfo;
+import io.openliberty.tools.langserver.lemminx.services.FeatureService;
+
+/**
+ * Pre-compiles the bundled featurelist-cached xml files to binary FeatureListGraph snapshots, so that
+ * the default feature list does not need to be parsed when the language server starts. Runs as part of
+ * the build, see the exec-maven-plugin configuration in the pom. For each featurelist-cached-*.xml in the
+ * given directory, a .bin file with the same name is written next to it.
+ */
+public class FeatureListSnapshotGenerator {
+    private static final Logger LOGGER = Logger.getLogger(FeatureListSnapshotGenerator.class.getName());
+
+    public static void main(String[] args) throws IOException, XMLStreamException {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Usage: FeatureListSnapshotGenerator <featurelist.cached directory>");
+        }
+        File directory = new File(args[0]);
+        File[] featureListFiles = directory.listFiles((dir, name) -> name.startsWith("featurelist-cached-") && name.endsWith(".xml"));
+        if (featureListFiles == null || featureListFiles.length == 0) {
+            throw new IOException("No featurelist-cached xml files found in " + directory);
+        }
+        Arrays.sort(featureListFiles);
+        for (File featureListFile : featureListFiles) {
+            String name = featureListFile.getName();
+            File snapshotFile = new File(directory, name.substring(0, name.length() - ".xml".length()) + ".bin");
+            generateSnapshot(featureListFile, snapshotFile);
+        }
+    }
+
+    public static void generateSnapshot(File featureListFile, File snapshotFile) throws IOException, XMLStreamException {
+        FeatureInfo featureInfo = XmlReader.readFeatureInfo(featureListFile);
+        if (featureInfo.getFeatures() == null || featureInfo.getFeatures().isEmpty()) {
+            throw new IOException("No features found in " + featureListFile);
+        }
+        FeatureListGraph featureListGraph = FeatureService.buildFeatureListGraph(featureInfo.getFeatures());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(snapshotFile)))) {
+            featureListGraph.writeSnapshot(out);
+        }
+        LOGGER.info("Generated featurelist snapshot " + snapshotFile + " from " + featureListFile);
+    }
+}
@@ -15,27 +15,26 @@ package io.openliberty.tools.langserver.lemminx.util;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
-import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardWatchEventKinds;
-import java.nio.file.WatchKey;
-import java.nio.file.WatchService;
+import java.nio.file.WatchEvent;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
-import io.openliberty.tools.common.plugins.util.VariableUtility;
 import io.openliberty.tools.langserver.lemminx.models.feature.VariableLoc;
 import org.eclipse.lemminx.dom.DOMDocument;
 
@@ -43,6 +42,7 @@ import io.openliberty.tools.langserver.lemminx.data.LibertyRuntime;
 import io.openliberty.tools.langserver.lemminx.models.feature.FeaturesAndPlatforms;
 import io.openliberty.tools.langserver.lemminx.models.settings.DevcMetadata;
 import io.openliberty.tools.langserver.lemminx.services.ContainerService;
+import io.openliberty.tools.langserver.lemminx.services.DirectoryWatchService;
 import io.openliberty.tools.langserver.lemminx.services.LibertyProjectsManager;
 import io.openliberty.tools.langserver.lemminx.services.LibertyWorkspace;
 import io.openliberty.tools.langserver.lemminx.services.SettingsService;
@@ -50,8 +50,6 @@ import org.eclipse.lemminx.dom.DOMNode;
 import org.eclipse.lsp4j.Diagnostic;
 import org.eclipse.lsp4j.Range;
 
-import javax.xml.xpath.XPathExpressionException;
-
 public class LibertyUtils {
 
     private static final Logger LOGGER = Logger.getLogger(LibertyUtils.class.getName());
@@ -61,12 +59,8 @@ public class LibertyUtils {
     private static final String EXCLUDE_PATTERN_REGEX = ".*/(?:target(?!/it/)|build)/.+$";
     private static final Pattern EXCLUDE_PATTERN = Pattern.compile(EXCLUDE_PATTERN_REGEX);
 
-    private static Thread thread;
-
-    //considering ${var} pattern for variable.  do we have other representation for variable?
-    private static final String VAR_PATTERN_REGEX = "\\$\\{(.*?)\\}";
-    // Compile the Regex.
-    private static final Pattern VAR_PATTERN = Pattern.compile(VAR_PATTERN_REGEX);
+    // directories that are not searched for xml files with a <server> root element
+    private static final Set<String> SKIPPED_SCAN_DIRS = Set.of("node_modules", ".git", ".svn", ".hg", ".gradle", ".idea", ".vscode", ".libertyls");
 
     private LibertyUtils() {
     }
@@ -158,22 +152,77 @@ public class LibertyUtils {
 
     /*
      * Retrieve a collection of Path objects for xml files located in the passed Path dir that have a <server> root element.
+     * Directories that never hold Liberty config, such as node_modules and version control metadata, are not searched, and
+     * the candidate files are checked in parallel since most of the time is spent opening them to read the root element.
      * 
      * @param dir Path of directory to check for xml files 
-     * @return List<Path> collection of xml files with server root elements
+     * @return List<Path> collection of xml files with server root elements, in the order they were found
      */
     public static List<Path> getXmlFilesWithServerRootInDirectory(Path dir) throws IOException {
-        List<Path> serverRootXmlFiles = new ArrayList<Path>();
+        return getXmlFilesWithServerRootInDirectory(dir, null);
+    }
+
+    /*
+     * Same as getXmlFilesWithServerRootInDirectory(Path), but files that are recorded in the index with the same last modified
+     * time and size are not opened again. The results for all files found are recorded in the index, which the caller saves.
+     * 
+     * @param dir Path of directory to check for xml files 
+     * @param index results of a previous scan of dir, or null to check every file
+     * @return List<Path> collection of xml files with server root elements, in the order they were found
+     */
+    public static List<Path> getXmlFilesWithServerRootInDirectory(Path dir, ServerRootXmlIndex index) throws IOException {
         String rootPath = dir.toFile().toURI().toString();
 
-        List<Path> xmlFiles = findFilesEndsWithInDirectory(dir, ".xml");
-        for (Path nextXmlFile : xmlFiles) {
-            if (isConfigXMLFile(rootPath, nextXmlFile.toFile().toURI().toString())) {
-                serverRootXmlFiles.add(nextXmlFile);
+        Map<Path, BasicFileAttributes> xmlFiles = findXmlFilesInDirectory(dir);
+        return xmlFiles.keySet().parallelStream()
+                .filter(nextXmlFile -> {
+                    if (index == null) {
+                        return isConfigXMLFile(rootPath, nextXmlFile.toFile().toURI().toString());
+                    }
+                    String relativePath = dir.relativize(nextXmlFile).toString().replace(File.separatorChar, '/');
+                    BasicFileAttributes attrs = xmlFiles.get(nextXmlFile);
+                    long lastModified = attrs.lastModifiedTime().toMillis();
+                    Boolean isConfigFile = index.get(relativePath, lastModified, attrs.size());
+                    if (isConfigFile == null) {
+                        isConfigFile = isConfigXMLFile(rootPath, nextXmlFile.toFile().toURI().toString());
+                        index.put(relativePath, lastModified, attrs.size(), isConfigFile);
+                    }
+                    return isConfigFile;
+                })
+                .collect(Collectors.toList());
+    }
+
+    /*
+     * Walk the dir path for files ending with .xml, skipping the subtrees of directories named in SKIPPED_SCAN_DIRS.
+     * Unreadable files and directories are skipped instead of failing the whole walk.
+     * Returns the files with their attributes, in the order they were found.
+     */
+    private static Map<Path, BasicFileAttributes> findXmlFilesInDirectory(Path dir) throws IOException {
+        Map<Path, BasicFileAttributes> xmlFiles = new LinkedHashMap<Path, BasicFileAttributes>();
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path nextDir, BasicFileAttributes attrs) {
+                if (!nextDir.equals(dir) && nextDir.getFileName() != null && SKIPPED_SCAN_DIRS.contains(nextDir.getFileName().toString())) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile() && file.getFileName().toString().toLowerCase().endsWith(".xml")) {
+                    xmlFiles.put(file, attrs);
+                }
+                return FileVisitResult.CONTINUE;
             }
-        }       
 
-        return serverRootXmlFiles;
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                LOGGER.fine("Skipping " + file + " while searching for xml files: " + e.getMessage());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return xmlFiles;
     }
 
     /**
@@ -498,10 +547,10 @@ public class LibertyUtils {
     }
 
     /**
-     * Watches the parent directory of the Liberty properties file in a separate
-     * thread or actively watches a liberty-devc-metadata file. If the the contents 
-     * have been modified or deleted, the installation of Liberty has changed and 
-     * the corresponding Liberty Workspace item is updated.
+     * Watches the parent directory of the Liberty properties file or a liberty-devc-metadata
+     * file with the shared DirectoryWatchService. If the the contents have been modified or
+     * deleted, the installation of Liberty has changed and the corresponding Liberty Workspace
+     * item is updated. Any file watched earlier for the workspace is no longer watched.
      * 
      * @param watchFile        openliberty.properties or *-liberty-devc.metadata.xml to watch
      * @param libertyWorkspace Liberty Workspace object, updated to indicate if
@@ -509,48 +558,39 @@ public class LibertyUtils {
      */
     public static void watchFiles(Path watchFile, LibertyWorkspace libertyWorkspace) {     
         boolean isProperties = watchFile.endsWith("openliberty.properties"); // if false, watchFile is a metadata file
+        DirectoryWatchService watchService = DirectoryWatchService.getInstance();
+        watchService.unregister(libertyWorkspace);
         try {
-            WatchService watcher = FileSystems.getDefault().newWatchService();
-            watchFile.getParent().register(watcher, StandardWatchEventKinds.ENTRY_MODIFY);
-            thread = new Thread(() -> {
-                WatchKey watchKey = null;
-                try {
-                    while (true) {
-                        watchKey = watcher.poll(5, TimeUnit.SECONDS);
-                        if (watchKey != null) {
-                            watchKey.pollEvents().stream().forEach(event -> {                                
-                                if (isProperties) {
-                                    // if modified re-calculate version
-                                    LOGGER.info("Liberty properties file (" + watchFile + ") has been modified: "
-                                    + event.context());
-                                    libertyWorkspace.setLibertyInstalled(false);
-                                } else if (((Path)event.context()).toString().endsWith("-liberty-devc-metadata.xml")){
-                                    // watch and execute only on metadata files
-                                    DevcMetadata devcMetadata = LibertyWorkspace.unmarshalDevcMetadataFile(watchFile);
-                                    libertyWorkspace.setContainerAlive(devcMetadata.isContainerAlive());
-                                }
-                            });
-
-                            // if watchkey.reset() returns false indicates that the parent folder has been
-                            // deleted
-                            boolean valid = watchKey.reset();
-                            if (!valid) {
-                                if (isProperties) {
-                                    // if deleted re-calculate version
-                                    LOGGER.info("Liberty properties file (" + watchFile + ") has been deleted");
-                                    libertyWorkspace.setLibertyInstalled(false);
-                                } else {
-                                    // build directory deleted
-                                    libertyWorkspace.setContainerAlive(false);
-                                }
-                            }
+            watchService.register(watchFile.getParent(), libertyWorkspace, new DirectoryWatchService.DirectoryListener() {
+                @Override
+                public void onEvents(Path dir, List<WatchEvent<?>> events) {
+                    events.stream().filter(event -> event.kind() == StandardWatchEventKinds.ENTRY_MODIFY).forEach(event -> {
+                        if (isProperties) {
+                            // if modified re-calculate version
+                            LOGGER.info("Liberty properties file (" + watchFile + ") has been modified: "
+                            + event.context());
+                            libertyWorkspace.setLibertyInstalled(false);
+                        } else if (((Path)event.context()).toString().endsWith("-liberty-devc-metadata.xml")){
+                            // watch and execute only on metadata files
+                            DevcMetadata devcMetadata = LibertyWorkspace.unmarshalDevcMetadataFile(watchFile);
+                            libertyWorkspace.setContainerAlive(devcMetadata.isContainerAlive());
                         }
+                    });
+                }
+
+                @Override
+                public void onDirectoryInvalid(Path dir) {
+                    // the parent folder has been deleted
+                    if (isProperties) {
+                        // if deleted re-calculate version
+                        LOGGER.info("Liberty properties file (" + watchFile + ") has been deleted");
+                        libertyWorkspace.setLibertyInstalled(false);
+                    } else {
+                        // build directory deleted
+                        libertyWorkspace.setContainerAlive(false);
                     }
-                } catch (InterruptedException e) {
-                    LOGGER.warning("Unable to watch properties file(s): " + e.getMessage());
                 }
             });
-            thread.start();
         } catch (IOException e) {
             LOGGER.warning("Unable to watch properties file(s): " + e.getMessage());
         }
@@ -625,16 +665,8 @@ public class LibertyUtils {
      */
     public static List<VariableLoc> getVariablesFromTextContent(String docContent) {
         List<VariableLoc> variables = new ArrayList<>();
-        // Find match between given string
-        // and regular expression
-        // using Pattern.matcher()
-        Matcher m = VAR_PATTERN.matcher(docContent);
-        // Get the subsequence
-        // using find() method
-        while (m.find()) {
-            VariableLoc variableLoc = new VariableLoc(m.group(1), m.start(1), m.end(1));
-            variables.add(variableLoc);
-        }
+        VariableScanner.scan(docContent, 0, docContent.length(),
+                (nameStart, nameEnd) -> variables.add(new VariableLoc(docContent.substring(nameStart, nameEnd), nameStart, nameEnd)));
         return variables;
     }
 
@@ -658,7 +690,8 @@ public class LibertyUtils {
      * Add new variables to variableProps
      * Used to update local variable map with latest data
      * Checks the xml document for any new variables added,
-     * if any new variable is found, its added to local variable map
+     * if any new variable is found, its added to local variable map.
+     * Only the changes since the previous version of the document are applied, see {@link DocumentVariables}
      *
      * @param document      xml document
      * @param variableProps current variable properties map
@@ -668,32 +701,7 @@ public class LibertyUtils {
         if(!SettingsService.getInstance().isConfigCopiedToServer()){
             return;
         }
-        List<Properties> existingVars;
-        try {
-            existingVars = VariableUtility.parseVariables(document, false, false, true);
-        } catch (XPathExpressionException e) {
-            LOGGER.warning("unable to parse variables for %s. Error message is %s ".formatted(document.getDocumentURI(), e.getMessage()));
-            return;
-        }
-        // a dirty check, verifies whether all variables in server.xml is present in variable map
-        // if not, we consider this variable is added recently with code action or manually
-        Map<String, String> additionalVarMap = new HashMap<>();
-        Map<String, String> combined = new HashMap<>();
-        //put defaultValue first
-        for (final String name : existingVars.get(1).stringPropertyNames()) {
-            additionalVarMap.put(name, existingVars.get(1).getProperty(name));
-        }
-        for (final String name : existingVars.get(0).stringPropertyNames()) {
-            additionalVarMap.put(name, existingVars.get(0).getProperty(name));
-        }
-        for (Map.Entry<String, String> entry : additionalVarMap.entrySet()) {
-            if (!variableProps.containsKey(entry.getKey())) {
-                combined.put(entry.getKey(), entry.getValue());
-            }
-        }
-        if (!combined.isEmpty()) {
-            variableProps.putAll(combined);
-        }
+        DocumentVariables.addToWorkspaceVariables(document, variableProps);
     }
 
     /**
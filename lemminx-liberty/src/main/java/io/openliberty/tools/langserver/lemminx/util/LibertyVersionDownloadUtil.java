@@ -53,10 +53,28 @@ public class LibertyVersionDownloadUtil {
     private static String CACHE_BASE_DIR = Paths.get(System.getProperty("user.home"), ".lemminx", "cache").toString();
     // Full file path
     private static String CACHE_FILE_PATH = Paths.get(CACHE_BASE_DIR, "https", "repo1.maven.org", "maven2", "io", "openliberty", "features", "open_liberty_featurelist", "maven-metadata.xml").toString();
+    // system property that overrides the directory of the caches the language server writes
+    public static final String LIBERTY_LS_CACHE_DIR_PROPERTY = "liberty.ls.cacheDir";
     private static final Logger LOGGER = Logger.getLogger(LibertyVersionDownloadUtil.class.getName());
     private static final int MAX_RETRIES = 3;
     private static final int RETRY_DELAY_MS = 5000;
 
+    /**
+     * @return the base directory of the .lemminx cache
+     */
+    public static Path getCacheBaseDir() {
+        return Paths.get(CACHE_BASE_DIR);
+    }
+
+    /**
+     * @return the directory of the caches the language server writes under the .lemminx cache, or the directory
+     *         set with the liberty.ls.cacheDir system property, for example to keep tests out of the user's cache
+     */
+    public static Path getLibertyLsCacheDir() {
+        String cacheDir = System.getProperty(LIBERTY_LS_CACHE_DIR_PROPERTY);
+        return cacheDir != null && !cacheDir.isBlank() ? Paths.get(cacheDir) : getCacheBaseDir().resolve("liberty-ls");
+    }
+
     /**
      * Attempts to get the latest version from either the remote repository or the local cache.
      *
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.util;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Case insensitive substring search over a fixed list of names, such as feature short names.
+ *
+ * Every suffix of every lower case name is kept in a sorted array, so the names containing a search
+ * text are the ones with a suffix that starts with it. Those suffixes are next to each other in the
+ * array and are found with a binary search, instead of comparing the text with every name.
+ */
+public class NameSearchIndex {
+    private final String[] names;
+    // suffix i is names[suffixNames[i]].substring(suffixOffsets[i]), sorted
+    private final int[] suffixNames;
+    private final int[] suffixOffsets;
+
+    /**
+     * @param names names to search, null entries never match
+     */
+    public NameSearchIndex(List<String> names) {
+        this.names = new String[names.size()];
+        int suffixCount = 0;
+        for (int i = 0; i < this.names.length; i++) {
+            String name = names.get(i);
+            this.names[i] = name == null ? null : name.toLowerCase();
+            suffixCount += name == null ? 0 : name.length();
+        }
+        long[] suffixes = new long[suffixCount];
+        int next = 0;
+        for (int i = 0; i < this.names.length; i++) {
+            for (int offset = 0; this.names[i] != null && offset < this.names[i].length(); offset++) {
+                suffixes[next++] = ((long) i << 32) | offset;
+            }
+        }
+        // sort boxed entries with a comparator, this is only done once per list of names
+        Long[] sorted = Arrays.stream(suffixes).boxed().toArray(Long[]::new);
+        Arrays.sort(sorted, (a, b) -> compareSuffixes(a, b));
+        suffixNames = new int[sorted.length];
+        suffixOffsets = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            suffixNames[i] = (int) (sorted[i] >>> 32);
+            suffixOffsets[i] = (int) (long) sorted[i];
+        }
+    }
+
+    /**
+     * Returns the positions of the names that contain the text, ignoring case, in ascending order.
+     * An empty text matches every name.
+     * @param text
+     * @param limit maximum number of positions to return
+     * @return
+     */
+    public int[] search(String text, int limit) {
+        BitSet matches = new BitSet(names.length);
+        if (text.isEmpty()) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i] != null) {
+                    matches.set(i);
+                }
+            }
+        } else {
+            String textLowerCase = text.toLowerCase();
+            for (int i = lowerBound(textLowerCase); i < suffixNames.length && startsWith(i, textLowerCase); i++) {
+                matches.set(suffixNames[i]);
+            }
+        }
+        int[] result = new int[Math.min(matches.cardinality(), limit)];
+        for (int i = 0, id = matches.nextSetBit(0); i < result.length; i++, id = matches.nextSetBit(id + 1)) {
+            result[i] = id;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the positions of the names that contain the text, ignoring case, in ascending order.
+     */
+    public int[] search(String text) {
+        return search(text, Integer.MAX_VALUE);
+    }
+
+    // first suffix that is not less than the text
+    private int lowerBound(String text) {
+        int low = 0;
+        int high = suffixNames.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            String name = names[suffixNames[mid]];
+            int offset = suffixOffsets[mid];
+            if (compare(name, offset, text, 0) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private boolean startsWith(int suffix, String text) {
+        return names[suffixNames[suffix]].startsWith(text, suffixOffsets[suffix]);
+    }
+
+    private int compareSuffixes(long a, long b) {
+        return compare(names[(int) (a >>> 32)], (int) a, names[(int) (b >>> 32)], (int) b);
+    }
+
+    private static int compare(String a, int aOffset, String b, int bOffset) {
+        int aLength = a.length() - aOffset;
+        int bLength = b.length() - bOffset;
+        int length = Math.min(aLength, bLength);
+        for (int i = 0; i < length; i++) {
+            char aChar = a.charAt(aOffset + i);
+            char bChar = b.charAt(bOffset + i);
+            if (aChar != bChar) {
+                return aChar - bChar;
+            }
+        }
+        return aLength - bLength;
+    }
+}
@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Persistent record of which xml files in a workspace folder are Liberty config files, stored per workspace
+ * folder under the .lemminx cache directory. Each file is recorded with its last modified time and size, so
+ * after a restart only the files that were added or changed since the last scan need to be opened.
+ *
+ * The index only holds the files seen by the latest scan. Files that were deleted drop out when it is saved.
+ * Indexes of workspace folders that were not scanned for a long time are deleted when another index is saved,
+ * as are the least recently scanned ones beyond a maximum number.
+ */
+public class ServerRootXmlIndex {
+    private static final Logger LOGGER = Logger.getLogger(ServerRootXmlIndex.class.getName());
+
+    // bump when the meaning of the recorded results changes, for example when the include/exclude patterns change
+    private static final String INDEX_VERSION = "1";
+    // file entries are keyed by the relative paths of xml files, so these cannot clash with them
+    private static final String VERSION_PROPERTY = "index.version";
+    private static final String WORKSPACE_PROPERTY = "index.workspace";
+    private static final String INDEX_SUFFIX = ".properties";
+    private static final long MAX_INDEX_AGE_MILLIS = TimeUnit.DAYS.toMillis(30);
+    private static final int MAX_INDEX_COUNT = 100;
+
+    private final String workspace;
+    private final Path indexFile;
+    private final Map<String, String> previousEntries;
+    private final Map<String, String> currentEntries = new ConcurrentHashMap<String, String>();
+
+    private ServerRootXmlIndex(String workspace, Path indexFile, Map<String, String> previousEntries) {
+        this.workspace = workspace;
+        this.indexFile = indexFile;
+        this.previousEntries = previousEntries;
+    }
+
+    /**
+     * Loads the index saved for a workspace folder. Returns an empty index if none was saved or it cannot be read.
+     * @param workspaceDir
+     * @return
+     */
+    public static ServerRootXmlIndex load(Path workspaceDir) {
+        String workspace = workspaceDir.toAbsolutePath().toString();
+        Path indexFile = getCacheDir().resolve(UUID.nameUUIDFromBytes(workspace.getBytes(StandardCharsets.UTF_8)) + INDEX_SUFFIX);
+        Map<String, String> entries = new ConcurrentHashMap<String, String>();
+        if (Files.exists(indexFile)) {
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(indexFile)) {
+                properties.load(in);
+                if (INDEX_VERSION.equals(properties.getProperty(VERSION_PROPERTY)) && workspace.equals(properties.getProperty(WORKSPACE_PROPERTY))) {
+                    properties.remove(VERSION_PROPERTY);
+                    properties.remove(WORKSPACE_PROPERTY);
+                    for (String relativePath : properties.stringPropertyNames()) {
+                        entries.put(relativePath, properties.getProperty(relativePath));
+                    }
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                LOGGER.warning("Unable to read workspace index " + indexFile + ": " + e.getMessage());
+            }
+        }
+        return new ServerRootXmlIndex(workspace, indexFile, entries);
+    }
+
+    /**
+     * @return the directory holding the saved indexes, see LibertyVersionDownloadUtil.getLibertyLsCacheDir
+     */
+    public static Path getCacheDir() {
+        return LibertyVersionDownloadUtil.getLibertyLsCacheDir().resolve("workspaces");
+    }
+
+    /**
+     * Returns the recorded result for a file, or null if the file was not recorded with the same last modified time and size.
+     * @param relativePath path of the file relative to the workspace folder
+     * @param lastModified
+     * @param size
+     * @return
+     */
+    public Boolean get(String relativePath, long lastModified, long size) {
+        String entry = previousEntries.get(relativePath);
+        if (entry == null || !entry.startsWith(lastModified + "," + size + ",")) {
+            return null;
+        }
+        boolean isConfigFile = entry.endsWith(",true");
+        currentEntries.put(relativePath, entry);
+        return isConfigFile;
+    }
+
+    /**
+     * Records the result for a file found by the current scan.
+     * @param relativePath path of the file relative to the workspace folder
+     * @param lastModified
+     * @param size
+     * @param isConfigFile
+     */
+    public void put(String relativePath, long lastModified, long size, boolean isConfigFile) {
+        currentEntries.put(relativePath, lastModified + "," + size + "," + isConfigFile);
+    }
+
+    /**
+     * Saves the files recorded by the current scan, unless they are the same as the ones that were loaded,
+     * and deletes the indexes that are too old or too many.
+     */
+    public void save() {
+        if (currentEntries.equals(previousEntries)) {
+            try {
+                // keep the index of a workspace folder that is still scanned from being pruned
+                if (Files.exists(indexFile)) {
+                    Files.setLastModifiedTime(indexFile, FileTime.fromMillis(System.currentTimeMillis()));
+                }
+            } catch (IOException e) {
+                LOGGER.fine("Unable to update workspace index " + indexFile + ": " + e.getMessage());
+            }
+            prune();
+            return;
+        }
+        try {
+            Files.createDirectories(indexFile.getParent());
+            Properties properties = new Properties();
+            properties.putAll(currentEntries);
+            properties.setProperty(VERSION_PROPERTY, INDEX_VERSION);
+            properties.setProperty(WORKSPACE_PROPERTY, workspace);
+            // write to a temporary file and move it into place, since another language server may be reading the index
+            Path tempFile = Files.createTempFile(indexFile.getParent(), indexFile.getFileName().toString(), ".tmp");
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                properties.store(out, null);
+            }
+            Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warning("Unable to save workspace index " + indexFile + ": " + e.getMessage());
+        }
+        prune();
+    }
+
+    /**
+     * Deletes the indexes, and temporary files left behind by saves that failed, that were not written for
+     * MAX_INDEX_AGE_MILLIS, and the least recently written indexes beyond MAX_INDEX_COUNT.
+     */
+    private void prune() {
+        Path cacheDir = indexFile.getParent();
+        if (!Files.isDirectory(cacheDir)) {
+            return;
+        }
+        long oldest = System.currentTimeMillis() - MAX_INDEX_AGE_MILLIS;
+        List<Path> indexFiles = new ArrayList<Path>();
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            files.forEach(file -> {
+                if (getLastModified(file) < oldest && !file.equals(indexFile)) {
+                    delete(file);
+                } else if (file.getFileName().toString().endsWith(INDEX_SUFFIX)) {
+                    indexFiles.add(file);
+                }
+            });
+        } catch (IOException e) {
+            LOGGER.fine("Unable to list workspace indexes in " + cacheDir + ": " + e.getMessage());
+            return;
+        }
+        if (indexFiles.size() > MAX_INDEX_COUNT) {
+            indexFiles.sort(Comparator.comparingLong(ServerRootXmlIndex::getLastModified).reversed());
+            for (Path file : indexFiles.subList(MAX_INDEX_COUNT, indexFiles.size())) {
+                if (!file.equals(indexFile)) {
+                    delete(file);
+                }
+            }
+        }
+    }
+
+    private static long getLastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            // deleted by another language server
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.fine("Unable to delete workspace index " + file + ": " + e.getMessage());
+        }
+    }
+}
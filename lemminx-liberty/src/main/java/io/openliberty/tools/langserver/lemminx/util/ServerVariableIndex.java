@@ -0,0 +1,305 @@
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import javax.xml.xpath.XPathExpressionException;
+
+import org.apache.commons.io.comparator.NameFileComparator;
+import org.w3c.dom.Document;
+
+import io.openliberty.tools.common.plugins.config.ServerConfigDocument;
+import io.openliberty.tools.common.plugins.util.LibertyPropFilesUtility;
+import io.openliberty.tools.common.plugins.util.VariableUtility;
+
+/**
+ * Liberty variables of the server of one workspace, read from the same files and in the same order as
+ * ci.common's ServerConfigDocument, so that later sources override earlier ones:
+ *
+ * default values in server.xml, server.env files, bootstrap.properties and its includes, system properties,
+ * the variables directory, values in included files, configDropins/defaults, server.xml and
+ * configDropins/overrides, and finally the predefined directory variables. Default values only apply to
+ * variables that have no value.
+ *
+ * The contents of every file are kept with its last modified time and size, and a file is parsed again only
+ * when those change. Reading the variables after a file changed re-parses that file and merges the kept
+ * contents of the others. The file that set each variable is recorded, variables from the environment, system
+ * properties and predefined directories have no source file.
+ */
+public class ServerVariableIndex {
+    private static final Logger LOGGER = Logger.getLogger(ServerVariableIndex.class.getName());
+
+    private static final String SERVER_CONFIG_DIR = "server.config.dir";
+    private static final String CONFIG_DROPINS = "configDropins";
+
+    /**
+     * Parsed contents of one source file, dropped when the file changes.
+     */
+    private static class SourceFile {
+        private final String path;
+        private final long lastModified;
+        private final long size;
+        private boolean documentParsed;
+        private Document document;
+        // <variable> elements of an xml file
+        private List<Properties> variables;
+        // contents of a properties or env file
+        private Properties properties;
+
+        private SourceFile(String path, long lastModified, long size) {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+    }
+
+    // canonical path -> parsed contents, for the files read by the latest update
+    private final Map<String, SourceFile> sourceFiles = new HashMap<String, SourceFile>();
+    private final Map<String, String> variableSources = new HashMap<String, String>();
+    private int parsedFileCount;
+
+    /**
+     * Reads the variables of a server. Only the files that changed since the previous call are parsed.
+     *
+     * @param installDirectory
+     * @param userDirectory
+     * @param serverDirectory
+     * @param serverOutputDirectory
+     * @return variables with their default values applied
+     * @throws Exception if the server config cannot be read
+     */
+    public synchronized Properties readVariables(File installDirectory, File userDirectory, File serverDirectory,
+            File serverOutputDirectory) throws Exception {
+        CommonLogger logger = new CommonLogger(LOGGER);
+        Map<String, File> libertyDirectories = LibertyPropFilesUtility.getLibertyDirectoryPropertyFiles(logger,
+                installDirectory, userDirectory, serverDirectory, serverOutputDirectory);
+        IndexedServerConfigDocument config = new IndexedServerConfigDocument(logger, libertyDirectories);
+        Properties variables = new Properties();
+        parsedFileCount = 0;
+        variableSources.clear();
+
+        File serverXml = config.getServerXML();
+        Document serverXmlDocument = serverXml == null ? null : config.parseDocument(serverXml);
+        if (serverXmlDocument == null) {
+            LOGGER.fine("No server.xml found in " + serverDirectory + ", no variables were read");
+            return variables;
+        }
+        config.parseVariablesForDefaultValues(serverXmlDocument);
+        config.processServerEnv();
+        config.processBootstrapProperties();
+        config.putProperties(System.getProperties(), null);
+        config.processVariablesDirectoryFiles();
+        // ServerConfigDocument.processServerXml, with the server.xml values taken from the index
+        config.parseIncludeVariables(serverXmlDocument);
+        config.parseConfigDropinsVariables("defaults");
+        SourceFile serverXmlSource = config.getSourceFile(serverXmlDocument);
+        config.putProperties(config.getVariables(serverXmlSource).get(0), serverXmlSource.path);
+        config.parseConfigDropinsVariables("overrides");
+        for (Map.Entry<String, File> libertyDirectory : config.getLibertyDirPropertyFiles().entrySet()) {
+            config.getProperties().put(libertyDirectory.getKey(), libertyDirectory.getValue().getCanonicalPath());
+            config.valueSources.remove(libertyDirectory.getKey());
+        }
+
+        variables.putAll(config.getDefaultProperties());
+        variables.putAll(config.getProperties());
+        variableSources.putAll(config.defaultValueSources);
+        variableSources.keySet().removeAll(config.getProperties().keySet());
+        variableSources.putAll(config.valueSources);
+        // forget the files that are no longer part of the config
+        sourceFiles.keySet().retainAll(config.readFiles);
+        LOGGER.finest("Read variables from " + config.readFiles.size() + " files, " + parsedFileCount + " of them were parsed");
+        return variables;
+    }
+
+    /**
+     * @param variableName
+     * @return canonical path of the file that set the variable in the latest update, or null if it was not set by a file
+     */
+    public synchronized String getSource(String variableName) {
+        return variableSources.get(variableName);
+    }
+
+    /**
+     * @return number of files that were parsed by the latest update, because they were new or changed
+     */
+    public synchronized int getParsedFileCount() {
+        return parsedFileCount;
+    }
+
+    /**
+     * ServerConfigDocument that reads files through the index. The constructor does not read the config, the steps
+     * are run by readVariables.
+     */
+    private class IndexedServerConfigDocument extends ServerConfigDocument {
+        private final Set<String> readFiles = new HashSet<String>();
+        private final Map<String, String> valueSources = new HashMap<String, String>();
+        private final Map<String, String> defaultValueSources = new HashMap<String, String>();
+
+        private IndexedServerConfigDocument(CommonLogger logger, Map<String, File> libertyDirectories) {
+            super(logger, null, libertyDirectories, null);
+        }
+
+        @Override
+        public Document parseDocument(File file) throws IOException {
+            SourceFile sourceFile = getSourceFile(file);
+            if (!sourceFile.documentParsed) {
+                sourceFile.document = super.parseDocument(file);
+                sourceFile.documentParsed = true;
+                parsedFileCount++;
+            }
+            return sourceFile.document;
+        }
+
+        @Override
+        public void parsePropertiesFromFile(File file) throws Exception {
+            if (file == null || !file.exists()) {
+                return;
+            }
+            SourceFile sourceFile = getSourceFile(file);
+            if (sourceFile.properties == null) {
+                Properties properties = new Properties();
+                try (InputStream in = new FileInputStream(file)) {
+                    properties.load(in);
+                }
+                sourceFile.properties = properties;
+                parsedFileCount++;
+            }
+            putProperties(sourceFile.properties, sourceFile.path);
+        }
+
+        @Override
+        public void parseVariablesForDefaultValues(Document doc) throws XPathExpressionException {
+            SourceFile sourceFile = getSourceFile(doc);
+            if (sourceFile == null) {
+                super.parseVariablesForDefaultValues(doc);
+                return;
+            }
+            putDefaultProperties(getVariables(sourceFile).get(1), sourceFile.path);
+        }
+
+        @Override
+        public void parseVariablesForBothValues(Document doc) throws XPathExpressionException {
+            SourceFile sourceFile = getSourceFile(doc);
+            if (sourceFile == null) {
+                // documents read from a URL are not kept
+                super.parseVariablesForBothValues(doc);
+                return;
+            }
+            List<Properties> variables = getVariables(sourceFile);
+            putProperties(variables.get(0), sourceFile.path);
+            putDefaultProperties(variables.get(1), sourceFile.path);
+        }
+
+        /**
+         * Runs processVariablesDirectory. Variables read from files that are not properties files are set directly,
+         * so they are found by comparing the values before and after.
+         */
+        private void processVariablesDirectoryFiles() throws Exception {
+            Map<Object, Object> previousValues = new HashMap<Object, Object>(getProperties());
+            Map<String, String> previousSources = new HashMap<String, String>(valueSources);
+            processVariablesDirectory();
+            for (Map.Entry<Object, Object> variable : getProperties().entrySet()) {
+                String name = variable.getKey().toString();
+                if (!variable.getValue().equals(previousValues.get(name)) && Objects.equals(valueSources.get(name), previousSources.get(name))) {
+                    valueSources.remove(name);
+                }
+            }
+        }
+
+        /**
+         * Same as ServerConfigDocument.parseConfigDropinsDirVariables, which is private.
+         * @param folder defaults or overrides
+         */
+        private void parseConfigDropinsVariables(String folder) throws Exception {
+            File configDirectory = getLibertyDirPropertyFiles().get(SERVER_CONFIG_DIR);
+            File configDropins = configDirectory == null ? null : new File(configDirectory, CONFIG_DROPINS);
+            if (configDropins == null || !configDropins.exists()) {
+                configDropins = new File(getServerXML().getParent(), CONFIG_DROPINS);
+            }
+            File[] files = new File(configDropins, folder).listFiles();
+            if (files == null) {
+                return;
+            }
+            Arrays.sort(files, NameFileComparator.NAME_INSENSITIVE_COMPARATOR);
+            for (File file : files) {
+                if (file.isFile()) {
+                    Document doc = parseDocument(file);
+                    if (doc != null) {
+                        parseVariablesForBothValues(doc);
+                        parseIncludeVariables(doc);
+                    }
+                }
+            }
+        }
+
+        private void putProperties(Map<?, ?> properties, String source) {
+            getProperties().putAll(properties);
+            recordSources(valueSources, properties, source);
+        }
+
+        private void putDefaultProperties(Map<?, ?> properties, String source) {
+            getDefaultProperties().putAll(properties);
+            recordSources(defaultValueSources, properties, source);
+        }
+
+        private void recordSources(Map<String, String> sources, Map<?, ?> properties, String source) {
+            for (Object name : properties.keySet()) {
+                if (source == null) {
+                    sources.remove(name.toString());
+                } else {
+                    sources.put(name.toString(), source);
+                }
+            }
+        }
+
+        private SourceFile getSourceFile(File file) throws IOException {
+            String path = file.getCanonicalPath();
+            readFiles.add(path);
+            long lastModified = file.lastModified();
+            long size = file.length();
+            SourceFile sourceFile = sourceFiles.get(path);
+            if (sourceFile == null || sourceFile.lastModified != lastModified || sourceFile.size != size) {
+                sourceFile = new SourceFile(path, lastModified, size);
+                sourceFiles.put(path, sourceFile);
+            }
+            return sourceFile;
+        }
+
+        // the kept file that a document was parsed from, parseDocument sets the canonical path as the document URI
+        private SourceFile getSourceFile(Document doc) {
+            SourceFile sourceFile = doc.getDocumentURI() == null ? null : sourceFiles.get(doc.getDocumentURI());
+            return sourceFile != null && sourceFile.document == doc ? sourceFile : null;
+        }
+
+        private List<Properties> getVariables(SourceFile sourceFile) throws XPathExpressionException {
+            if (sourceFile.variables == null) {
+                // values first, then default values
+                sourceFile.variables = VariableUtility.parseVariables(sourceFile.document, false, false, true);
+            }
+            return sourceFile.variables;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.util;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Runs at most one task per key at a time. A caller that asks for a key while a task for that key is
+ * in progress shares the result of that task instead of starting another one. Once a task completes,
+ * the next caller for the key starts a new task, so results are not cached here.
+ *
+ * @param <K> key type
+ * @param <V> result type
+ */
+public class SingleFlight<K, V> {
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<K, CompletableFuture<V>>();
+
+    /**
+     * Returns the task in progress for a key, or null if there is none.
+     * @param key
+     * @return
+     */
+    public CompletableFuture<V> get(K key) {
+        return inFlight.get(key);
+    }
+
+    /**
+     * Starts the task on the executor unless a task for the key is already in progress.
+     * @param key
+     * @param task
+     * @param executor
+     * @return the task in progress for the key
+     */
+    public CompletableFuture<V> runAsync(K key, Supplier<V> task, Executor executor) {
+        CompletableFuture<V> future = new CompletableFuture<V>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return existing;
+        }
+        // submitted outside the map operation, since the executor may run the task, or block, on this thread
+        try {
+            executor.execute(() -> complete(key, future, task));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Runs the task on the calling thread, or waits for the task in progress for the key.
+     * @param key
+     * @param task
+     * @return the result of the task
+     * @throws java.util.concurrent.CompletionException if the task threw an exception
+     */
+    public V run(K key, Supplier<V> task) {
+        CompletableFuture<V> future = new CompletableFuture<V>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return existing.join();
+        }
+        complete(key, future, task);
+        return future.join();
+    }
+
+    private void complete(K key, CompletableFuture<V> future, Supplier<V> task) {
+        try {
+            V result = task.get();
+            // remove before completing, so that callers that see the result never see the finished task
+            inFlight.remove(key, future);
+            future.complete(result);
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+        }
+    }
+}
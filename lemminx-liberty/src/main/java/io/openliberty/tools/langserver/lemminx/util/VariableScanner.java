@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2025 IBM Corporation and others.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.util;
+
+/**
+ * Finds ${name} variable references in text in a single pass, without regular expressions or substrings.
+ *
+ * A reference is "${" followed by the shortest text up to "}" that does not cross a line break, which is what
+ * the pattern \$\{(.*?)\} matches. As a reference never crosses a line break, every line can be scanned on its
+ * own, so after an edit only the changed lines need to be scanned again.
+ */
+public class VariableScanner {
+
+    /**
+     * Receives the offsets of the name of each reference, the reference itself is nameStart - 2 to nameEnd + 1.
+     */
+    @FunctionalInterface
+    public interface VariableVisitor {
+        void visit(int nameStart, int nameEnd);
+    }
+
+    private VariableScanner() {
+    }
+
+    /**
+     * Reports the references that start and end within start..end, in order.
+     *
+     * @param text text to scan
+     * @param start offset to start at, should be a line start when scanning part of a text
+     * @param end offset to stop at, should be a line end when scanning part of a text
+     * @param visitor receives the name offsets of each reference
+     */
+    public static void scan(CharSequence text, int start, int end, VariableVisitor visitor) {
+        int offset = start;
+        while (offset + 1 < end) {
+            if (text.charAt(offset) != '$' || text.charAt(offset + 1) != '{') {
+                offset++;
+                continue;
+            }
+            int nameEnd = offset + 2;
+            while (nameEnd < end && text.charAt(nameEnd) != '}' && !isLineTerminator(text.charAt(nameEnd))) {
+                nameEnd++;
+            }
+            if (nameEnd < end && text.charAt(nameEnd) == '}') {
+                visitor.visit(offset + 2, nameEnd);
+                offset = nameEnd + 1;
+            } else {
+                // no reference that starts before the line break or the end can be closed either
+                offset = nameEnd;
+            }
+        }
+    }
+
+    /**
+     * @param text
+     * @param offset
+     * @return start of the line that contains offset
+     */
+    public static int lineStart(CharSequence text, int offset) {
+        while (offset > 0 && !isLineTerminator(text.charAt(offset - 1))) {
+            offset--;
+        }
+        return offset;
+    }
+
+    /**
+     * @param text
+     * @param offset
+     * @return offset of the line break that ends the line containing offset, or the length of the text
+     */
+    public static int lineEnd(CharSequence text, int offset) {
+        while (offset < text.length() && !isLineTerminator(text.charAt(offset))) {
+            offset++;
+        }
+        return offset;
+    }
+
+    // the line terminators that . does not match in a regular expression
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
-* Copyright (c) 2023, 2024 IBM Corporation and others.
+* Copyright (c) 2023, 2025 IBM Corporation and others.
 *
 * This program and the accompanying materials are made available under the
 * terms of the Eclipse Public License v. 2.0 which is available at
@@ -13,14 +13,20 @@
 
 package io.openliberty.tools.langserver.lemminx.util;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.logging.Logger;
@@ -28,13 +34,24 @@ import java.util.logging.Logger;
 import javax.xml.XMLConstants;
 import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.events.Characters;
 import javax.xml.stream.events.XMLEvent;
 
+import io.openliberty.tools.langserver.lemminx.data.ServerConfigFile;
+import io.openliberty.tools.langserver.lemminx.models.feature.Feature;
+import io.openliberty.tools.langserver.lemminx.models.feature.FeatureInfo;
+import io.openliberty.tools.langserver.lemminx.models.feature.PrivateFeature;
+
 public class XmlReader {
     private static final Logger LOGGER = Logger.getLogger(XmlReader.class.getName());
 
+    // hasServerRoot is called for every xml file in a workspace, from several threads while scanning, so each thread
+    // keeps its own factory instead of looking up a new one per file
+    private static final ThreadLocal<XMLInputFactory> SERVER_ROOT_FACTORY = ThreadLocal.withInitial(XmlReader::getXmlInputFactory);
+
     public static boolean hasServerRoot(String filePath) {
         File file = null;
         
@@ -57,7 +74,7 @@ public class XmlReader {
         }
         
         try {
-            XMLInputFactory factory = getXmlInputFactory();
+            XMLInputFactory factory = SERVER_ROOT_FACTORY.get();
             return hasSeverRootValues(factory,xmlFile);
         } catch (Exception e) {
             LOGGER.severe("Unable to access XML file "+ xmlFile.getAbsolutePath());
@@ -184,4 +201,205 @@ public class XmlReader {
     protected static boolean isServerElement(XMLEvent event) {
         return getElementName(event).equals("server");
     }
+
+    /**
+     * Reads a feature list xml generated by ws-featurelist.jar in a single streaming pass. Produces the same
+     * FeatureInfo as unmarshalling the file with JAXB: only the feature and privateFeature children of the
+     * root element are read, and all other elements are skipped.
+     * @param featureListFile
+     * @return FeatureInfo with the features and private features in the file
+     * @throws IOException
+     * @throws XMLStreamException if the file is not well formed
+     */
+    public static FeatureInfo readFeatureInfo(File featureListFile) throws IOException, XMLStreamException {
+        FeatureInfo featureInfo = new FeatureInfo();
+        List<Feature> features = new ArrayList<Feature>();
+        List<PrivateFeature> privateFeatures = new ArrayList<PrivateFeature>();
+        // enables and configElement values repeat across features, so only keep one copy of each
+        Map<String, String> names = new HashMap<String, String>();
+
+        try (InputStream is = new BufferedInputStream(new FileInputStream(featureListFile))) {
+            XMLStreamReader reader = getXmlInputFactory().createXMLStreamReader(is);
+            try {
+                reader.nextTag(); // root element
+                while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                    String elementName = reader.getLocalName();
+                    if ("feature".equals(elementName)) {
+                        features.add(readFeature(reader, names));
+                    } else if ("privateFeature".equals(elementName)) {
+                        privateFeatures.add(readPrivateFeature(reader, names));
+                    } else {
+                        skipElement(reader);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        // JAXB leaves lists without any elements as null
+        featureInfo.setFeatures(features.isEmpty() ? null : features);
+        featureInfo.setPrivateFeatures(privateFeatures.isEmpty() ? null : privateFeatures);
+        return featureInfo;
+    }
+
+    private static Feature readFeature(XMLStreamReader reader, Map<String, String> names) throws XMLStreamException {
+        Feature feature = new Feature();
+        feature.setName(reader.getAttributeValue(null, "name"));
+        List<String> enables = new ArrayList<String>();
+        List<String> configElements = new ArrayList<String>();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "description":
+                    feature.setDescription(readText(reader));
+                    break;
+                case "licenseId":
+                    feature.setLicenseId(readText(reader));
+                    break;
+                case "licenseType":
+                    feature.setLicenseType(readText(reader));
+                    break;
+                case "shortDescription":
+                    feature.setShortDescription(readText(reader));
+                    break;
+                case "symbolicName":
+                    feature.setSymbolicName(readText(reader));
+                    break;
+                case "type":
+                    feature.setType(readText(reader));
+                    break;
+                case "version":
+                    feature.setVersion(readText(reader));
+                    break;
+                case "enables":
+                    enables.add(names.computeIfAbsent(readText(reader), k -> k));
+                    break;
+                case "configElement":
+                    configElements.add(names.computeIfAbsent(readText(reader), k -> k));
+                    break;
+                default:
+                    skipElement(reader);
+            }
+        }
+        feature.setEnables(enables.isEmpty() ? null : enables);
+        feature.setConfigElements(configElements.isEmpty() ? null : configElements);
+        return feature;
+    }
+
+    private static PrivateFeature readPrivateFeature(XMLStreamReader reader, Map<String, String> names) throws XMLStreamException {
+        PrivateFeature privateFeature = new PrivateFeature();
+        List<String> platforms = new ArrayList<String>();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+                case "symbolicName":
+                    privateFeature.setSymbolicName(readText(reader));
+                    break;
+                case "platform":
+                    platforms.add(names.computeIfAbsent(readText(reader), k -> k));
+                    break;
+                default:
+                    skipElement(reader);
+            }
+        }
+        privateFeature.setPlatforms(platforms.isEmpty() ? null : platforms);
+        return privateFeature;
+    }
+
+    /**
+     * Reads the featureManager, include and variable children of the server element of a config file in a
+     * single streaming pass, skipping all other elements.
+     * @param configFile
+     * @return the features, include locations and variables of the file
+     * @throws IOException
+     * @throws XMLStreamException if the file is not well formed
+     */
+    public static ServerConfigFile readServerConfigFile(File configFile) throws IOException, XMLStreamException {
+        Set<String> features = new HashSet<String>();
+        List<String> includeLocations = new ArrayList<String>();
+        Map<String, String> defaultValues = new HashMap<String, String>();
+        Map<String, String> values = new HashMap<String, String>();
+
+        try (InputStream is = new BufferedInputStream(new FileInputStream(configFile))) {
+            XMLStreamReader reader = getXmlInputFactory().createXMLStreamReader(is);
+            try {
+                reader.nextTag(); // root element
+                if (!"server".equals(reader.getLocalName())) {
+                    return ServerConfigFile.EMPTY;
+                }
+                while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                    switch (reader.getLocalName()) {
+                        case "featureManager":
+                            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                                if ("feature".equals(reader.getLocalName())) {
+                                    features.add(readText(reader).trim().toLowerCase(Locale.ROOT));
+                                } else {
+                                    skipElement(reader);
+                                }
+                            }
+                            break;
+                        case "include":
+                            String location = reader.getAttributeValue(null, "location");
+                            if (location != null) {
+                                includeLocations.add(location);
+                            }
+                            skipElement(reader);
+                            break;
+                        case "variable":
+                            String name = reader.getAttributeValue(null, "name");
+                            String value = reader.getAttributeValue(null, "value");
+                            String defaultValue = reader.getAttributeValue(null, "defaultValue");
+                            if (name != null && !name.isEmpty() && value != null) {
+                                values.put(name, value);
+                            }
+                            if (name != null && !name.isEmpty() && defaultValue != null) {
+                                defaultValues.put(name, defaultValue);
+                            }
+                            skipElement(reader);
+                            break;
+                        default:
+                            skipElement(reader);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        defaultValues.putAll(values);
+        return new ServerConfigFile(features, includeLocations, defaultValues);
+    }
+
+    /**
+     * Returns the text of the current element, ignoring the text of any child elements, and leaves
+     * the reader on the end tag of the element.
+     */
+    private static String readText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            } else if (depth == 1 && (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                    || event == XMLStreamConstants.SPACE)) {
+                text.append(reader.getText());
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Skips the current element and all of its children, leaving the reader on the end tag of the element.
+     */
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
 }
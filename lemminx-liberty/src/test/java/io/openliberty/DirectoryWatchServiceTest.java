@@ -0,0 +1,48 @@
+package io.openliberty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.openliberty.tools.langserver.lemminx.services.DirectoryWatchService;
+
+public class DirectoryWatchServiceTest {
+
+    @Test
+    public void testDirectoryWatchService(@TempDir Path watchedDir) throws IOException, InterruptedException {
+        DirectoryWatchService watchService = DirectoryWatchService.getInstance();
+        Object firstOwner = new Object();
+        Object secondOwner = new Object();
+        CountDownLatch firstEvents = new CountDownLatch(1);
+        CountDownLatch secondEvents = new CountDownLatch(1);
+        watchService.register(watchedDir, firstOwner, (dir, events) -> firstEvents.countDown());
+        watchService.register(watchedDir, secondOwner, (dir, events) -> secondEvents.countDown());
+
+        // both owners get the events for the shared directory
+        Files.writeString(watchedDir.resolve("openliberty.properties"), "com.ibm.websphere.productVersion=25.0.0.6");
+        assertTrue(firstEvents.await(30, TimeUnit.SECONDS));
+        assertTrue(secondEvents.await(30, TimeUnit.SECONDS));
+
+        // a single directory of an owner can be released, the other owners keep watching it
+        watchService.unregister(watchedDir, firstOwner);
+        assertTrue(watchService.getWatchedDirectories(firstOwner).isEmpty());
+        assertEquals(List.of(watchedDir), watchService.getWatchedDirectories(secondOwner));
+        watchService.register(watchedDir, firstOwner, (dir, events) -> firstEvents.countDown());
+
+        // the directory stays watched until its last owner is removed
+        watchService.unregister(firstOwner);
+        assertTrue(watchService.getWatchedDirectories(firstOwner).isEmpty());
+        assertEquals(List.of(watchedDir), watchService.getWatchedDirectories(secondOwner));
+        watchService.unregister(secondOwner);
+        assertTrue(watchService.getWatchedDirectories(secondOwner).isEmpty());
+    }
+}
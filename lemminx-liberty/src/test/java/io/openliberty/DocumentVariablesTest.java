@@ -0,0 +1,43 @@
+package io.openliberty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.File;
+import java.util.Properties;
+
+import org.eclipse.lemminx.dom.DOMParser;
+import org.junit.jupiter.api.Test;
+
+import io.openliberty.tools.langserver.lemminx.util.DocumentVariables;
+
+public class DocumentVariablesTest {
+
+    static String newLine = System.lineSeparator();
+    static String serverXMLURI = new File("src/test/resources/sample/test/server.xml").toURI().toString();
+
+    @Test
+    public void testDocumentVariablesDelta() {
+        String serverXML1 = String.join(newLine,
+                "<server>",
+                "    <variable name=\"http.port\" value=\"9080\"/>",
+                "    <variable name=\"app.dir\" defaultValue=\"apps\"/>",
+                "</server>");
+        Properties variables = new Properties();
+        variables.put("http.port", "9443");
+        DocumentVariables.addToWorkspaceVariables(DOMParser.getInstance().parse(serverXML1, serverXMLURI, null), variables);
+        // variables read from the server config files are kept
+        assertEquals("9443", variables.get("http.port"));
+        assertEquals("apps", variables.get("app.dir"));
+
+        // a variable added by the document follows its later changes and is removed with its declaration
+        String serverXML2 = serverXML1.replace("defaultValue=\"apps\"", "value=\"dropins\"");
+        DocumentVariables.addToWorkspaceVariables(DOMParser.getInstance().parse(serverXML2, serverXMLURI, null), variables);
+        assertEquals("dropins", variables.get("app.dir"));
+        String serverXML3 = serverXML2.replace("app.dir", "other.dir");
+        DocumentVariables.addToWorkspaceVariables(DOMParser.getInstance().parse(serverXML3, serverXMLURI, null), variables);
+        assertFalse(variables.containsKey("app.dir"));
+        assertEquals("dropins", variables.get("other.dir"));
+        assertEquals("9443", variables.get("http.port"));
+    }
+}
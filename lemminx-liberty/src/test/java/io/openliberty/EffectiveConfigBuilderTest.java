@@ -0,0 +1,63 @@
+package io.openliberty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.openliberty.tools.langserver.lemminx.services.EffectiveConfigBuilder;
+import io.openliberty.tools.langserver.lemminx.services.EffectiveConfigBuilder.EffectiveConfig;
+import io.openliberty.tools.langserver.lemminx.services.IncludeGraph;
+
+public class EffectiveConfigBuilderTest {
+
+    @Test
+    public void testEffectiveConfigBuilder(@TempDir Path configDir) throws IOException {
+        Path sharedDir = Files.createDirectories(configDir.resolve("shared"));
+        Path overridesDir = Files.createDirectories(configDir.resolve("configDropins/overrides"));
+        File serverXml = configDir.resolve("server.xml").toFile();
+        Files.writeString(serverXml.toPath(), "<server><featureManager><feature>servlet-6.0</feature></featureManager><include location=\"shared/\"/></server>");
+        Files.writeString(sharedDir.resolve("a.xml"), "<server><featureManager><feature>JSON-B-3.0</feature></featureManager><include location=\"nested.xml\"/></server>");
+        Files.writeString(sharedDir.resolve("nested.xml"), "<server><variable name=\"http.port\" defaultValue=\"9080\"/></server>");
+        Files.writeString(overridesDir.resolve("ssl.xml"), "<server><featureManager><feature>transportSecurity-1.0</feature></featureManager></server>");
+
+        IncludeGraph includeGraph = new IncludeGraph();
+        EffectiveConfigBuilder builder = new EffectiveConfigBuilder(includeGraph);
+        try {
+            // the features of the document itself come from its text, not from disk
+            EffectiveConfig effectiveConfig = builder.build(serverXml, Set.of("shared/"));
+            assertEquals(Set.of("json-b-3.0", "transportsecurity-1.0"), effectiveConfig.getFeatures());
+            assertEquals("9080", effectiveConfig.getVariables().get("http.port"));
+            assertEquals(3, builder.getParsedFileCount());
+
+            // nothing changed, so nothing is parsed again
+            assertEquals(effectiveConfig.getFeatures(), builder.build(serverXml, Set.of("shared/")).getFeatures());
+            assertEquals(0, builder.getParsedFileCount());
+
+            // an included file sees the features of the server that includes it
+            File includedXml = sharedDir.resolve("a.xml").toFile();
+            assertEquals(Set.of("servlet-6.0", "transportsecurity-1.0"), builder.build(includedXml, Set.of("nested.xml")).getFeatures());
+
+            // only the changed file is parsed again
+            Files.writeString(sharedDir.resolve("nested.xml"), "<server><variable name=\"https.port\" value=\"9443\"/></server>");
+            includeGraph.fileChanged(sharedDir.resolve("nested.xml").toFile());
+            effectiveConfig = builder.build(serverXml, Set.of("shared/"));
+            assertEquals("9443", effectiveConfig.getVariables().get("https.port"));
+            assertFalse(effectiveConfig.getVariables().containsKey("http.port"));
+            assertEquals(1, builder.getParsedFileCount());
+
+            // removing the include drops the included features
+            assertEquals(Set.of("transportsecurity-1.0"), builder.build(serverXml, Set.of()).getFeatures());
+            assertEquals(Set.of(), includeGraph.getDependents(includedXml));
+        } finally {
+            includeGraph.close();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package io.openliberty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.openliberty.tools.langserver.lemminx.services.DirectoryWatchService;
+import io.openliberty.tools.langserver.lemminx.services.IncludeGraph;
+import io.openliberty.tools.langserver.lemminx.services.IncludeGraph.IncludedLocation;
+import io.openliberty.tools.langserver.lemminx.services.LibertyProjectsManager;
+
+public class IncludeGraphTest {
+
+    @Test
+    public void testIncludeGraph(@TempDir Path configDir) throws IOException, InterruptedException {
+        File serverXml = configDir.resolve("server.xml").toFile();
+        File sharedXml = configDir.resolve("shared.xml").toFile();
+        File fragmentXml = configDir.resolve("fragment.xml").toFile();
+        Files.writeString(sharedXml.toPath(), "<server/>");
+        IncludeGraph includeGraph = new IncludeGraph();
+        CountDownLatch dependentsChanged = new CountDownLatch(1);
+        Consumer<Set<String>> listener = dependents -> {
+            if (dependents.contains(IncludeGraph.getPath(serverXml))) {
+                dependentsChanged.countDown();
+            }
+        };
+        LibertyProjectsManager.getInstance().addIncludeDependentsListener(listener);
+        try {
+            IncludedLocation shared = includeGraph.resolve(serverXml, "shared.xml");
+            assertTrue(shared.exists());
+            assertTrue(shared.isFile());
+            assertEquals(shared, includeGraph.resolve(serverXml, "shared.xml"));
+            assertFalse(includeGraph.resolve(sharedXml, "fragment.xml").exists());
+
+            // server.xml depends on fragment.xml through shared.xml
+            assertEquals(Set.of(IncludeGraph.getPath(sharedXml), IncludeGraph.getPath(serverXml)), includeGraph.getDependents(fragmentXml));
+
+            // creating the included file drops the cached resolution and reports the including files
+            Files.writeString(fragmentXml.toPath(), "<server/>");
+            assertTrue(dependentsChanged.await(30, TimeUnit.SECONDS));
+            assertTrue(includeGraph.resolve(sharedXml, "fragment.xml").exists());
+
+            includeGraph.retainIncludes(sharedXml, Set.of());
+            assertEquals(Set.of(), includeGraph.getDependents(fragmentXml));
+            assertEquals(Set.of(IncludeGraph.getPath(serverXml)), includeGraph.getDependents(sharedXml));
+        } finally {
+            LibertyProjectsManager.getInstance().removeIncludeDependentsListener(listener);
+            includeGraph.close();
+        }
+    }
+
+    @Test
+    public void testIncludeGraphReleasesWatches(@TempDir Path configDir) throws IOException {
+        Path fragmentsDir = Files.createDirectories(configDir.resolve("fragments"));
+        Path sharedDir = Files.createDirectories(configDir.resolve("shared"));
+        File serverXml = configDir.resolve("server.xml").toFile();
+        File otherXml = configDir.resolve("other.xml").toFile();
+        IncludeGraph includeGraph = new IncludeGraph();
+        DirectoryWatchService watchService = DirectoryWatchService.getInstance();
+        try {
+            includeGraph.resolve(serverXml, "fragments/a.xml");
+            includeGraph.resolve(serverXml, "shared/");
+            includeGraph.resolve(otherXml, "fragments/b.xml");
+            assertEquals(Set.of(configDir, fragmentsDir, sharedDir), Set.copyOf(watchService.getWatchedDirectories(includeGraph)));
+
+            // a directory is watched until no remaining include needs it
+            includeGraph.retainIncludes(serverXml, Set.of());
+            assertEquals(List.of(fragmentsDir), watchService.getWatchedDirectories(includeGraph));
+            includeGraph.retainIncludes(otherXml, Set.of());
+            assertEquals(List.of(), watchService.getWatchedDirectories(includeGraph));
+        } finally {
+            includeGraph.close();
+        }
+    }
+}
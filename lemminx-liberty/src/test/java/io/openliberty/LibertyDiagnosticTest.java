@@ -5,6 +5,7 @@ import io.openliberty.tools.langserver.lemminx.util.ResourceBundleMappingConstan
 import io.openliberty.tools.langserver.lemminx.util.ResourceBundleUtil;
 import org.eclipse.lemminx.XMLAssert;
 import org.eclipse.lemminx.commons.BadLocationException;
+import org.eclipse.lemminx.dom.DOMParser;
 import org.eclipse.lsp4j.CodeAction;
 import org.eclipse.lsp4j.Diagnostic;
 import org.eclipse.lsp4j.DiagnosticSeverity;
@@ -33,7 +34,10 @@ import static org.eclipse.lemminx.XMLAssert.r;
 import static org.eclipse.lemminx.XMLAssert.ca;
 import static org.eclipse.lemminx.XMLAssert.te;
 import static org.eclipse.lemminx.XMLAssert.tde;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
@@ -1427,4 +1431,71 @@ public class LibertyDiagnosticTest {
 
         XMLAssert.testDiagnosticsFor(serverXML1, null, null, serverXMLURI, servletIncompatibilityDiagnostic, appSecurityIncompatibilityDiagnostic, mpTelemetryIncompatibilityDiagnostic, mpConfigIncompatibilityDiagnostic);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testIncrementalDiagnosticsReuseUnchangedElements() {
+        LibertyDiagnosticParticipant participant = new LibertyDiagnosticParticipant();
+        String featureManager = String.join(newLine, //
+                "       <featureManager>", //
+                "               <feature>jaxrs-2.1</feature>", //
+                "               <feature>jaxrs-2.1</feature>", //
+                "       </featureManager>");
+        String serverXML1 = String.join(newLine, //
+                "<server description=\"Sample Liberty server\">", //
+                featureManager, //
+                "</server>" //
+        );
+        List<Diagnostic> diagnostics1 = new ArrayList<Diagnostic>();
+        participant.doDiagnostics(DOMParser.getInstance().parse(serverXML1, serverXMLURI, null), diagnostics1, null, () -> {});
+        assertEquals(1, diagnostics1.size());
+
+        // edit after the featureManager, the cached featureManager diagnostics are reused
+        String serverXML2 = String.join(newLine, //
+                "<server description=\"Sample Liberty server\">", //
+                featureManager, //
+                "       <!-- edited -->", //
+                "</server>" //
+        );
+        List<Diagnostic> diagnostics2 = new ArrayList<Diagnostic>();
+        participant.doDiagnostics(DOMParser.getInstance().parse(serverXML2, serverXMLURI, null), diagnostics2, null, () -> {});
+        assertEquals(1, diagnostics2.size());
+        assertSame(diagnostics1.get(0), diagnostics2.get(0));
+
+        // edit inside the featureManager, the featureManager is validated again
+        String serverXML3 = serverXML2.replace("<feature>jaxrs-2.1</feature>" + newLine + "               <feature>jaxrs-2.1</feature>",
+                "<feature>jaxrs-2.1</feature>" + newLine + "               <feature>jaxrs-2.0</feature>");
+        List<Diagnostic> diagnostics3 = new ArrayList<Diagnostic>();
+        participant.doDiagnostics(DOMParser.getInstance().parse(serverXML3, serverXMLURI, null), diagnostics3, null, () -> {});
+        assertEquals(1, diagnostics3.size());
+        assertNotSame(diagnostics1.get(0), diagnostics3.get(0));
+        assertEquals("ERROR: More than one version of feature jaxrs is included. Only one version of a feature may be specified.", diagnostics3.get(0).getMessage());
+    }
+
+    @Test
+    public void testIncrementalDiagnosticsFollowLineChanges() {
+        LibertyDiagnosticParticipant participant = new LibertyDiagnosticParticipant();
+        String featureManager = String.join(newLine, //
+                "       <featureManager>", //
+                "               <feature>jaxrs-2.1</feature>", //
+                "               <feature>jaxrs-2.1</feature>", //
+                "       </featureManager>");
+        String serverXML1 = String.join(newLine, //
+                "<server description=\"Sample Liberty server\">", //
+                "       <!-- first\nsecond -->", //
+                featureManager, //
+                "</server>" //
+        );
+        List<Diagnostic> diagnostics1 = new ArrayList<Diagnostic>();
+        participant.doDiagnostics(DOMParser.getInstance().parse(serverXML1, serverXMLURI, null), diagnostics1, null, () -> {});
+        assertEquals(1, diagnostics1.size());
+
+        // joining the lines of the comment keeps the offset and text of the featureManager, but moves it up a line
+        String serverXML2 = serverXML1.replace("first\nsecond", "first second");
+        List<Diagnostic> diagnostics2 = new ArrayList<Diagnostic>();
+        participant.doDiagnostics(DOMParser.getInstance().parse(serverXML2, serverXMLURI, null), diagnostics2, null, () -> {});
+        assertEquals(1, diagnostics2.size());
+        assertEquals(diagnostics1.get(0).getMessage(), diagnostics2.get(0).getMessage());
+        assertEquals(diagnostics1.get(0).getRange().getStart().getLine() - 1, diagnostics2.get(0).getRange().getStart().getLine());
+        assertEquals(diagnostics1.get(0).getRange().getEnd().getLine() - 1, diagnostics2.get(0).getRange().getEnd().getLine());
+    }
+}
@@ -2,17 +2,44 @@ package io.openliberty;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import io.openliberty.tools.langserver.lemminx.services.SettingsService;
 import org.eclipse.lsp4j.InitializeParams;
 import org.eclipse.lsp4j.WorkspaceFolder;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.xml.stream.XMLStreamException;
+import com.sun.net.httpserver.HttpServer;
 
 import io.openliberty.tools.langserver.lemminx.data.FeatureListGraph;
 import io.openliberty.tools.langserver.lemminx.models.feature.Feature;
@@ -20,6 +47,10 @@ import io.openliberty.tools.langserver.lemminx.models.feature.FeaturesAndPlatfor
 import io.openliberty.tools.langserver.lemminx.services.FeatureService;
 import io.openliberty.tools.langserver.lemminx.services.LibertyProjectsManager;
 import io.openliberty.tools.langserver.lemminx.services.LibertyWorkspace;
+import io.openliberty.tools.langserver.lemminx.util.FeatureCacheUtil;
+import io.openliberty.tools.langserver.lemminx.util.LibertyVersionDownloadUtil;
+import io.openliberty.tools.langserver.lemminx.util.SingleFlight;
+import io.openliberty.tools.langserver.lemminx.util.XmlReader;
 import jakarta.xml.bind.JAXBException;
 
 public class LibertyFeatureTest {
@@ -48,6 +79,13 @@ public class LibertyFeatureTest {
         
         assertFalse(installedFeatures.isEmpty());
         assertTrue(installedFeatures.equals(libWorkspace.getInstalledFeaturesAndPlatformsList().getPublicFeatures()));
+        // Check the feature index
+        assertEquals("cdi-4.0", fp.getFeature("CDI-4.0").getName());
+        assertNull(fp.getFeature("cdi-9.9"));
+        assertEquals(installedFeatures.size(), fp.getFeatureShortNamesLowerCase().size());
+        assertEquals(installedFeatures.stream().filter(f -> f.getName().toLowerCase().contains("profile-")).count(), fp.findFeatures("Profile-").size());
+        assertTrue(fp.findFeatures("cdi").contains(fp.getFeature("cdi-4.0")));
+        assertTrue(fp.findFeatures("unknownFeature").isEmpty());
         // Check that list contains a beta feature
         assertTrue(installedFeatures.removeIf(f -> (f.getName().equals("cdi-4.0"))));
 
@@ -60,6 +98,306 @@ public class LibertyFeatureTest {
         assertEquals(292, fg.getAllEnabledBy("library").size());
         assertTrue(fg.getAllEnabledBy("ltpa").contains("admincenter-1.0"));  // direct enabler
         assertTrue(fg.getAllEnabledBy("ssl").contains("microprofile-5.0"));  // transitive enabler
+
+        // Check the reachability index agrees with getAllEnabledBy
+        assertTrue(fg.isEnabledBy("ssl", fg.getFeatureSet(Arrays.asList("microprofile-5.0"))));
+        assertTrue(fg.isEnabledBy("ssl", fg.getFeatureSet(Arrays.asList("SSL-1.0"))));  // case insensitive
+        assertTrue(fg.isEnabledBy("ltpa", fg.getFeatureSet(Arrays.asList("adminCenter"))));  // versionless name
+        assertFalse(fg.isEnabledBy("ssl", fg.getFeatureSet(Arrays.asList("jsonp-1.1", "unknown-1.0"))));
+        assertFalse(fg.isEnabledBy("unknownElement", fg.getFeatureSet(Arrays.asList("microprofile-5.0"))));
         assertEquals("en",SettingsService.getInstance().getCurrentLocale().toString());
     }
+
+    @Test
+    public void sharedFeatureListGraphTest() throws JAXBException {
+        FeatureService fs = FeatureService.getInstance();
+        fs.evictCache();
+        File featureListFile = new File("src/test/resources/featurelist-ol-25.0.0.6.xml");
+
+        LibertyWorkspace workspace1 = new LibertyWorkspace(new File("src/test/resources/sample").toURI().toString());
+        LibertyWorkspace workspace2 = new LibertyWorkspace(new File("src/test/resources/serverConfig").toURI().toString());
+        for (LibertyWorkspace workspace : Arrays.asList(workspace1, workspace2)) {
+            workspace.setLibertyRuntime("ol");
+            workspace.setLibertyVersion("25.0.0.6");
+            workspace.setLibertyInstalled(true);
+            fs.readFeaturesFromFeatureListFile(workspace, featureListFile);
+            // skip the check for a generated feature list in getFeatureListGraph
+            workspace.setLibertyInstalled(false);
+        }
+
+        // both workspaces use the same runtime and feature list, so the graph is shared
+        FeatureListGraph fg = workspace1.getFeatureListGraph();
+        assertTrue(fg == workspace2.getFeatureListGraph());
+        assertEquals(92, fg.getAllEnabledBy("ssl").size());
+        assertEquals("ssl-1.0", fg.getConfigElementNode("ssl").getEnabledBy().iterator().next());
+
+        // the graph stays cached while a workspace still uses it
+        fs.releaseSharedFeatureList(workspace1);
+        LibertyWorkspace workspace3 = new LibertyWorkspace(new File("src/test/resources/configDropins").toURI().toString());
+        workspace3.setLibertyRuntime("ol");
+        workspace3.setLibertyVersion("25.0.0.6");
+        workspace3.setLibertyInstalled(true);
+        fs.readFeaturesFromFeatureListFile(workspace3, featureListFile);
+        workspace3.setLibertyInstalled(false);
+        assertTrue(fg == workspace3.getFeatureListGraph());
+
+        // and is freed once the last workspace using it is released
+        fs.releaseSharedFeatureList(workspace2);
+        fs.releaseSharedFeatureList(workspace3);
+        workspace1.setLibertyInstalled(true);
+        fs.readFeaturesFromFeatureListFile(workspace1, featureListFile);
+        workspace1.setLibertyInstalled(false);
+        assertFalse(fg == workspace1.getFeatureListGraph());
+        fs.evictCache();
+    }
+
+    @Test
+    public void featureListGraphSnapshotTest() throws IOException, XMLStreamException {
+        File featureListFile = new File("src/test/resources/featurelist-ol-25.0.0.6.xml");
+        FeatureListGraph fg = FeatureService.buildFeatureListGraph(XmlReader.readFeatureInfo(featureListFile).getFeatures());
+
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        fg.writeSnapshot(new DataOutputStream(snapshot));
+        FeatureListGraph snapshotGraph = FeatureListGraph.readSnapshot(new DataInputStream(new ByteArrayInputStream(snapshot.toByteArray())));
+
+        assertEquals(91, snapshotGraph.getAllEnabledBy("ssl-1.0").size());
+        assertEquals(92, snapshotGraph.getAllEnabledBy("ssl").size());
+        assertEquals(292, snapshotGraph.getAllEnabledBy("library").size());
+        assertEquals(fg.getAllEnabledBy("library", true), snapshotGraph.getAllEnabledBy("library", true));
+        assertEquals(fg.getConfigElementNode("ssl").getEnabledBy(), snapshotGraph.getConfigElementNode("ssl").getEnabledBy());
+        assertEquals(fg.getFeatureListNode("mpMetrics").isVersionless(), snapshotGraph.getFeatureListNode("mpMetrics").isVersionless());
+        assertEquals(fg.getFeatureListNode("ssl-1.0").getDescription(), snapshotGraph.getFeatureListNode("ssl-1.0").getDescription());
+        assertTrue(snapshotGraph.isEnabledBy("ssl", snapshotGraph.getFeatureSet(Arrays.asList("microprofile-5.0"))));
+
+        // a compacted graph cannot be changed, and changing a node returned by it does not change the graph
+        assertThrows(IllegalStateException.class, () -> fg.addFeature("ssl-1.0"));
+        assertThrows(IllegalStateException.class, () -> snapshotGraph.addConfigElement("ssl"));
+        snapshotGraph.getConfigElementNode("ssl").addEnabledBy("servlet-6.0");
+        assertEquals(fg.getConfigElementNode("ssl").getEnabledBy(), snapshotGraph.getConfigElementNode("ssl").getEnabledBy());
+
+        // the build pre-compiles the bundled feature lists
+        assertTrue(LibertyFeatureTest.class.getResource("/featurelist.cached/featurelist-cached-25.0.0.6.bin") != null);
+    }
+
+    @Test
+    public void featureListGraphConcurrentReadTest() throws Exception {
+        File featureListFile = new File("src/test/resources/featurelist-ol-25.0.0.6.xml");
+        List<Feature> features = XmlReader.readFeatureInfo(featureListFile).getFeatures();
+        FeatureListGraph fg = new FeatureListGraph();
+        for (Feature f : features) {
+            fg.addFeature(f.getName(), f.getDescription());
+            if (f.getConfigElements() != null) {
+                for (String configElement : f.getConfigElements()) {
+                    fg.addConfigElement(configElement).addEnabledBy(f.getName());
+                }
+            }
+        }
+
+        // readers compact the graph on first use and then share its enabledBy caches
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<CompletableFuture<Set<String>>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                results.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return fg.getAllEnabledBy("ssl");
+                }, executor));
+            }
+            start.countDown();
+            Set<String> enabledBy = results.get(0).get();
+            assertEquals(1, enabledBy.size());
+            for (CompletableFuture<Set<String>> result : results) {
+                assertTrue(enabledBy == result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void persistentFeatureListCacheTest(@TempDir Path tempDir) throws IOException {
+        Path installDir = tempDir.resolve("wlp");
+        Path featuresDir = Files.createDirectories(installDir.resolve("lib").resolve("features"));
+        Files.writeString(featuresDir.resolve("com.ibm.websphere.appserver.ssl-1.0.mf"), "Subsystem-SymbolicName: ssl-1.0");
+        String runtimeFingerprint = FeatureCacheUtil.getRuntimeFingerprint(installDir);
+        File featureListFile = new File("src/test/resources/featurelist-ol-25.0.0.6.xml");
+
+        // keep the cached files out of the user's cache
+        System.setProperty(LibertyVersionDownloadUtil.LIBERTY_LS_CACHE_DIR_PROPERTY, tempDir.resolve("cache").toString());
+        try {
+            Path cachedFeatureList = FeatureCacheUtil.cacheFeatureList("ol", "0.0.0.0-test", "en", runtimeFingerprint, featureListFile);
+            assertTrue(cachedFeatureList.startsWith(tempDir.resolve("cache")));
+            assertEquals(cachedFeatureList, FeatureCacheUtil.getCachedFeatureList("ol", "0.0.0.0-test", "en", runtimeFingerprint));
+            assertEquals(Files.size(featureListFile.toPath()), Files.size(cachedFeatureList));
+
+            // installing a feature invalidates the cached feature list
+            Files.writeString(featuresDir.resolve("io.openliberty.mpMetrics-5.0.mf"), "Subsystem-SymbolicName: mpMetrics-5.0");
+            assertNull(FeatureCacheUtil.getCachedFeatureList("ol", "0.0.0.0-test", "en", FeatureCacheUtil.getRuntimeFingerprint(installDir)));
+
+            // so does a cached file that no longer matches its checksum
+            Files.writeString(cachedFeatureList, "<featureInfo/>");
+            assertNull(FeatureCacheUtil.getCachedFeatureList("ol", "0.0.0.0-test", "en", runtimeFingerprint));
+        } finally {
+            System.clearProperty(LibertyVersionDownloadUtil.LIBERTY_LS_CACHE_DIR_PROPERTY);
+        }
+    }
+
+    @Test
+    public void backgroundFeatureDownloadTest(@TempDir Path tempDir) throws Exception {
+        Path workspaceDir = Files.createDirectories(tempDir.resolve("workspace"));
+        String documentURI = workspaceDir.resolve("server.xml").toUri().toString();
+        LibertyProjectsManager.getInstance().cleanInstance();
+        LibertyProjectsManager.getInstance().setWorkspaceFolders(List.of(new WorkspaceFolder(workspaceDir.toUri().toString())));
+
+        // serves the features json of 0.0.0.1-test once released, and fails every other download
+        AtomicInteger downloads = new AtomicInteger();
+        AtomicInteger failedDownloads = new AtomicInteger();
+        CountDownLatch releaseDownload = new CountDownLatch(1);
+        byte[] featuresJson = "[{\"name\":\"testOnly-1.0\",\"wlpInformation\":{\"shortName\":\"testOnly-1.0\",\"visibility\":\"PUBLIC\"}}]"
+                .getBytes(StandardCharsets.UTF_8);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            if (exchange.getRequestURI().getPath().contains("0.0.0.1-test")) {
+                downloads.incrementAndGet();
+                try {
+                    releaseDownload.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                exchange.sendResponseHeaders(200, featuresJson.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(featuresJson);
+                }
+            } else {
+                failedDownloads.incrementAndGet();
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        String endpoint = "http://127.0.0.1:" + server.getAddress().getPort() + "/features/%1$s/features-%1$s.json";
+
+        FeatureService fs = FeatureService.getInstance();
+        List<String> updatedKeys = new CopyOnWriteArrayList<>();
+        CountDownLatch updated = new CountDownLatch(1);
+        Consumer<String> listener = key -> {
+            updatedKeys.add(key);
+            updated.countDown();
+        };
+        System.setProperty(LibertyVersionDownloadUtil.LIBERTY_LS_CACHE_DIR_PROPERTY, tempDir.resolve("cache").toString());
+        FeatureService.setFeatureEndpoints(endpoint, endpoint);
+        fs.evictCache();
+        fs.addFeaturesUpdatedListener(listener);
+        try {
+            // the request does not wait for the download, it gets the default features until the download completes
+            FeaturesAndPlatforms fp = fs.getFeaturesAndPlatforms("0.0.0.1-test", "ol", 120, documentURI);
+            assertNull(fp.getFeature("testOnly-1.0"));
+            assertTrue(updatedKeys.isEmpty());
+
+            // once it completes, the listeners are notified with the runtime-version key and the downloaded features are used
+            releaseDownload.countDown();
+            assertTrue(updated.await(30, TimeUnit.SECONDS));
+            assertEquals(List.of("ol-0.0.0.1-test"), updatedKeys);
+            assertEquals("testOnly-1.0", fs.getFeaturesAndPlatforms("0.0.0.1-test", "ol", 120, documentURI).getFeature("testOnly-1.0").getName());
+            assertEquals(1, downloads.get());
+
+            // a failed download falls back to the default features, and is not tried again within the request delay
+            assertNull(fs.getFeaturesAndPlatforms("0.0.0.2-test", "ol", 120, documentURI).getFeature("testOnly-1.0"));
+            awaitFeatureDownload(fs, "ol", "0.0.0.2-test");
+            assertEquals(1, failedDownloads.get());
+            assertNull(fs.getFeaturesAndPlatforms("0.0.0.2-test", "ol", 120, documentURI).getFeature("testOnly-1.0"));
+            assertNull(fs.getFeatureDownload("ol", "0.0.0.2-test"));
+            assertEquals(1, failedDownloads.get());
+
+            // after the request delay it is tried again
+            fs.getFeaturesAndPlatforms("0.0.0.2-test", "ol", 0, documentURI);
+            awaitFeatureDownload(fs, "ol", "0.0.0.2-test");
+            assertEquals(2, failedDownloads.get());
+            assertEquals(List.of("ol-0.0.0.1-test"), updatedKeys);
+        } finally {
+            fs.removeFeaturesUpdatedListener(listener);
+            FeatureService.setFeatureEndpoints(null, null);
+            fs.evictCache();
+            System.clearProperty(LibertyVersionDownloadUtil.LIBERTY_LS_CACHE_DIR_PROPERTY);
+            server.stop(0);
+            LibertyProjectsManager.getInstance().cleanInstance();
+        }
+    }
+
+    // waits for the background download of a features json, which may already have completed
+    private static void awaitFeatureDownload(FeatureService fs, String libertyRuntime, String libertyVersion) throws Exception {
+        CompletableFuture<FeaturesAndPlatforms> download = fs.getFeatureDownload(libertyRuntime, libertyVersion);
+        if (download != null) {
+            download.get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void featureListGraphCacheTest(@TempDir Path tempDir) throws Exception {
+        Path featureListXml = tempDir.resolve("open_liberty_featurelist-25.0.0.6.xml");
+        Files.copy(Path.of("src/test/resources/featurelist-ol-25.0.0.6.xml"), featureListXml);
+
+        System.setProperty(LibertyVersionDownloadUtil.LIBERTY_LS_CACHE_DIR_PROPERTY, tempDir.resolve("cache").toString());
+        try {
+            assertNull(FeatureCacheUtil.getCachedFeatureListGraph(featureListXml));
+            FeatureListGraph fg = FeatureService.buildFeatureListGraph(XmlReader.readFeatureInfo(featureListXml.toFile()).getFeatures());
+            Path cachedSnapshot = FeatureCacheUtil.cacheFeatureListGraph(featureListXml, fg);
+            assertTrue(cachedSnapshot.startsWith(tempDir.resolve("cache")));
+
+            // the graph is read back from the snapshot while the xml is unchanged
+            FeatureListGraph cachedGraph = FeatureCacheUtil.getCachedFeatureListGraph(featureListXml);
+            assertEquals(292, cachedGraph.getAllEnabledBy("library").size());
+            assertEquals(fg.getAllEnabledBy("ssl", true), cachedGraph.getAllEnabledBy("ssl", true));
+
+            // a changed xml is parsed again
+            Files.writeString(featureListXml, "<!-- changed -->", StandardOpenOption.APPEND);
+            assertNull(FeatureCacheUtil.getCachedFeatureListGraph(featureListXml));
+        } finally {
+            System.clearProperty(LibertyVersionDownloadUtil.LIBERTY_LS_CACHE_DIR_PROPERTY);
+        }
+    }
+
+    @Test
+    public void singleFlightTest() throws Exception {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CompletableFuture<Integer> first = singleFlight.runAsync("ol-25.0.0.6", () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return runs.incrementAndGet();
+            }, executor);
+            started.await();
+
+            // callers for the same key share the task in progress
+            assertTrue(first == singleFlight.runAsync("ol-25.0.0.6", runs::incrementAndGet, executor));
+            release.countDown();
+            assertEquals(1, first.get());
+            assertEquals(1, runs.get());
+
+            // a completed task is not reused
+            assertNull(singleFlight.get("ol-25.0.0.6"));
+            assertEquals(2, singleFlight.run("ol-25.0.0.6", runs::incrementAndGet));
+
+            // a task run on the calling thread by the executor completes without deadlocking on the map
+            CompletableFuture<Integer> direct = singleFlight.runAsync("wlp-25.0.0.6", () -> singleFlight.run("ol-25.0.0.6", runs::incrementAndGet), Runnable::run);
+            assertEquals(3, direct.get());
+            assertNull(singleFlight.get("wlp-25.0.0.6"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
@@ -1,5 +1,11 @@
 package io.openliberty;
 
+import io.openliberty.tools.langserver.lemminx.LibertyHoverParticipant;
+import io.openliberty.tools.langserver.lemminx.data.FeatureListGraph;
+import io.openliberty.tools.langserver.lemminx.models.feature.Feature;
+import io.openliberty.tools.langserver.lemminx.models.feature.FeaturesAndPlatforms;
+import io.openliberty.tools.langserver.lemminx.models.feature.WlpInformation;
+import io.openliberty.tools.langserver.lemminx.services.FeatureService;
 import io.openliberty.tools.langserver.lemminx.services.LibertyProjectsManager;
 import io.openliberty.tools.langserver.lemminx.services.LibertyWorkspace;
 import io.openliberty.tools.langserver.lemminx.services.SettingsService;
@@ -16,6 +22,10 @@ import static io.openliberty.tools.langserver.lemminx.LibertyXSDURIResolver.LIBE
 
 import org.eclipse.lemminx.XMLAssert;
 import org.eclipse.lemminx.commons.BadLocationException;
+import org.eclipse.lemminx.dom.DOMDocument;
+import org.eclipse.lemminx.dom.DOMNode;
+import org.eclipse.lemminx.dom.DOMParser;
+import org.eclipse.lemminx.services.extensions.hover.IHoverRequest;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
@@ -26,7 +36,11 @@ import static io.openliberty.tools.langserver.lemminx.util.LibertyConstants.BRAZ
 import static io.openliberty.tools.langserver.lemminx.util.LibertyConstants.LOCALE;
 import static io.openliberty.tools.langserver.lemminx.util.LibertyConstants.VERSION;
 import static org.eclipse.lemminx.XMLAssert.r;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
@@ -329,4 +343,71 @@ public class LibertyHoverTest {
                         r(2, 24, 2, 29));
 
         }
+
+        @Test
+        public void testFeatureHoverCache() {
+                String serverXML = String.join(newLine, //
+                        "<server description=\"Sample Liberty server\">", //
+                        "       <featureManager>", //
+                        "               <feature>jaxrs-2.1</feature>", //
+                        "               <feature>mpHealth-4.0</feature>", //
+                        "       </featureManager>", //
+                        "</server>" //
+                );
+                DOMDocument document = DOMParser.getInstance().parse(serverXML, serverXMLURI, null);
+                FeatureListGraph graph = new FeatureListGraph();
+                graph.addFeature("jaxrs-2.1", "JAX-RS 2.1.");
+                FeatureListGraph cachedGraph = Mockito.spy(graph);
+                FeatureListGraph replacedGraph = Mockito.spy(graph);
+                FeaturesAndPlatforms cachedFeatures = Mockito.spy(createFeaturesAndPlatforms("mpHealth-4.0", "MicroProfile Health 4.0"));
+                FeaturesAndPlatforms replacedFeatures = Mockito.spy(createFeaturesAndPlatforms("mpHealth-4.0", "MicroProfile Health 4.0"));
+                FeatureService featureService = Mockito.mock(FeatureService.class);
+                LibertyHoverParticipant participant = new LibertyHoverParticipant();
+
+                try (MockedStatic<FeatureService> features = Mockito.mockStatic(FeatureService.class)) {
+                        features.when(FeatureService::getInstance).thenReturn(featureService);
+                        when(featureService.getDefaultFeatureList()).thenReturn(cachedGraph);
+                        when(featureService.getFeaturesAndPlatforms(any(), any(), anyInt(), any())).thenReturn(cachedFeatures);
+
+                        // a second hover returns the cached markdown without rendering it again
+                        String hover = getFeatureHover(participant, document, "jaxrs-2.1");
+                        assertEquals(hover, getFeatureHover(participant, document, "jaxrs-2.1"));
+                        verify(cachedGraph, times(1)).getFeatureListNode("jaxrs-2.1");
+                        String featuresHover = getFeatureHover(participant, document, "mpHealth-4.0");
+                        assertEquals(featuresHover, getFeatureHover(participant, document, "mpHealth-4.0"));
+                        verify(cachedFeatures, times(1)).getFeature("mpHealth-4.0");
+
+                        // a replaced feature list graph or features and platforms is rendered again
+                        when(featureService.getDefaultFeatureList()).thenReturn(replacedGraph);
+                        when(featureService.getFeaturesAndPlatforms(any(), any(), anyInt(), any())).thenReturn(replacedFeatures);
+                        assertEquals(hover, getFeatureHover(participant, document, "jaxrs-2.1"));
+                        verify(replacedGraph, times(1)).getFeatureListNode("jaxrs-2.1");
+                        assertEquals(featuresHover, getFeatureHover(participant, document, "mpHealth-4.0"));
+                        verify(replacedFeatures, times(1)).getFeature("mpHealth-4.0");
+
+                        // a locale change renders the hover again
+                        when(settingsService.getCurrentLocale()).thenReturn(Locale.FRANCE);
+                        getFeatureHover(participant, document, "jaxrs-2.1");
+                        verify(replacedGraph, times(2)).getFeatureListNode("jaxrs-2.1");
+                        getFeatureHover(participant, document, "mpHealth-4.0");
+                        verify(replacedFeatures, times(2)).getFeature("mpHealth-4.0");
+                }
+        }
+
+        private static String getFeatureHover(LibertyHoverParticipant participant, DOMDocument document, String featureName) {
+                DOMNode featureText = document.findNodeAt(document.getText().indexOf(featureName) + 1);
+                IHoverRequest request = Mockito.mock(IHoverRequest.class);
+                when(request.getXMLDocument()).thenReturn(document);
+                when(request.getParentElement()).thenReturn(featureText.getParentElement());
+                when(request.getNode()).thenReturn(featureText);
+                return participant.onText(request, null).getContents().getRight().getValue();
+        }
+
+        private static FeaturesAndPlatforms createFeaturesAndPlatforms(String featureName, String description) {
+                Feature feature = new Feature();
+                feature.setName(featureName);
+                feature.setShortDescription(description);
+                feature.setWlpInformation(new WlpInformation(featureName));
+                return new FeaturesAndPlatforms(new ArrayList<>(List.of(feature)), new ArrayList<>());
+        }
 }
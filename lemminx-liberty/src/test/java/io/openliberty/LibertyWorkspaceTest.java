@@ -1,5 +1,6 @@
 package io.openliberty;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -8,11 +9,26 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
+import org.eclipse.lsp4j.WorkspaceFolder;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import io.openliberty.tools.langserver.lemminx.services.FileWatchService;
+import io.openliberty.tools.langserver.lemminx.services.LibertyProjectsManager;
 import io.openliberty.tools.langserver.lemminx.services.LibertyWorkspace;
+import io.openliberty.tools.langserver.lemminx.services.SettingsService;
 import io.openliberty.tools.langserver.lemminx.util.LibertyUtils;
+import io.openliberty.tools.langserver.lemminx.util.LibertyVersionDownloadUtil;
 
 public class LibertyWorkspaceTest {
     
@@ -58,4 +74,129 @@ public class LibertyWorkspaceTest {
         boolean test1 = LibertyUtils.isConfigXMLFile(filePathString);
         assertFalse(test1);
     }
+
+    @Test
+    public void testWorkspaceLookup(@TempDir Path tempDir) throws IOException {
+        Path outerDir = Files.createDirectories(tempDir.resolve("outer"));
+        Path innerDir = Files.createDirectories(outerDir.resolve("inner"));
+        Path otherDir = Files.createDirectories(tempDir.resolve("other"));
+        String outerUri = outerDir.toUri().toString().replace("///", "/");
+        String innerUri = innerDir.toUri().toString().replace("///", "/");
+        String otherUri = otherDir.toUri().toString().replace("///", "/");
+
+        LibertyProjectsManager libPM = LibertyProjectsManager.getInstance();
+        System.setProperty(LibertyVersionDownloadUtil.LIBERTY_LS_CACHE_DIR_PROPERTY, tempDir.resolve("cache").toString());
+        try {
+            libPM.cleanInstance();
+            libPM.setWorkspaceFolders(List.of(new WorkspaceFolder(outerDir.toUri().toString()), new WorkspaceFolder(innerDir.toUri().toString())));
+
+            // nested workspaces resolve to the closest one, also when the lookup was memoized for the directory
+            assertEquals(innerUri, libPM.getWorkspaceFolder(innerDir.resolve("server.xml").toUri().toString()).getWorkspaceString());
+            assertEquals(innerUri, libPM.getWorkspaceFolder(innerDir.resolve("other.xml").toUri().toString()).getWorkspaceString());
+            assertEquals(outerUri, libPM.getWorkspaceFolder(outerDir.resolve("server.xml").toUri().toString()).getWorkspaceString());
+            // a document outside of every workspace has no workspace
+            assertNull(libPM.getWorkspaceFolder(otherDir.resolve("server.xml").toUri().toString()));
+
+            // the lookups are dropped when the set of workspaces changes
+            libPM.setWorkspaceFolders(List.of(new WorkspaceFolder(otherDir.toUri().toString())));
+            assertEquals(otherUri, libPM.getWorkspaceFolder(otherDir.resolve("server.xml").toUri().toString()).getWorkspaceString());
+            libPM.cleanInstance();
+            libPM.setWorkspaceFolders(List.of(new WorkspaceFolder(outerDir.toUri().toString())));
+            assertEquals(outerUri, libPM.getWorkspaceFolder(innerDir.resolve("server.xml").toUri().toString()).getWorkspaceString());
+        } finally {
+            libPM.cleanInstance();
+            System.clearProperty(LibertyVersionDownloadUtil.LIBERTY_LS_CACHE_DIR_PROPERTY);
+        }
+    }
+
+    @Test
+    public void testFileWatchServiceRegistersDirectories(@TempDir Path workspaceDir) throws Exception {
+        Path targetDir = Files.createDirectories(workspaceDir.resolve("target/liberty/wlp/usr/servers/defaultServer"));
+        Path buildDir = workspaceDir.resolve("build");
+        LibertyWorkspace workspace = new LibertyWorkspace(workspaceDir.toUri().toString());
+        FileWatchService fileWatchService = FileWatchService.getInstance();
+        CountDownLatch updated = new CountDownLatch(1);
+        Consumer<LibertyWorkspace> listener = updatedWorkspace -> {
+            if (updatedWorkspace == workspace) {
+                updated.countDown();
+            }
+        };
+        fileWatchService.addVariablesUpdatedListener(listener);
+        try {
+            fileWatchService.addFileAlterationObserver(workspace, List.of(workspaceDir.resolve("target").toString(), buildDir.toString()));
+            assertFalse(fileWatchService.isPolling(workspace));
+
+            // the existing subdirectories of a location are watched, the parents of the locations for the locations only
+            List<Path> watchedDirs = fileWatchService.getWatchedDirectories(workspace);
+            assertTrue(watchedDirs.contains(workspaceDir));
+            assertTrue(watchedDirs.contains(targetDir));
+            assertFalse(watchedDirs.contains(buildDir));
+
+            // a location created after it was watched is watched with its subdirectories, and its config files are noticed
+            Path buildServerDir = Files.createDirectories(buildDir.resolve("wlp/usr/servers/defaultServer"));
+            Files.writeString(buildServerDir.resolve("server.env"), "HTTP_PORT=9080");
+            assertTrue(updated.await(30, TimeUnit.SECONDS));
+            assertTrue(fileWatchService.getWatchedDirectories(workspace).contains(buildServerDir));
+        } finally {
+            fileWatchService.removeVariablesUpdatedListener(listener);
+            fileWatchService.cleanFileMonitors();
+        }
+    }
+
+    @Test
+    public void testFileWatchServiceCoalescesChanges(@TempDir Path workspaceDir) throws Exception {
+        Path serverDir = Files.createDirectories(workspaceDir.resolve("target/liberty/wlp/usr/servers/defaultServer"));
+        LibertyWorkspace workspace = new LibertyWorkspace(workspaceDir.toUri().toString());
+        FileWatchService fileWatchService = FileWatchService.getInstance();
+        // for each update, whether it was made after the last change was written
+        List<Boolean> updates = new CopyOnWriteArrayList<Boolean>();
+        AtomicBoolean lastChangeWritten = new AtomicBoolean();
+        CountDownLatch updated = new CountDownLatch(1);
+        CountDownLatch lastChangeUpdated = new CountDownLatch(1);
+        Consumer<LibertyWorkspace> listener = updatedWorkspace -> {
+            if (updatedWorkspace == workspace) {
+                boolean afterLastChange = lastChangeWritten.get();
+                updates.add(afterLastChange);
+                (afterLastChange ? lastChangeUpdated : updated).countDown();
+            }
+        };
+        SettingsService.getInstance().updateLibertySettings(Map.of("liberty", Map.of("fileWatchDelay", 1000)));
+        fileWatchService.addVariablesUpdatedListener(listener);
+        try {
+            fileWatchService.addFileAlterationObserver(workspace, List.of(workspaceDir.resolve("target").toString()));
+
+            // changes within the file watch delay of each other update the variables once
+            Files.writeString(serverDir.resolve("server.xml"), "<server/>");
+            Files.writeString(serverDir.resolve("server.env"), "HTTP_PORT=9080");
+            Files.writeString(serverDir.resolve("bootstrap.properties"), "https.port=9443");
+            Files.writeString(serverDir.resolve("server.env"), "HTTP_PORT=9081");
+            assertTrue(updated.await(30, TimeUnit.SECONDS));
+
+            // a later change is a separate update, which comes after any other update of the changes above
+            lastChangeWritten.set(true);
+            Files.writeString(serverDir.resolve("server.env"), "HTTP_PORT=9082");
+            assertTrue(lastChangeUpdated.await(30, TimeUnit.SECONDS));
+            assertEquals(List.of(false, true), updates);
+        } finally {
+            fileWatchService.removeVariablesUpdatedListener(listener);
+            fileWatchService.cleanFileMonitors();
+            SettingsService.getInstance().updateLibertySettings(Map.of("liberty", Map.of()));
+        }
+    }
+
+    @Test
+    public void testFileWatchServicePollingFallback(@TempDir Path workspaceDir) throws Exception {
+        // the parent of the location does not exist, so it cannot be watched natively
+        Path location = workspaceDir.resolve("missing/target");
+        LibertyWorkspace workspace = new LibertyWorkspace(workspaceDir.toUri().toString());
+        FileWatchService fileWatchService = FileWatchService.getInstance();
+        try {
+            fileWatchService.addFileAlterationObserver(workspace, List.of(location.toString()));
+            assertTrue(fileWatchService.isPolling(workspace));
+            assertTrue(fileWatchService.getWatchedDirectories(workspace).isEmpty());
+        } finally {
+            fileWatchService.cleanFileMonitors();
+        }
+        assertFalse(fileWatchService.isPolling(workspace));
+    }
 }
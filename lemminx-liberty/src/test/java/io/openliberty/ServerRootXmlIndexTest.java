@@ -0,0 +1,62 @@
+package io.openliberty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.openliberty.tools.langserver.lemminx.util.LibertyUtils;
+import io.openliberty.tools.langserver.lemminx.util.LibertyVersionDownloadUtil;
+import io.openliberty.tools.langserver.lemminx.util.ServerRootXmlIndex;
+
+public class ServerRootXmlIndexTest {
+
+    @Test
+    public void testServerRootXmlIndex(@TempDir Path tempDir) throws IOException {
+        Path workspaceDir = Files.createDirectories(tempDir.resolve("workspace"));
+        Path cacheDir = tempDir.resolve("cache");
+        Path serverXml = Files.createDirectories(workspaceDir.resolve("config")).resolve("app.xml");
+        Files.writeString(serverXml, "<server><featureManager/></server>");
+        Files.writeString(workspaceDir.resolve("pom.xml"), "<project/>");
+        Files.createDirectories(workspaceDir.resolve("node_modules"));
+        Files.writeString(workspaceDir.resolve("node_modules/server.xml"), "<server/>");
+
+        System.setProperty(LibertyVersionDownloadUtil.LIBERTY_LS_CACHE_DIR_PROPERTY, cacheDir.toString());
+        try {
+            assertEquals(cacheDir.resolve("workspaces"), ServerRootXmlIndex.getCacheDir());
+            // an index that was not saved for a long time is deleted when another one is saved
+            Path staleIndex = Files.createDirectories(ServerRootXmlIndex.getCacheDir()).resolve("stale.properties");
+            Files.writeString(staleIndex, "index.version=1");
+            Files.setLastModifiedTime(staleIndex, FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(60)));
+
+            ServerRootXmlIndex index = ServerRootXmlIndex.load(workspaceDir);
+            List<Path> serverXmlFiles = LibertyUtils.getXmlFilesWithServerRootInDirectory(workspaceDir, index);
+            assertEquals(List.of(serverXml), serverXmlFiles);
+            index.save();
+            assertFalse(Files.exists(staleIndex));
+            try (Stream<Path> indexFiles = Files.list(ServerRootXmlIndex.getCacheDir())) {
+                assertEquals(1, indexFiles.count());
+            }
+
+            // unchanged files are answered from the saved index, changed files are checked again
+            long lastModified = Files.getLastModifiedTime(serverXml).toMillis();
+            index = ServerRootXmlIndex.load(workspaceDir);
+            assertTrue(index.get("config/app.xml", lastModified, Files.size(serverXml)));
+            assertFalse(index.get("pom.xml", Files.getLastModifiedTime(workspaceDir.resolve("pom.xml")).toMillis(), Files.size(workspaceDir.resolve("pom.xml"))));
+            assertNull(index.get("config/app.xml", lastModified, Files.size(serverXml) + 1));
+        } finally {
+            System.clearProperty(LibertyVersionDownloadUtil.LIBERTY_LS_CACHE_DIR_PROPERTY);
+        }
+    }
+}
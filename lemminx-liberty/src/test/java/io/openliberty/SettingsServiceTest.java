@@ -5,16 +5,19 @@ import io.openliberty.tools.langserver.lemminx.services.LibertyWorkspace;
 import io.openliberty.tools.langserver.lemminx.services.SettingsService;
 import io.openliberty.tools.langserver.lemminx.util.LibertyUtils;
 import io.openliberty.tools.langserver.lemminx.util.ResourceBundleUtil;
+import io.openliberty.tools.langserver.lemminx.util.ServerVariableIndex;
 import org.eclipse.lsp4j.InitializeParams;
 import org.eclipse.lsp4j.WorkspaceFolder;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
@@ -23,6 +26,7 @@ import java.util.Properties;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 
@@ -94,6 +98,39 @@ public class SettingsServiceTest {
         assertEquals("includes", variables.get("includeLocation"));
     }
 
+    @Test
+    public void testServerVariableIndex(@TempDir Path tempDir) throws Exception {
+        File installDir = tempDir.resolve("wlp").toFile();
+        File userDir = new File(installDir, "usr");
+        File serverDir = new File(userDir, "servers/defaultServer");
+        Files.createDirectories(serverDir.toPath().resolve("configDropins/overrides"));
+        Files.writeString(serverDir.toPath().resolve("server.xml"),
+                "<server><include location=\"${include.name}.xml\"/><variable name=\"httpPort\" value=\"9080\"/></server>");
+        Files.writeString(serverDir.toPath().resolve("included.xml"), "<server><variable name=\"includedVar\" value=\"1\"/></server>");
+        Files.writeString(serverDir.toPath().resolve("bootstrap.properties"), "include.name=included");
+
+        ServerVariableIndex variableIndex = new ServerVariableIndex();
+        Properties variables = variableIndex.readVariables(installDir, userDir, serverDir, serverDir);
+        assertEquals("9080", variables.get("httpPort"));
+        assertEquals("1", variables.get("includedVar"));
+        assertEquals(new File(serverDir, "server.xml").getCanonicalPath(), variableIndex.getSource("httpPort"));
+
+        // only the changed and added files are parsed, and the overrides take precedence over server.xml
+        Files.writeString(serverDir.toPath().resolve("configDropins/overrides/ports.xml"), "<server><variable name=\"httpPort\" value=\"9081\"/></server>");
+        variables = variableIndex.readVariables(installDir, userDir, serverDir, serverDir);
+        assertEquals(1, variableIndex.getParsedFileCount());
+        assertEquals("9081", variables.get("httpPort"));
+        assertEquals(new File(serverDir, "configDropins/overrides/ports.xml").getCanonicalPath(), variableIndex.getSource("httpPort"));
+
+        // a changed include location is resolved again
+        Files.writeString(serverDir.toPath().resolve("other.xml"), "<server><variable name=\"otherVar\" value=\"2\"/></server>");
+        Files.writeString(serverDir.toPath().resolve("bootstrap.properties"), "include.name=other");
+        variables = variableIndex.readVariables(installDir, userDir, serverDir, serverDir);
+        assertEquals(2, variableIndex.getParsedFileCount());
+        assertEquals("2", variables.get("otherVar"));
+        assertNull(variables.get("includedVar"));
+    }
+
     @Test
     public void testInitializeLocale(){
         InitializeParams initParams = new InitializeParams();
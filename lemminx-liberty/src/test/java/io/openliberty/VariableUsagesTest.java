@@ -0,0 +1,34 @@
+package io.openliberty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import io.openliberty.tools.langserver.lemminx.data.VariableUsages;
+
+public class VariableUsagesTest {
+
+    static String newLine = System.lineSeparator();
+
+    @Test
+    public void testVariableUsagesUpdate() {
+        String text = String.join(newLine,
+                "<server>",
+                " <httpEndpoint httpPort=\"${default.http.port}\" httpsPort=\"${default.https.port\"/>",
+                " <webApplication location=\"${testVar2}/${testVar1}\" />",
+                "</server>");
+        VariableUsages variables = VariableUsages.scan(text);
+        // the unclosed reference on the second line is not a variable
+        assertEquals(3, variables.size());
+        assertEquals("default.http.port", variables.getName(0));
+
+        // close the reference and rename a variable on the next line, the references after the edit move
+        String newText = text.replace("${default.https.port\"", "${default.https.port}\"").replace("${testVar2}", "${app.dir}");
+        VariableUsages updated = variables.update(newText);
+        assertEquals(4, updated.size());
+        assertEquals("default.https.port", updated.getName(1));
+        assertEquals("app.dir", updated.getName(2));
+        assertEquals(newText.indexOf("testVar1"), updated.getNameStart(3));
+        assertEquals("testVar1", updated.getName(3));
+    }
+}
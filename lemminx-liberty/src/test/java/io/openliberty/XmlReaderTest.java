@@ -1,5 +1,6 @@
 package io.openliberty;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -12,6 +13,10 @@ import java.util.Set;
 
 import org.junit.jupiter.api.Test;
 
+import jakarta.xml.bind.JAXBContext;
+
+import io.openliberty.tools.langserver.lemminx.models.feature.Feature;
+import io.openliberty.tools.langserver.lemminx.models.feature.FeatureInfo;
 import io.openliberty.tools.langserver.lemminx.util.LibertyUtils;
 import io.openliberty.tools.langserver.lemminx.util.XmlReader;
 
@@ -55,4 +60,27 @@ public class XmlReaderTest {
 
         assertFalse(values.containsKey("serverEnv"), "Unexpected serverEnv element found");
     }
+
+    @Test
+    public void readFeatureListXml() throws Exception {
+        File featureListXml = new File(resourcesDir, "featurelist-ol-25.0.0.6.xml");
+        FeatureInfo featureInfo = XmlReader.readFeatureInfo(featureListXml);
+        FeatureInfo jaxbFeatureInfo = (FeatureInfo) JAXBContext.newInstance(FeatureInfo.class).createUnmarshaller().unmarshal(featureListXml);
+
+        assertEquals(jaxbFeatureInfo.getFeatures().size(), featureInfo.getFeatures().size());
+        assertEquals(jaxbFeatureInfo.getPrivateFeatures().size(), featureInfo.getPrivateFeatures().size());
+        for (int i = 0; i < featureInfo.getFeatures().size(); i++) {
+            Feature expected = jaxbFeatureInfo.getFeatures().get(i);
+            Feature actual = featureInfo.getFeatures().get(i);
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getSymbolicName(), actual.getSymbolicName());
+            assertEquals(expected.getDescription(), actual.getDescription());
+            assertEquals(expected.getEnables(), actual.getEnables());
+            assertEquals(expected.getConfigElements(), actual.getConfigElements());
+        }
+        for (int i = 0; i < featureInfo.getPrivateFeatures().size(); i++) {
+            assertEquals(jaxbFeatureInfo.getPrivateFeatures().get(i).getSymbolicName(), featureInfo.getPrivateFeatures().get(i).getSymbolicName());
+            assertEquals(jaxbFeatureInfo.getPrivateFeatures().get(i).getPlatforms(), featureInfo.getPrivateFeatures().get(i).getPlatforms());
+        }
+    }
 }
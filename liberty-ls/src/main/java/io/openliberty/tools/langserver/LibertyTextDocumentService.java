@@ -25,7 +25,6 @@ import org.eclipse.lsp4j.services.TextDocumentService;
 import io.openliberty.tools.langserver.ls.LibertyTextDocument;
 import io.openliberty.tools.langserver.ls.LibertyTextDocuments;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -36,10 +35,8 @@ import java.util.stream.Collectors;
 import org.eclipse.lsp4j.CompletionItem;
 import org.eclipse.lsp4j.CompletionList;
 import org.eclipse.lsp4j.CompletionParams;
-import org.eclipse.lsp4j.Diagnostic;
 import org.eclipse.lsp4j.Hover;
 import org.eclipse.lsp4j.HoverParams;
-import org.eclipse.lsp4j.PublishDiagnosticsParams;
 import org.eclipse.lsp4j.jsonrpc.messages.Either;
 
 import io.openliberty.tools.langserver.completion.LibertyPropertiesCompletionProvider;
@@ -55,8 +52,12 @@ public class LibertyTextDocumentService implements TextDocumentService {
     // Text document manager that maintains the contexts of the text documents
     private final LibertyTextDocuments<LibertyTextDocument> documents = new LibertyTextDocuments<LibertyTextDocument>();
 
+    // Schedules the validations of the opened documents, shared so that changes to a document can replace pending validations
+    private final DiagnosticRunner diagnosticRunner;
+
     public LibertyTextDocumentService(LibertyLanguageServer libertyls) {
         this.libertyLanguageServer = libertyls;
+        this.diagnosticRunner = new DiagnosticRunner(libertyls);
     }
 
     public LibertyTextDocument getOpenedDocument(String uri) {
@@ -71,7 +72,7 @@ public class LibertyTextDocumentService implements TextDocumentService {
             LOGGER.severe("Liberty text document URI is null for " + params);
         }
         validate(Arrays.asList(uri));
-        new DiagnosticRunner(libertyLanguageServer).compute(params);
+        diagnosticRunner.compute(params);
     }
 
     @Override
@@ -82,7 +83,7 @@ public class LibertyTextDocumentService implements TextDocumentService {
             LOGGER.severe("Liberty text document URI is null for " + params);
         }
         validate(Arrays.asList(uri));
-        new DiagnosticRunner(libertyLanguageServer).compute(params);
+        diagnosticRunner.compute(params);
     }
 
     @Override
@@ -92,8 +93,7 @@ public class LibertyTextDocumentService implements TextDocumentService {
         if (uri == null) {
             LOGGER.severe("Liberty text document URI is null for " + params);
         }
-        libertyLanguageServer.getLanguageClient()
-            .publishDiagnostics(new PublishDiagnosticsParams(uri, new ArrayList<Diagnostic>()));
+        diagnosticRunner.clearDiagnostics(uri);
     }
 
     @Override
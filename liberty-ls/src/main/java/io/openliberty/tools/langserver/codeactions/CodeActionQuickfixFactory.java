@@ -68,12 +68,12 @@ public abstract class CodeActionQuickfixFactory {
      * @return codeaction
      */
     public List<Either<Command, CodeAction>> apply(CodeActionParams params) {
-        TextDocumentItem openedDocument = libertyTextDocumentService.getOpenedDocument(params.getTextDocument().getUri());
+        LibertyTextDocument openedDocument = libertyTextDocumentService.getOpenedDocument(params.getTextDocument().getUri());
         List<Diagnostic> diagnostics = params.getContext().getDiagnostics();
         List<Either<Command, CodeAction>> res = new ArrayList<>();
         for (Diagnostic diagnostic : diagnostics) {
             if (diagnostic.getCode() != null && getErrorCode().equals(diagnostic.getCode().getLeft())) {
-                String line = new ParserFileHelperUtil().getLine(new LibertyTextDocument(openedDocument), diagnostic.getRange().getStart().getLine());
+                String line = new ParserFileHelperUtil().getLine(openedDocument, diagnostic.getRange().getStart().getLine());
                 if (line != null) {
                     String prefix = getUserEnteredValidValues(diagnostic);
                     if (!Objects.equals(prefix, "")) {
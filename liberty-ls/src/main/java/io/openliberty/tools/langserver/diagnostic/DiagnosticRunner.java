@@ -1,5 +1,5 @@
 /*******************************************************************************
-* Copyright (c) 2022 IBM Corporation and others.
+* Copyright (c) 2022, 2025 IBM Corporation and others.
 *
 * This program and the accompanying materials are made available under the
 * terms of the Eclipse Public License v. 2.0 which is available at
@@ -13,25 +13,52 @@
 package io.openliberty.tools.langserver.diagnostic;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Logger;
 
 import org.eclipse.lsp4j.Diagnostic;
 import org.eclipse.lsp4j.DidChangeTextDocumentParams;
 import org.eclipse.lsp4j.DidOpenTextDocumentParams;
 import org.eclipse.lsp4j.PublishDiagnosticsParams;
-import org.eclipse.lsp4j.TextDocumentItem;
 
 import io.openliberty.tools.langserver.LibertyLanguageServer;
 import io.openliberty.tools.langserver.ls.LibertyTextDocument;
 import io.openliberty.tools.langserver.utils.PropertiesValidationResult;
 
+/**
+ * Validates opened documents and publishes their diagnostics. There is one runner per language server.
+ *
+ * Validations are scheduled per document URI. A change waits for CHANGE_DELAY_MILLIS before it is validated,
+ * and a newer change for the same document replaces a validation that has not started yet, so a burst of
+ * changes results in one validation of the latest text. Diagnostics are published with the version of the
+ * text they were computed from, and only if the document still has that version.
+ */
 public class DiagnosticRunner {
+    // delay between a change and its validation, changes that arrive within it are validated together
+    private static final long CHANGE_DELAY_MILLIS = 200;
+
+    private static final ScheduledExecutorService diagnosticExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "liberty-ls-diagnostics");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private LibertyLanguageServer libertyLanguageServer;
     private LibertyPropertiesDiagnosticService libertyPropertiesDiagnosticService;
-    
+
+    // uri -> validation that has not completed yet, guarded by itself. Publishing also holds the lock, so that
+    // diagnostics are never published for a document after they were cleared. A validation removes its own
+    // entry when it completes.
+    private final Map<String, ScheduledFuture<?>> pendingValidations = new HashMap<>();
+
     private static final Logger LOGGER = Logger.getLogger(DiagnosticRunner.class.getName());
 
     public DiagnosticRunner(LibertyLanguageServer libertyLanguageServer){
@@ -40,23 +67,93 @@ public class DiagnosticRunner {
     }
 
     public void compute(DidOpenTextDocumentParams params) {
-        String text = params.getTextDocument().getText();
-        computeDiagnostics(text, params.getTextDocument());
+        scheduleDiagnostics(params.getTextDocument().getUri(), 0);
     }
 
     public void compute(DidChangeTextDocumentParams params) {
-        String text = params.getContentChanges().get(0).getText();
-        computeDiagnostics(text, libertyLanguageServer.getTextDocumentService().getOpenedDocument(params.getTextDocument().getUri()));
+        scheduleDiagnostics(params.getTextDocument().getUri(), CHANGE_DELAY_MILLIS);
+    }
+
+    /**
+     * Validates the latest text of an opened document after the delay, replacing a validation of the document
+     * that has not started yet.
+     * @param uri
+     * @param delayMillis
+     */
+    public void scheduleDiagnostics(String uri, long delayMillis) {
+        synchronized (pendingValidations) {
+            ScheduledFuture<?> pendingValidation = pendingValidations.get(uri);
+            if (pendingValidation != null) {
+                pendingValidation.cancel(false);
+            }
+            // set under the lock, so the validation sees its own future when it removes its entry under the lock
+            AtomicReference<ScheduledFuture<?>> validation = new AtomicReference<>();
+            validation.set(diagnosticExecutor.schedule(() -> runValidation(uri, validation), delayMillis, TimeUnit.MILLISECONDS));
+            pendingValidations.put(uri, validation.get());
+        }
     }
 
-    public void computeDiagnostics(String text, TextDocumentItem documentItem) {
-        String uri = documentItem.getUri();
-        CompletableFuture.runAsync(() -> {
-            LibertyTextDocument openedDocument = libertyLanguageServer.getTextDocumentService().getOpenedDocument(uri);
+    private void runValidation(String uri, AtomicReference<ScheduledFuture<?>> validation) {
+        try {
+            computeDiagnostics(uri);
+        } finally {
+            synchronized (pendingValidations) {
+                // a newer validation of the document may have replaced this one
+                pendingValidations.remove(uri, validation.get());
+            }
+        }
+    }
+
+    /**
+     * Cancels the pending validation of a document and publishes empty diagnostics for it, for example when it is closed.
+     * @param uri
+     */
+    public void clearDiagnostics(String uri) {
+        synchronized (pendingValidations) {
+            ScheduledFuture<?> pendingValidation = pendingValidations.remove(uri);
+            if (pendingValidation != null) {
+                pendingValidation.cancel(false);
+            }
+            libertyLanguageServer.getLanguageClient().publishDiagnostics(new PublishDiagnosticsParams(uri, new ArrayList<Diagnostic>()));
+        }
+    }
+
+    private void computeDiagnostics(String uri) {
+        LibertyTextDocument openedDocument = libertyLanguageServer.getTextDocumentService().getOpenedDocument(uri);
+        if (openedDocument == null) {
+            return;
+        }
+        String text;
+        Integer version;
+        synchronized (openedDocument) {
+            text = openedDocument.getText();
+            version = openedDocument.getVersion();
+        }
+        try {
             List<Diagnostic> diagnostics = new ArrayList<>();
             Map<String, PropertiesValidationResult> propertiesErrors = libertyPropertiesDiagnosticService.compute(text, openedDocument);
             diagnostics.addAll(libertyPropertiesDiagnosticService.convertToLSPDiagnostics(propertiesErrors));
-            libertyLanguageServer.getLanguageClient().publishDiagnostics(new PublishDiagnosticsParams(uri, diagnostics));
-        });
+            synchronized (pendingValidations) {
+                // skip diagnostics for text that was changed or closed meanwhile, a newer validation is scheduled for it
+                if (!isCurrentVersion(uri, openedDocument, version)) {
+                    LOGGER.fine("Skipping diagnostics for outdated version " + version + " of " + uri);
+                    return;
+                }
+                PublishDiagnosticsParams publishDiagnosticsParams = new PublishDiagnosticsParams(uri, diagnostics);
+                publishDiagnosticsParams.setVersion(version);
+                libertyLanguageServer.getLanguageClient().publishDiagnostics(publishDiagnosticsParams);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warning("Exception while computing diagnostics for " + uri + ": " + e);
+        }
+    }
+
+    private boolean isCurrentVersion(String uri, LibertyTextDocument document, Integer version) {
+        if (libertyLanguageServer.getTextDocumentService().getOpenedDocument(uri) != document) {
+            return false;
+        }
+        synchronized (document) {
+            return Objects.equals(document.getVersion(), version);
+        }
     }
 }
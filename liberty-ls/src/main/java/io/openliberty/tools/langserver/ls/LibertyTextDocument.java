@@ -1,5 +1,5 @@
 /*******************************************************************************
-* Copyright (c) 2020, 2024 IBM Corporation and others.
+* Copyright (c) 2020, 2025 IBM Corporation and others.
 *
 * This program and the accompanying materials are made available under the
 * terms of the Eclipse Public License v. 2.0 which is available at
@@ -12,8 +12,11 @@
 *******************************************************************************/
 package io.openliberty.tools.langserver.ls;
 
+import java.util.Arrays;
 import java.util.List;
 
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
 import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
 import org.eclipse.lsp4j.TextDocumentItem;
 
@@ -21,9 +24,14 @@ import org.eclipse.lsp4j.TextDocumentItem;
  * Text document extends LSP4j {@link TextDocumentItem} to provide methods to
  * retrieve position.
  *
+ * The document keeps the offset at which each line starts, so that positions and lines are found with a
+ * binary search instead of scanning the text. Lines end with \n, \r\n or \r, as in the LSP specification.
  */
 public class LibertyTextDocument extends TextDocumentItem {
 
+    // offset of the first character of each line, built when first needed and patched by incremental changes
+    private int[] lineOffsets;
+
     public LibertyTextDocument(TextDocumentItem document) {
         this(document.getText(), document.getUri());
         super.setVersion(document.getVersion());
@@ -35,24 +43,161 @@ public class LibertyTextDocument extends TextDocumentItem {
         super.setText(text);
     }
 
+    @Override
+    public synchronized void setText(String text) {
+        super.setText(text);
+        lineOffsets = null;
+    }
+
     /**
-     * Update text of the document
-     * TODO: Support incremental document updates
+     * Update text of the document. A change with a range replaces that range, a change without
+     * a range replaces the whole text. Changes are applied in order.
      *
      * @param changes the text document changes.
      */
-    public void update(List<TextDocumentContentChangeEvent> changes) {
-        if (changes.size() < 1) {
-            // no changes, ignore it.
-            return;
+    public synchronized void update(List<TextDocumentContentChangeEvent> changes) {
+        for (TextDocumentContentChangeEvent change : changes) {
+            if (change.getRange() == null) {
+                setText(change.getText());
+            } else {
+                replace(change.getRange(), change.getText());
+            }
+        }
+    }
+
+    /**
+     * @return the number of lines, an empty text has one line
+     */
+    public synchronized int getLineCount() {
+        return getLineOffsets().length;
+    }
+
+    /**
+     * Returns the text of a line without its line terminator, or null if the document has no such line.
+     * @param line zero based line number
+     * @return
+     */
+    public synchronized String getLineText(int line) {
+        int[] offsets = getLineOffsets();
+        if (line < 0 || line >= offsets.length) {
+            return null;
+        }
+        return getText().substring(offsets[line], getLineEnd(offsets, line));
+    }
+
+    /**
+     * Converts a position to an offset in the text. A character past the end of the line is the end of the line,
+     * and a line past the end of the text is the end of the text.
+     * @param position
+     * @return
+     */
+    public synchronized int offsetAt(Position position) {
+        int[] offsets = getLineOffsets();
+        if (position.getLine() >= offsets.length) {
+            return getText().length();
+        }
+        int line = Math.max(position.getLine(), 0);
+        int lineEnd = getLineEnd(offsets, line);
+        return Math.min(offsets[line] + Math.max(position.getCharacter(), 0), lineEnd);
+    }
+
+    /**
+     * Converts an offset in the text to a position.
+     * @param offset
+     * @return
+     */
+    public synchronized Position positionAt(int offset) {
+        int[] offsets = getLineOffsets();
+        offset = Math.max(0, Math.min(offset, getText().length()));
+        int line = Arrays.binarySearch(offsets, offset);
+        if (line < 0) {
+            // not a line start, the line is the one before the insertion point
+            line = -line - 2;
         }
-        // like vscode does, get the last changes
-        // see
-        // https://github.com/Microsoft/vscode-languageserver-node/blob/master/server/src/main.ts
-        TextDocumentContentChangeEvent last = changes.size() > 0 ? changes.get(changes.size() - 1) : null;
-        if (last != null) {
-            setText(last.getText());
+        return new Position(line, offset - offsets[line]);
+    }
+
+    private void replace(Range range, String newText) {
+        String text = getText();
+        int start = offsetAt(range.getStart());
+        int end = Math.max(start, offsetAt(range.getEnd()));
+        int[] offsets = getLineOffsets();
+        super.setText(text.substring(0, start) + newText + text.substring(end));
+        lineOffsets = patchLineOffsets(offsets, getText(), start, end, newText.length());
+    }
+
+    /**
+     * Whether a line starts at an offset only depends on the characters just before and at it, so after replacing
+     * start..end only the offsets around the new text need to be checked. Line starts before it are kept and line
+     * starts after it are moved by the change in length.
+     */
+    private static int[] patchLineOffsets(int[] oldOffsets, String text, int start, int end, int newLength) {
+        int delta = newLength - (end - start);
+        int firstChecked = Math.max(start, 1);
+        int lastChecked = Math.min(start + newLength + 1, text.length());
+        // old line starts before firstChecked are unchanged
+        int keptBefore = lowerBound(oldOffsets, firstChecked);
+        // old line starts after lastChecked are moved by delta
+        int movedFrom = lowerBound(oldOffsets, lastChecked - delta + 1);
+        int[] offsets = new int[keptBefore + (lastChecked - firstChecked + 1) + (oldOffsets.length - movedFrom)];
+        System.arraycopy(oldOffsets, 0, offsets, 0, keptBefore);
+        int count = keptBefore;
+        for (int offset = firstChecked; offset <= lastChecked; offset++) {
+            if (isLineStart(text, offset)) {
+                offsets[count++] = offset;
+            }
+        }
+        for (int i = movedFrom; i < oldOffsets.length; i++) {
+            offsets[count++] = oldOffsets[i] + delta;
         }
+        return count == offsets.length ? offsets : Arrays.copyOf(offsets, count);
+    }
+
+    // index of the first offset that is not less than value
+    private static int lowerBound(int[] offsets, int value) {
+        int index = Arrays.binarySearch(offsets, value);
+        return index < 0 ? -index - 1 : index;
     }
 
+    private static boolean isLineStart(String text, int offset) {
+        if (offset <= 0 || offset > text.length()) {
+            return offset == 0;
+        }
+        char previous = text.charAt(offset - 1);
+        return previous == '\n' || (previous == '\r' && (offset == text.length() || text.charAt(offset) != '\n'));
+    }
+
+    private int[] getLineOffsets() {
+        if (lineOffsets == null) {
+            String text = getText() == null ? "" : getText();
+            int[] offsets = new int[16];
+            int count = 1;
+            for (int offset = 1; offset <= text.length(); offset++) {
+                if (isLineStart(text, offset)) {
+                    if (count == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, count * 2);
+                    }
+                    offsets[count++] = offset;
+                }
+            }
+            lineOffsets = Arrays.copyOf(offsets, count);
+        }
+        return lineOffsets;
+    }
+
+    // offset of the line terminator of a line, or the end of the text for the last line
+    private int getLineEnd(int[] offsets, int line) {
+        String text = getText();
+        if (line + 1 >= offsets.length) {
+            return text.length();
+        }
+        int lineEnd = offsets[line + 1];
+        if (lineEnd > offsets[line] && text.charAt(lineEnd - 1) == '\n') {
+            lineEnd--;
+        }
+        if (lineEnd > offsets[line] && text.charAt(lineEnd - 1) == '\r') {
+            lineEnd--;
+        }
+        return lineEnd;
+    }
 }
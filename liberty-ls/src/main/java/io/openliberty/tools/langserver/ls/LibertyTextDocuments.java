@@ -1,5 +1,5 @@
 /*******************************************************************************
-* Copyright (c) 2020, 2022 IBM Corporation and others.
+* Copyright (c) 2020, 2025 IBM Corporation and others.
 *
 * This program and the accompanying materials are made available under the
 * terms of the Eclipse Public License v. 2.0 which is available at
@@ -22,7 +22,6 @@ import org.eclipse.lsp4j.DidOpenTextDocumentParams;
 import org.eclipse.lsp4j.TextDocumentIdentifier;
 import org.eclipse.lsp4j.TextDocumentItem;
 
-// TODO: Add support for incimental updates
 public class LibertyTextDocuments<T extends LibertyTextDocument> {
 
     private final Map<String, T> documents;
@@ -53,8 +52,11 @@ public class LibertyTextDocuments<T extends LibertyTextDocument> {
         synchronized (documents) {
             T document = getDocument(params.getTextDocument());
             if (document != null) {
-                document.setVersion(params.getTextDocument().getVersion());
-                document.update(params.getContentChanges());
+                // diagnostics read the text and version together while holding the document lock
+                synchronized (document) {
+                    document.setVersion(params.getTextDocument().getVersion());
+                    document.update(params.getContentChanges());
+                }
                 return document;
             }
         }
@@ -1,5 +1,5 @@
 /*******************************************************************************
-* Copyright (c) 2022, 2023 IBM Corporation and others.
+* Copyright (c) 2022, 2025 IBM Corporation and others.
 *
 * This program and the accompanying materials are made available under the
 * terms of the Eclipse Public License v. 2.0 which is available at
@@ -19,7 +19,7 @@ public class ParserFileHelperUtil {
     }
     
     public String getLine(LibertyTextDocument textDocumentItem, int line) {
-        return getLine(textDocumentItem.getText(), line);
+        return textDocumentItem.getLineText(line);
     }
 
     public String getLine(String text, int line) {
@@ -20,6 +20,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
@@ -48,6 +49,7 @@ public class AbstractLibertyLanguageServerTest {
     private String extensionUsed;
     protected static LibertyLanguageServer libertyLanguageServer;
     protected PublishDiagnosticsParams lastPublishedDiagnostics;
+    protected final List<PublishDiagnosticsParams> publishedDiagnostics = new CopyOnWriteArrayList<>();
 
     public AbstractLibertyLanguageServerTest() {
         super();
@@ -139,6 +141,7 @@ public class AbstractLibertyLanguageServerTest {
 
         @Override
         public void publishDiagnostics(PublishDiagnosticsParams diagnostics) {
+            AbstractLibertyLanguageServerTest.this.publishedDiagnostics.add(diagnostics);
             AbstractLibertyLanguageServerTest.this.lastPublishedDiagnostics = diagnostics;
         }
 
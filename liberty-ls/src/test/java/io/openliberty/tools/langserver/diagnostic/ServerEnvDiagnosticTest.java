@@ -9,6 +9,14 @@
 *******************************************************************************/
 package io.openliberty.tools.langserver.diagnostic;
 
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.eclipse.lsp4j.DidChangeTextDocumentParams;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
+import org.eclipse.lsp4j.VersionedTextDocumentIdentifier;
 import org.junit.Test;
 
 public class ServerEnvDiagnosticTest extends AbstractDiagnosticTest {
@@ -49,4 +57,22 @@ public class ServerEnvDiagnosticTest extends AbstractDiagnosticTest {
             "The value is empty for the variable `WLP_DEBUG_SUSPEND`. Check whether a value should be specified."
         );
     }
+
+    @Test
+    public void testServerEnvChangesAreValidatedOnce() throws Exception {
+        testDiagnostic("server.env", 8);
+        String fileURI = lastPublishedDiagnostics.getUri();
+
+        // a burst of changes is validated once, for the latest version of the text
+        publishedDiagnostics.clear();
+        String[] texts = { "WLP_DEBUG_ADDRESS=-2", "WLP_DEBUG_ADDRESS=-2\nWLP_DEBUG_REMOTE =n", "WLP_DEBUG_ADDRESS=7777" };
+        for (int version = 1; version <= texts.length; version++) {
+            libertyLanguageServer.getTextDocumentService().didChange(new DidChangeTextDocumentParams(
+                    new VersionedTextDocumentIdentifier(fileURI, version), List.of(new TextDocumentContentChangeEvent(texts[version - 1]))));
+        }
+        await().timeout(AWAIT_TIMEOUT).untilAsserted(() -> assertEquals(Integer.valueOf(texts.length), lastPublishedDiagnostics.getVersion()));
+        assertEquals(0, lastPublishedDiagnostics.getDiagnostics().size());
+        // diagnostics are published in order by one thread, so an intermediate version would have been published first
+        assertEquals(1, publishedDiagnostics.size());
+    }
 }
@@ -0,0 +1,75 @@
+/*******************************************************************************
+* Copyright (c) 2025 IBM Corporation and others.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License v. 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* SPDX-License-Identifier: EPL-2.0
+*******************************************************************************/
+package io.openliberty.tools.langserver.ls;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
+import org.junit.Test;
+
+public class LibertyTextDocumentTest {
+
+    @Test
+    public void testLines() {
+        LibertyTextDocument document = new LibertyTextDocument("WLP_DEBUG_ADDRESS=7777\r\nWLP_DEBUG_REMOTE=y\n\nWLP_DEBUG_SUSPEND=n", "server.env");
+        assertEquals(4, document.getLineCount());
+        assertEquals("WLP_DEBUG_ADDRESS=7777", document.getLineText(0));
+        assertEquals("WLP_DEBUG_REMOTE=y", document.getLineText(1));
+        assertEquals("", document.getLineText(2));
+        assertEquals("WLP_DEBUG_SUSPEND=n", document.getLineText(3));
+        assertNull(document.getLineText(4));
+
+        assertEquals(24, document.offsetAt(new Position(1, 0)));
+        // a character past the end of the line is the end of the line
+        assertEquals(22, document.offsetAt(new Position(0, 100)));
+        assertEquals(new Position(1, 3), document.positionAt(27));
+        assertEquals(new Position(3, 0), document.positionAt(44));
+    }
+
+    @Test
+    public void testIncrementalChanges() {
+        LibertyTextDocument document = new LibertyTextDocument("a=1\nb=2\nc=3", "bootstrap.properties");
+        document.update(List.of(
+            // replace a value
+            new TextDocumentContentChangeEvent(new Range(new Position(1, 2), new Position(1, 3)), "22"),
+            // insert lines in the middle of a line
+            new TextDocumentContentChangeEvent(new Range(new Position(0, 3), new Position(0, 3)), "\r\nx=9\r"),
+            // join two lines
+            new TextDocumentContentChangeEvent(new Range(new Position(2, 4), new Position(3, 0)), "")));
+        assertEquals("a=1\r\nx=9\r\nb=22c=3", document.getText());
+        assertLinesMatchText(document);
+        assertEquals("b=22c=3", document.getLineText(2));
+
+        // split a \r\n line terminator, then join it again
+        document.update(List.of(new TextDocumentContentChangeEvent(new Range(new Position(0, 3), new Position(0, 3)), "!")));
+        document.update(List.of(new TextDocumentContentChangeEvent(new Range(new Position(0, 3), new Position(0, 4)), "\r")));
+        assertEquals("a=1\r\r\nx=9\r\nb=22c=3", document.getText());
+        assertLinesMatchText(document);
+
+        // a change without a range replaces the whole text
+        document.update(List.of(new TextDocumentContentChangeEvent("c=3\n")));
+        assertEquals(2, document.getLineCount());
+        assertEquals("", document.getLineText(1));
+    }
+
+    private void assertLinesMatchText(LibertyTextDocument document) {
+        LibertyTextDocument rebuilt = new LibertyTextDocument(document.getText(), document.getUri());
+        assertEquals(rebuilt.getLineCount(), document.getLineCount());
+        for (int line = 0; line < rebuilt.getLineCount(); line++) {
+            assertEquals(rebuilt.getLineText(line), document.getLineText(line));
+            assertEquals(rebuilt.offsetAt(new Position(line, 0)), document.offsetAt(new Position(line, 0)));
+        }
+    }
+}